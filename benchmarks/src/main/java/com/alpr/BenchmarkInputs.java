@@ -0,0 +1,93 @@
+package com.alpr;
+
+import nu.pattern.OpenCV;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * BenchmarkInputs - Synthetic inputs shared by the JMH suites
+ *
+ * <p>Scenes come from {@link TestImageGenerator#createTestImage(int, int)}, so every
+ * run measures the same pixels and no image files are needed. Suites that need real
+ * plates (recall, whole batches) read an image directory instead, relative to the
+ * working directory (the repository root by default). Loading this class
+ * also loads OpenCV and turns debug image output off, which would otherwise
+ * dominate the measurements.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+final class BenchmarkInputs {
+
+    /** Resolution names accepted by the {@code resolution} JMH parameter. */
+    static final String VGA = "VGA";
+    static final String FULL_HD = "1080p";
+    static final String UHD_4K = "4K";
+
+    /** Default image directory of the suites that run on real plates. */
+    static final String PLATES_DIR = "src/plates";
+
+    private static final String[] IMAGE_EXTENSIONS = {".jpg", ".jpeg", ".png", ".bmp"};
+
+    static {
+        OpenCV.loadLocally();
+        DebugImageWriter.get().setEnabled(false);
+    }
+
+    private BenchmarkInputs() {
+    }
+
+    /**
+     * @return Width and height for a resolution name
+     */
+    static int[] dimensions(String resolution) {
+        switch (resolution) {
+            case VGA: return new int[]{640, 480};
+            case FULL_HD: return new int[]{1920, 1080};
+            case UHD_4K: return new int[]{3840, 2160};
+            default: throw new IllegalArgumentException("Unknown resolution: " + resolution);
+        }
+    }
+
+    /**
+     * @return Synthetic BGR scene with one plate at the given resolution
+     */
+    static Mat scene(String resolution) {
+        int[] size = dimensions(resolution);
+        return TestImageGenerator.createTestImage(size[0], size[1]);
+    }
+
+    /**
+     * @return Crop of the synthetic plate, as the detector would hand it to OCR
+     */
+    static Mat plate(String resolution) {
+        int[] size = dimensions(resolution);
+        double scale = size[0] / 640.0;
+        double offsetY = (size[1] - 480 * scale) / 2;
+        Rect plateRect = new Rect((int) (200 * scale), (int) (200 * scale + offsetY),
+                                  (int) (241 * scale), (int) (81 * scale));
+        Mat scene = scene(resolution);
+        Mat plate = new Mat(scene, plateRect).clone();
+        scene.release();
+        return plate;
+    }
+
+    /**
+     * @return Image files of a directory in name order
+     * @throws IllegalStateException if the directory holds no images
+     */
+    static File[] images(String directory) {
+        File[] files = new File(directory).listFiles((dir, name) -> {
+            String lowerName = name.toLowerCase();
+            return Arrays.stream(IMAGE_EXTENSIONS).anyMatch(lowerName::endsWith);
+        });
+        if (files == null || files.length == 0) {
+            throw new IllegalStateException("No image files found in: " + new File(directory).getAbsolutePath());
+        }
+        Arrays.sort(files);
+        return files;
+    }
+}
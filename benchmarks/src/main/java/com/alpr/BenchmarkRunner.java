@@ -0,0 +1,28 @@
+package com.alpr;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkRunner - Entry point of alpr-benchmarks.jar
+ *
+ * <p>Accepts the regular JMH command line (benchmark regex, {@code -p resolution=4K},
+ * {@code -f}, {@code -rf json}, ...) and always attaches the GC profiler, so every
+ * result reports allocation rate ({@code gc.alloc.rate.norm} = bytes per operation)
+ * next to throughput and average time.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmdOptions = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(cmdOptions)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
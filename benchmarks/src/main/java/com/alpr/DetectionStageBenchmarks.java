@@ -0,0 +1,93 @@
+package com.alpr;
+
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DetectionStageBenchmarks - Per-stage cost of {@link PlateDetector}
+ *
+ * <p>The image is loaded and preprocessed once per trial; each benchmark then
+ * repeats a single stage on it:</p>
+ * <ul>
+ *   <li>{@code preprocess} - grayscale, CLAHE, bilateral, Canny, close, dilate</li>
+ *   <li>{@code haar} - histogram equalization + cascade scan + crops</li>
+ *   <li>{@code geometric} - contours, polygon approximation + crops/warps</li>
+ * </ul>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DetectionStageBenchmarks {
+
+    @Param({BenchmarkInputs.VGA, BenchmarkInputs.FULL_HD, BenchmarkInputs.UHD_4K})
+    public String resolution;
+
+    /** Detection resolution limit (0 = full resolution), e.g. {@code -p detectMaxEdge=1280}. */
+    @Param({"0"})
+    public int detectMaxEdge;
+
+    /** Haar scan strategy, e.g. {@code -p haarScanMode=EXHAUSTIVE,COARSE_TO_FINE}. */
+    @Param({"EXHAUSTIVE"})
+    public PlateDetector.HaarScanMode haarScanMode;
+
+    private PlateDetector detector;
+
+    @Setup
+    public void setUp() {
+        detector = new PlateDetector();
+        detector.setDetectMaxEdge(detectMaxEdge);
+        detector.setHaarScanMode(haarScanMode);
+        detector.loadImage(BenchmarkInputs.scene(resolution), "bench_" + resolution);
+        detector.preprocess();
+    }
+
+    @TearDown
+    public void tearDown() {
+        detector.reset();
+    }
+
+    @Benchmark
+    public Mat preprocess() {
+        return detector.preprocess();
+    }
+
+    @Benchmark
+    public int haar() {
+        return releaseAll(detector.detectWithHaar());
+    }
+
+    @Benchmark
+    public int geometric() {
+        return releaseAll(detector.detectWithGeometric());
+    }
+
+    /**
+     * Stage results are not kept by the detector here, so free their crops per call.
+     */
+    private static int releaseAll(List<DetectionResult> results) {
+        for (DetectionResult result : results) {
+            result.release();
+        }
+        return results.size();
+    }
+}
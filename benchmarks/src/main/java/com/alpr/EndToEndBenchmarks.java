@@ -0,0 +1,98 @@
+package com.alpr;
+
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EndToEndBenchmarks - Whole-image cost through a reused {@link PipelineContext}
+ *
+ * <p>The synthetic scene is JPEG-encoded once; every operation decodes it, so
+ * decoding is part of the measurement just like {@code imread} in batch mode.</p>
+ * <ul>
+ *   <li>{@code detect} - decode + preprocess + Haar + geometric</li>
+ *   <li>{@code detectAndRecognize} - the above plus OCR of all candidates
+ *       (needs a native Tesseract installation)</li>
+ * </ul>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EndToEndBenchmarks {
+
+    @Param({BenchmarkInputs.VGA, BenchmarkInputs.FULL_HD, BenchmarkInputs.UHD_4K})
+    public String resolution;
+
+    /** Detection resolution limit (0 = full resolution), e.g. {@code -p detectMaxEdge=1280}. */
+    @Param({"0"})
+    public int detectMaxEdge;
+
+    /** Run Haar and geometric detection in parallel, e.g. {@code -p concurrentDetection=false,true}. */
+    @Param({"false"})
+    public boolean concurrentDetection;
+
+    private MatOfByte encoded;
+    private OcrEnginePool pool;
+    private PipelineContext context;
+
+    @Setup
+    public void setUp() {
+        Mat scene = BenchmarkInputs.scene(resolution);
+        encoded = new MatOfByte();
+        Imgcodecs.imencode(".jpg", scene, encoded);
+        scene.release();
+
+        pool = new OcrEnginePool(OcrEnginePool.Config.defaults(OcrService.findTessdataPath()), 1);
+        context = new PipelineContext(detector -> {
+            detector.setDetectMaxEdge(detectMaxEdge);
+            detector.setConcurrentDetection(concurrentDetection);
+        }, new OcrService(pool));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.beginImage();
+        pool.close();
+        encoded.release();
+    }
+
+    @Benchmark
+    public int detect() {
+        return runDetection().size();
+    }
+
+    @Benchmark
+    public int detectAndRecognize() {
+        List<DetectionResult> detections = runDetection();
+        return context.getCandidateOcr().recognizeAll(detections, null, CandidateOcr::isPlateFormat).size();
+    }
+
+    private List<DetectionResult> runDetection() {
+        context.beginImage();
+        PlateDetector detector = context.getDetector();
+        detector.loadImage(Imgcodecs.imdecode(encoded, Imgcodecs.IMREAD_COLOR), "bench_" + resolution);
+        detector.preprocess();
+        return detector.detectAll();
+    }
+}
@@ -0,0 +1,171 @@
+package com.alpr;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HaarScanBenchmarks - Recall and latency of the Haar scan strategies on real plates
+ *
+ * <p>{@code scan} times histogram equalization + cascade scanning + crops on the
+ * images of {@code imageDir}, one image per operation in name order. Each image is
+ * loaded and preprocessed before its operation, outside the measurement (a scan
+ * takes tens of milliseconds, so per-invocation setup does not distort it).</p>
+ *
+ * <p>Recall is printed once per trial: the exhaustive scan without ROI mask is the
+ * reference, and recall is the fraction of its hits the measured configuration
+ * reproduces (IoU &gt; 0.5), per hit and per image.</p>
+ *
+ * <p>Examples, from the repository root:</p>
+ * <ul>
+ *   <li>{@code HaarScanBenchmarks -p coarseScale=1.15,1.25}</li>
+ *   <li>{@code HaarScanBenchmarks -p haarScanMode=COARSE_TO_FINE -p roiMask=lane.png}</li>
+ * </ul>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HaarScanBenchmarks {
+
+    @Param({BenchmarkInputs.PLATES_DIR})
+    public String imageDir;
+
+    @Param({"EXHAUSTIVE", "COARSE_TO_FINE"})
+    public PlateDetector.HaarScanMode haarScanMode;
+
+    /** Pyramid step of the coarse pass. */
+    @Param({"1.15"})
+    public double coarseScale;
+
+    /** Lane mask image, or empty for none. */
+    @Param({""})
+    public String roiMask;
+
+    private Mat[] images;
+    private String[] names;
+    private PlateDetector detector;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        File[] files = BenchmarkInputs.images(imageDir);
+        images = new Mat[files.length];
+        names = new String[files.length];
+        for (int i = 0; i < files.length; i++) {
+            images[i] = Imgcodecs.imread(files[i].getAbsolutePath());
+            names[i] = files[i].getName();
+        }
+
+        detector = createDetector(haarScanMode);
+        detector.setHaarCoarseScaleFactor(coarseScale);
+        if (!roiMask.isEmpty() && !detector.loadRoiMask(roiMask)) {
+            throw new IllegalStateException("Could not load ROI mask: " + roiMask);
+        }
+        printRecall();
+    }
+
+    @Setup(Level.Invocation)
+    public void nextImage() {
+        int i = next++ % images.length;
+        detector.loadImage(images[i].clone(), names[i]);
+        detector.preprocess();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        detector.reset();
+        for (Mat image : images) {
+            image.release();
+        }
+    }
+
+    @Benchmark
+    public int scan() {
+        return boxes(detector.detectWithHaar()).size();
+    }
+
+    private void printRecall() {
+        PlateDetector reference = createDetector(PlateDetector.HaarScanMode.EXHAUSTIVE);
+        int referenceHits = 0;
+        int matchedHits = 0;
+        int referenceImages = 0;
+        int matchedImages = 0;
+
+        for (int i = 0; i < images.length; i++) {
+            List<Rect> expected = scan(reference, i);
+            List<Rect> actual = scan(detector, i);
+
+            int matched = 0;
+            for (Rect box : expected) {
+                if (actual.stream().anyMatch(b -> DetectionResult.calculateIoU(b, box) > 0.5)) {
+                    matched++;
+                }
+            }
+            referenceHits += expected.size();
+            matchedHits += matched;
+            if (!expected.isEmpty()) {
+                referenceImages++;
+                if (matched > 0) matchedImages++;
+            }
+        }
+        reference.reset();
+        detector.reset();
+
+        System.out.printf("%nHaar recall vs exhaustive (%d images): hits %.1f%% (%d/%d), images %.1f%% (%d/%d)%n",
+                images.length,
+                referenceHits > 0 ? 100.0 * matchedHits / referenceHits : 100.0, matchedHits, referenceHits,
+                referenceImages > 0 ? 100.0 * matchedImages / referenceImages : 100.0, matchedImages,
+                referenceImages);
+    }
+
+    private List<Rect> scan(PlateDetector target, int image) {
+        target.loadImage(images[image].clone(), names[image]);
+        target.preprocess();
+        return boxes(target.detectWithHaar());
+    }
+
+    private static PlateDetector createDetector(PlateDetector.HaarScanMode mode) {
+        PlateDetector detector = new PlateDetector();
+        if (!detector.isHaarAvailable()) {
+            throw new IllegalStateException("Haar cascade not available (run from the repository root)");
+        }
+        detector.setHaarScanMode(mode);
+        return detector;
+    }
+
+    /**
+     * Stage results are not kept by the detector here, so free their crops per call.
+     */
+    private static List<Rect> boxes(List<DetectionResult> results) {
+        List<Rect> boxes = new ArrayList<>();
+        for (DetectionResult result : results) {
+            boxes.add(result.getBounds());
+            result.release();
+        }
+        return boxes;
+    }
+}
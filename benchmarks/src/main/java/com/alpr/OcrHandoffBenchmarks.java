@@ -0,0 +1,124 @@
+package com.alpr;
+
+import net.sourceforge.tess4j.Tesseract;
+import net.sourceforge.tess4j.TesseractException;
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OcrHandoffBenchmarks - Temp PNG file versus in-memory buffer for handing a plate to Tesseract
+ *
+ * <p>All benchmarks start from the same preprocessed (binary) plate:</p>
+ * <ul>
+ *   <li>{@code tempFileHandoff} - the previous hand-off without OCR: PNG encode to a
+ *       temp file, decode it again as Tess4J does, delete the file</li>
+ *   <li>{@code bufferHandoff} - the current hand-off: one copy into a direct buffer</li>
+ *   <li>{@code tempFileRecognize} - the previous full path, {@code Tesseract.doOCR(File)}
+ *       with a native engine created per call</li>
+ *   <li>{@code pooledRecognize} - the production path, {@link OcrEngine#recognize}
+ *       on an engine borrowed from {@link OcrEnginePool}</li>
+ * </ul>
+ *
+ * <p>The two {@code *Recognize} benchmarks need a native Tesseract installation;
+ * the hand-off benchmarks run on OpenCV alone.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OcrHandoffBenchmarks {
+
+    @Param({BenchmarkInputs.VGA, BenchmarkInputs.FULL_HD, BenchmarkInputs.UHD_4K})
+    public String resolution;
+
+    private Mat binary;
+    private OcrEnginePool pool;
+    private Tesseract tesseract;
+
+    @Setup
+    public void setUp() {
+        Mat plate = BenchmarkInputs.plate(resolution);
+        OcrEnginePool.Config config = OcrEnginePool.Config.defaults(OcrService.findTessdataPath());
+        pool = new OcrEnginePool(config, 1);
+        binary = new OcrService(pool).preprocessForOcr(plate, null);
+        plate.release();
+
+        // Same settings as the pooled engines
+        tesseract = new Tesseract();
+        if (config.getDatapath() != null) tesseract.setDatapath(config.getDatapath());
+        tesseract.setLanguage(config.getLanguage());
+        tesseract.setPageSegMode(config.getPageSegMode());
+        tesseract.setOcrEngineMode(config.getEngineMode());
+        if (config.getWhitelist() != null) {
+            tesseract.setVariable("tessedit_char_whitelist", config.getWhitelist());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+        binary.release();
+    }
+
+    @Benchmark
+    public BufferedImage tempFileHandoff() throws IOException {
+        Path tempFile = Files.createTempFile("plate_", ".png");
+        try {
+            Imgcodecs.imwrite(tempFile.toString(), binary);
+            return ImageIO.read(tempFile.toFile());
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Benchmark
+    public ByteBuffer bufferHandoff() {
+        return OcrService.toByteBuffer(binary);
+    }
+
+    @Benchmark
+    public String tempFileRecognize() throws IOException, TesseractException {
+        Path tempFile = Files.createTempFile("plate_", ".png");
+        try {
+            Imgcodecs.imwrite(tempFile.toString(), binary);
+            return tesseract.doOCR(tempFile.toFile());
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Benchmark
+    public String pooledRecognize() throws InterruptedException {
+        OcrEngine engine = pool.borrow();
+        try {
+            return engine.recognize(OcrService.toByteBuffer(binary), binary.width(), binary.height());
+        } finally {
+            pool.release(engine);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.alpr;
+
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OcrStageBenchmarks - Cost of {@link OcrService} on one plate crop
+ *
+ * <p>The crop is the synthetic plate cut from the scene at the given resolution,
+ * i.e. larger scenes give larger crops. {@code recognizePlate} needs a native
+ * Tesseract installation; {@code preprocessForOcr} runs on OpenCV alone.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OcrStageBenchmarks {
+
+    @Param({BenchmarkInputs.VGA, BenchmarkInputs.FULL_HD, BenchmarkInputs.UHD_4K})
+    public String resolution;
+
+    private Mat plate;
+    private OcrEnginePool pool;
+    private OcrService ocrService;
+
+    @Setup
+    public void setUp() {
+        plate = BenchmarkInputs.plate(resolution);
+        pool = new OcrEnginePool(OcrEnginePool.Config.defaults(OcrService.findTessdataPath()), 1);
+        ocrService = new OcrService(pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+        plate.release();
+    }
+
+    @Benchmark
+    public int preprocessForOcr() {
+        Mat binary = ocrService.preprocessForOcr(plate, null);
+        int pixels = binary.rows() * binary.cols();
+        binary.release();
+        return pixels;
+    }
+
+    @Benchmark
+    public String recognizePlate() {
+        return ocrService.recognizePlate(plate);
+    }
+}
@@ -0,0 +1,94 @@
+package com.alpr;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PipelineSetupBenchmarks - Batch throughput with a fresh versus a reused {@link PipelineContext}
+ *
+ * <p>Each operation processes the next image of {@code imageDir} (default
+ * {@code src/plates}, in name order), so throughput is images per time unit:</p>
+ * <ul>
+ *   <li>{@code freshContext} - the old per-image setup: a new {@link PlateDetector}
+ *       (cascade parsing) and {@link OcrService} (engine pool) for every image</li>
+ *   <li>{@code reusedContext} - one context for all images, as batch workers do</li>
+ * </ul>
+ *
+ * <p>Both decode the image from disk. {@code -p ocr=true} adds OCR of all candidates
+ * via {@link Main#processImage}, which needs a native Tesseract installation; the
+ * default measures detection only.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineSetupBenchmarks {
+
+    @Param({BenchmarkInputs.PLATES_DIR})
+    public String imageDir;
+
+    @Param({"false"})
+    public boolean ocr;
+
+    private File[] images;
+    private PipelineContext shared;
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        images = BenchmarkInputs.images(imageDir);
+        shared = new PipelineContext();
+    }
+
+    @TearDown
+    public void tearDown() {
+        shared.beginImage();
+        shared.getOcrService().getEnginePool().close();
+    }
+
+    @Benchmark
+    public int freshContext() {
+        PipelineContext context = new PipelineContext();
+        try {
+            return process(context);
+        } finally {
+            context.beginImage();
+            context.getOcrService().getEnginePool().close();
+        }
+    }
+
+    @Benchmark
+    public int reusedContext() {
+        return process(shared);
+    }
+
+    private int process(PipelineContext context) {
+        File image = images[next++ % images.length];
+        String path = image.getAbsolutePath();
+        if (ocr) {
+            DebugResult result = Main.processImage(context, path, Main.extractExpectedPlate(image.getName()));
+            return result.haarCount + result.geoCount;
+        }
+        context.beginImage();
+        if (context.getDetector().preprocessImageWithOriginal(path) == null) return 0;
+        return context.getDetector().detectAll().size();
+    }
+}
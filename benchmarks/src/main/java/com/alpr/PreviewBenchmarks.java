@@ -0,0 +1,88 @@
+package com.alpr;
+
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PreviewBenchmarks - Frame time of the {@link TuningGUI} preview conversion
+ *
+ * <p>Measures turning one pipeline image into the {@link BufferedImage} that the
+ * preview paints:</p>
+ * <ul>
+ *   <li>{@code pngRoundTrip} - the previous path: {@code Imgcodecs.imencode(".png")}
+ *       followed by {@code ImageIO.read}</li>
+ *   <li>{@code directCopy} - {@link MatImageConverter}, one copy into a reused raster</li>
+ * </ul>
+ *
+ * <p>{@code channels=3} is the "Original + Overlays" view, {@code channels=1} the
+ * grayscale / edge views.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PreviewBenchmarks {
+
+    @Param({BenchmarkInputs.VGA, BenchmarkInputs.FULL_HD, BenchmarkInputs.UHD_4K})
+    public String resolution;
+
+    @Param({"3", "1"})
+    public int channels;
+
+    private Mat frame;
+    private MatImageConverter converter;
+
+    @Setup
+    public void setUp() {
+        frame = BenchmarkInputs.scene(resolution);
+        if (channels == 1) {
+            Imgproc.cvtColor(frame, frame, Imgproc.COLOR_BGR2GRAY);
+        }
+        converter = new MatImageConverter();
+    }
+
+    @TearDown
+    public void tearDown() {
+        converter.release();
+        frame.release();
+    }
+
+    @Benchmark
+    public BufferedImage pngRoundTrip() throws IOException {
+        MatOfByte buffer = new MatOfByte();
+        Imgcodecs.imencode(".png", frame, buffer);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(buffer.toArray()));
+        buffer.release();
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage directCopy() {
+        return converter.convert(frame);
+    }
+}
@@ -0,0 +1,577 @@
+package com.alpr;
+
+import nu.pattern.OpenCV;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AutoTuner - Headless parameter search over a labeled image folder
+ *
+ * <p>Scores preprocessing/geometric parameter sets (blur, Canny, dilation, aspect
+ * ratio) the way {@link Main} scores a batch run. Labels come from the file names
+ * ({@link Main#extractExpectedPlate(String)}), and the best OCR read per image is
+ * chosen with {@link Main#calculateScore(String, String)}. Sets are ranked by exact
+ * matches, then matched characters, then detected plates, then fewer candidates.</p>
+ *
+ * <p>Strategies ({@code --strategy}):</p>
+ * <ul>
+ *   <li>{@code grid} - every combination of the search space on every image</li>
+ *   <li>{@code random} - {@code --samples} random combinations on every image</li>
+ *   <li>{@code halving} - successive halving: {@code --samples} random combinations
+ *       start on a small image subset, and after each round only the best
+ *       1/{@code --eta} continue on {@code --eta} times as many images</li>
+ * </ul>
+ *
+ * <p>Sharing: images are evaluated in parallel, one image per task, and a task runs
+ * all parameter sets on one decoded image in stage order (blur, Canny, dilation,
+ * aspect ratio). The incremental preprocessing of {@link DetectionEngine} then
+ * recomputes only the stages after the first differing parameter, the Haar scan
+ * runs once per image, and OCR results are memoized per crop. In successive
+ * halving, a surviving set keeps its earlier results and only sees the new images,
+ * so every image is decoded once per run.</p>
+ *
+ * <p>Output: a leaderboard CSV ({@code --leaderboard}, default
+ * {@code alpr_tuning_leaderboard.csv}) and the best set as a config file
+ * ({@code --output}, default {@code alpr_config_tuned.properties}). The config file
+ * is based on {@code alpr_config.properties}, so it can replace it directly.</p>
+ *
+ * <p>Usage: {@code AutoTuner [directory] [--strategy grid|random|halving] [--samples N]
+ * [--eta N] [--seed N] [--threads N] [--no-ocr] [--output file] [--leaderboard file]
+ * [--frame-cache dir]}</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public class AutoTuner {
+
+    private static final Logger log = LoggerFactory.getLogger(AutoTuner.class);
+
+    private static final String[] IMAGE_EXTENSIONS = {".jpg", ".jpeg", ".png", ".bmp"};
+    private static final String CONFIG_FILE = "alpr_config.properties";
+
+    // ==================== SEARCH SPACE ====================
+
+    private static final int[] BLUR_KERNELS = {5, 7, 9, 11, 13};
+    private static final int[] CANNY_THRESHOLDS_1 = {30, 50, 70, 90};
+    private static final int[] CANNY_THRESHOLDS_2 = {100, 150, 200};
+    private static final int[] DILATE_KERNELS = {3, 5};
+    private static final int[] DILATE_ITERATIONS = {1, 2, 3};
+    private static final double[] MIN_ASPECT_RATIOS = {1.5, 2.0, 2.5};
+    private static final double[] MAX_ASPECT_RATIOS = {5.0, 6.0, 7.0};
+
+    public enum Strategy { GRID, RANDOM, HALVING }
+
+    static {
+        try {
+            OpenCV.loadLocally();
+        } catch (Exception e) {
+            log.error("Failed to load OpenCV: {}", e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Score of one parameter set over the images evaluated so far.
+     */
+    static final class Trial {
+        final int id;
+        final DetectionParams params;
+        final BatchStatistics stats = new BatchStatistics(0);
+        private long matchedChars = 0;
+        private long candidates = 0;
+        int round = 0;
+
+        Trial(int id, DetectionParams params) {
+            this.id = id;
+            this.params = params;
+        }
+
+        synchronized void record(DebugResult result) {
+            stats.record(result);
+            if (result.detected) {
+                matchedChars += BatchStatistics.countMatchingChars(result.expectedPlate, result.ocrResult);
+            }
+            candidates += result.haarCount + result.geoCount;
+        }
+
+        synchronized long getMatchedChars() { return matchedChars; }
+
+        synchronized double getMeanCandidates() {
+            int images = stats.getTotalImages();
+            return images > 0 ? (double) candidates / images : 0;
+        }
+    }
+
+    /** Best first: exact matches, matched characters, detections, then fewer candidates. */
+    static final Comparator<Trial> RANKING = Comparator
+            .comparingInt((Trial t) -> t.stats.getExactMatch()).reversed()
+            .thenComparing(Comparator.comparingLong(Trial::getMatchedChars).reversed())
+            .thenComparing(Comparator.comparingInt((Trial t) -> t.stats.getPlateDetected()).reversed())
+            .thenComparingDouble(Trial::getMeanCandidates)
+            .thenComparingInt(t -> t.id);
+
+    /** Parameter sets that share a preprocessing prefix end up next to each other. */
+    private static final Comparator<Trial> STAGE_ORDER = Comparator
+            .comparingInt((Trial t) -> t.params.getBlurKernel())
+            .thenComparingInt(t -> t.params.getCannyThreshold1())
+            .thenComparingInt(t -> t.params.getCannyThreshold2())
+            .thenComparingInt(t -> t.params.getDilateKernelSize())
+            .thenComparingInt(t -> t.params.getDilateIterations())
+            .thenComparingDouble(t -> t.params.getMinAspectRatio())
+            .thenComparingDouble(t -> t.params.getMaxAspectRatio());
+
+    private final DetectionEngine engine;
+    private final OcrService ocrService;
+    private final ExecutorService workers;
+
+    /**
+     * @param ocrService OCR for scoring, or null to score by detections only
+     * @param threads    Number of images evaluated in parallel
+     */
+    AutoTuner(DetectionEngine engine, OcrService ocrService, int threads) {
+        this.engine = engine;
+        this.ocrService = ocrService;
+        AtomicInteger ids = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "alpr-tuner-" + ids.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static void main(String[] args) {
+        String inputPath = "src/plates";
+        Strategy strategy = Strategy.HALVING;
+        int samples = 81;
+        int eta = 3;
+        long seed = 42;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean useOcr = true;
+        String outputFile = "alpr_config_tuned.properties";
+        String leaderboardFile = "alpr_tuning_leaderboard.csv";
+        String frameCacheDir = null;
+
+        for (int i = 0; i < args.length; i++) {
+            if ("--strategy".equals(args[i]) && i + 1 < args.length) {
+                strategy = Strategy.valueOf(args[++i].trim().toUpperCase(Locale.ROOT));
+            } else if ("--samples".equals(args[i]) && i + 1 < args.length) {
+                samples = Math.max(1, Integer.parseInt(args[++i]));
+            } else if ("--eta".equals(args[i]) && i + 1 < args.length) {
+                eta = Math.max(2, Integer.parseInt(args[++i]));
+            } else if ("--seed".equals(args[i]) && i + 1 < args.length) {
+                seed = Long.parseLong(args[++i]);
+            } else if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            } else if ("--no-ocr".equals(args[i])) {
+                useOcr = false;
+            } else if ("--output".equals(args[i]) && i + 1 < args.length) {
+                outputFile = args[++i];
+            } else if ("--leaderboard".equals(args[i]) && i + 1 < args.length) {
+                leaderboardFile = args[++i];
+            } else if ("--frame-cache".equals(args[i]) && i + 1 < args.length) {
+                frameCacheDir = args[++i];
+            } else {
+                inputPath = args[i];
+            }
+        }
+
+        List<File> images = listLabeledImages(new File(inputPath));
+        if (images.isEmpty()) {
+            log.error("No labeled image files found in: {}", inputPath);
+            return;
+        }
+
+        DebugImageWriter.get().setEnabled(false);
+        // Parallelism comes from the workers; avoid oversubscribing cores with OpenCV's own pool
+        if (threads > 1) {
+            Core.setNumThreads(1);
+        }
+
+        // Everything that is not searched (detection resolution, Haar settings, ROI) comes from the config
+        DetectionParams base = Main.loadConfiguredParams().toBuilder()
+                .concurrentDetection(false)
+                .captureIntermediates(false)
+                .build();
+        if (frameCacheDir != null) {
+            DecodedImageCache.get().setDirectory(frameCacheDir);
+        }
+
+        OcrEnginePool enginePool = useOcr
+                ? new OcrEnginePool(OcrEnginePool.Config.defaults(null), threads) : null;
+        AutoTuner tuner = new AutoTuner(DetectionEngine.getDefault(),
+                enginePool != null ? new OcrService(enginePool) : null, threads);
+
+        Random random = new Random(seed);
+        List<DetectionParams> grid = searchSpace(base);
+        log.info("Tuning on {} labeled images: strategy {}, {} threads, OCR {} (search space: {} sets)",
+                images.size(), strategy.name().toLowerCase(Locale.ROOT), threads, useOcr ? "on" : "off", grid.size());
+
+        long start = System.nanoTime();
+        List<Trial> trials;
+        switch (strategy) {
+            case GRID:
+                trials = tuner.runFull(toTrials(grid), images);
+                break;
+            case RANDOM:
+                trials = tuner.runFull(toTrials(sample(grid, samples, random)), images);
+                break;
+            default:
+                List<File> shuffled = new ArrayList<>(images);
+                Collections.shuffle(shuffled, random);
+                trials = tuner.runHalving(toTrials(sample(grid, samples, random)), shuffled, eta);
+                break;
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        tuner.shutdown();
+        if (enginePool != null) enginePool.close();
+
+        // Sets that got furthest rank first; within a round, by score
+        trials.sort(Comparator.comparingInt((Trial t) -> t.round).reversed().thenComparing(RANKING));
+        printLeaderboard(trials, 10, seconds);
+        writeLeaderboard(trials, leaderboardFile);
+        writeBestConfig(trials.get(0), outputFile, strategy, images.size());
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    // ==================== STRATEGIES ====================
+
+    /**
+     * Evaluates every trial on every image (grid and random search).
+     */
+    List<Trial> runFull(List<Trial> trials, List<File> images) {
+        log.info("Evaluating {} parameter sets x {} images", trials.size(), images.size());
+        evaluate(trials, images);
+        for (Trial trial : trials) trial.round = 1;
+        return trials;
+    }
+
+    /**
+     * Successive halving: each round adds images for the surviving trials and
+     * keeps the best 1/eta of them.
+     */
+    List<Trial> runHalving(List<Trial> trials, List<File> images, int eta) {
+        int rounds = 1 + (int) Math.floor(Math.log(trials.size()) / Math.log(eta) + 1e-9);
+        int budget = Math.max(1, (int) Math.ceil(images.size() / Math.pow(eta, rounds - 1)));
+        int evaluated = 0;
+        List<Trial> survivors = new ArrayList<>(trials);
+
+        for (int round = 1; ; round++) {
+            budget = Math.min(images.size(), budget);
+            List<File> newImages = images.subList(evaluated, budget);
+            log.info("Round {}: {} parameter sets x {} images ({} new)", round, survivors.size(), budget,
+                    newImages.size());
+            evaluate(survivors, newImages);
+            evaluated = budget;
+            for (Trial trial : survivors) trial.round = round;
+
+            survivors.sort(RANKING);
+            // Once every image is in, more rounds would only re-rank the same results
+            if (survivors.size() <= 1 || budget == images.size()) break;
+            survivors = new ArrayList<>(survivors.subList(0, Math.max(1, survivors.size() / eta)));
+            budget *= eta;
+        }
+        return trials;
+    }
+
+    // ==================== EVALUATION ====================
+
+    /**
+     * Runs all trials on the given images, one task per image.
+     */
+    void evaluate(List<Trial> trials, List<File> images) {
+        List<Trial> ordered = new ArrayList<>(trials);
+        ordered.sort(STAGE_ORDER);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (File image : images) {
+            futures.add(workers.submit(() -> evaluateImage(image, ordered)));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.error("Failed to evaluate {}", images.get(i).getName(), e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Decodes one image and scores every trial on it. The decoded Mat is the
+     * engine's image key, so consecutive trials share their common preprocessing
+     * stages and the Haar scan.
+     */
+    private void evaluateImage(File file, List<Trial> trials) {
+        String expected = Main.extractExpectedPlate(file.getName());
+        long loadStart = System.nanoTime();
+        Mat image = DecodedImageCache.get().load(file.getAbsolutePath());
+        PipelineMetrics.get().recordSince(PipelineMetrics.IMAGE_LOAD, loadStart);
+        if (image.empty()) {
+            log.warn("Could not load image: {}", file.getName());
+            image.release();
+            return;
+        }
+        PipelineMetrics.get().increment(PipelineMetrics.IMAGES);
+
+        Map<String, String> ocrMemo = new HashMap<>();
+        try {
+            for (Trial trial : trials) {
+                DetectionOutput output = engine.detect(image, image, trial.params, null, null);
+                try {
+                    trial.record(score(file.getName(), expected, output.getResults(), ocrMemo));
+                } finally {
+                    output.release();
+                }
+            }
+        } finally {
+            image.release();
+        }
+    }
+
+    /**
+     * Same outcome as {@link Main#processImage}: the best-scoring OCR read of all
+     * candidates, stopping at a perfect match.
+     */
+    private DebugResult score(String fileName, String expected, List<DetectionResult> detections,
+                              Map<String, String> ocrMemo) {
+        DebugResult result = new DebugResult();
+        result.fileName = fileName;
+        result.expectedPlate = expected;
+        for (DetectionResult det : detections) {
+            if (det.getMethod() == DetectionResult.MethodType.HAAR) {
+                result.haarCount++;
+            } else {
+                result.geoCount++;
+            }
+        }
+
+        if (ocrService == null) {
+            result.detected = !detections.isEmpty();
+            return result;
+        }
+
+        String bestResult = "";
+        int bestScore = 0;
+        for (DetectionResult det : detections) {
+            Mat crop = det.getCroppedPlate();
+            if (crop == null || crop.empty()) continue;
+
+            // Parameter sets often produce the identical crop; OCR it once
+            String text = ocrMemo.computeIfAbsent(cropKey(crop), k -> ocrService.recognizePlate(crop));
+            int score = Main.calculateScore(text, expected);
+            if (score > bestScore) {
+                bestScore = score;
+                bestResult = text;
+                result.bestMethod = det.getMethod().name();
+            }
+            if (Main.isPerfectMatch(text, expected)) break;
+        }
+
+        result.detected = !bestResult.isEmpty();
+        result.ocrResult = bestResult;
+        return result;
+    }
+
+    /**
+     * Identifies a crop by its pixels. A plain hash code collides too easily over
+     * thousands of trials, and a collision would silently reuse another crop's read.
+     */
+    private static String cropKey(Mat crop) {
+        byte[] pixels = new byte[(int) (crop.total() * crop.elemSize())];
+        crop.get(0, 0, pixels);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(pixels);
+            return crop.cols() + "x" + crop.rows() + "x" + crop.type() + ":" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // ==================== SEARCH SPACE ====================
+
+    static List<DetectionParams> searchSpace(DetectionParams base) {
+        List<DetectionParams> grid = new ArrayList<>();
+        for (int blur : BLUR_KERNELS) {
+            for (int canny1 : CANNY_THRESHOLDS_1) {
+                for (int canny2 : CANNY_THRESHOLDS_2) {
+                    if (canny1 >= canny2) continue;
+                    for (int dilateKernel : DILATE_KERNELS) {
+                        for (int dilateIter : DILATE_ITERATIONS) {
+                            for (double minAR : MIN_ASPECT_RATIOS) {
+                                for (double maxAR : MAX_ASPECT_RATIOS) {
+                                    if (minAR >= maxAR) continue;
+                                    grid.add(base.toBuilder()
+                                            .blurKernel(blur)
+                                            .cannyThreshold1(canny1)
+                                            .cannyThreshold2(canny2)
+                                            .dilateKernelSize(dilateKernel)
+                                            .dilateIterations(dilateIter)
+                                            .minAspectRatio(minAR)
+                                            .maxAspectRatio(maxAR)
+                                            .build());
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return grid;
+    }
+
+    private static List<DetectionParams> sample(List<DetectionParams> grid, int samples, Random random) {
+        List<DetectionParams> shuffled = new ArrayList<>(grid);
+        Collections.shuffle(shuffled, random);
+        return new ArrayList<>(shuffled.subList(0, Math.min(samples, shuffled.size())));
+    }
+
+    private static List<Trial> toTrials(List<DetectionParams> params) {
+        List<Trial> trials = new ArrayList<>();
+        for (DetectionParams p : params) {
+            trials.add(new Trial(trials.size() + 1, p));
+        }
+        return trials;
+    }
+
+    private static List<File> listLabeledImages(File directory) {
+        File[] files = directory.listFiles((dir, name) -> {
+            String lowerName = name.toLowerCase();
+            return Arrays.stream(IMAGE_EXTENSIONS).anyMatch(lowerName::endsWith);
+        });
+        List<File> images = new ArrayList<>();
+        if (files == null) return images;
+        Arrays.sort(files);
+        for (File file : files) {
+            if (!Main.extractExpectedPlate(file.getName()).isEmpty()) {
+                images.add(file);
+            }
+        }
+        return images;
+    }
+
+    // ==================== OUTPUT ====================
+
+    private static void printLeaderboard(List<Trial> trials, int top, double seconds) {
+        System.out.println();
+        System.out.println("==============================================");
+        System.out.printf("  AUTO-TUNING LEADERBOARD (%d sets, %.1f s)%n", trials.size(), seconds);
+        System.out.println("==============================================");
+        System.out.printf("  %4s %4s %5s %5s %6s %6s %5s %5s %6s %6s %6s %7s%n",
+                "Rank", "Blur", "C1", "C2", "DilK", "DilIt", "MinAR", "MaxAR",
+                "Images", "Exact%", "Det%", "Cands");
+        for (int i = 0; i < Math.min(top, trials.size()); i++) {
+            Trial t = trials.get(i);
+            DetectionParams p = t.params;
+            System.out.printf("  %4d %4d %5d %5d %6d %6d %5.1f %5.1f %6d %6.1f %6.1f %7.2f%n",
+                    i + 1, p.getBlurKernel(), p.getCannyThreshold1(), p.getCannyThreshold2(),
+                    p.getDilateKernelSize(), p.getDilateIterations(), p.getMinAspectRatio(), p.getMaxAspectRatio(),
+                    t.stats.getTotalImages(), t.stats.getExactAccuracy(), t.stats.getDetectionRate(),
+                    t.getMeanCandidates());
+        }
+        System.out.println("  Preprocessing stages reused: "
+                + PipelineMetrics.get().getCount(PipelineMetrics.PREPROCESS_REUSED));
+    }
+
+    /**
+     * Writes all evaluated sets, best first. Uses semicolon as delimiter for Excel compatibility.
+     */
+    private static void writeLeaderboard(List<Trial> trials, String fileName) {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(fileName))) {
+            writer.print('\ufeff'); // UTF-8 BOM for Excel
+            writer.println("Rank;Round;BlurKernel;CannyT1;CannyT2;DilateKernel;DilateIter;MinAR;MaxAR;"
+                    + "Images;Detected;DetectionRate;ExactMatch;ExactAccuracy;MatchedChars;MeanCandidates");
+            int rank = 1;
+            for (Trial t : trials) {
+                DetectionParams p = t.params;
+                writer.println(String.join(";",
+                    String.valueOf(rank++),
+                    String.valueOf(t.round),
+                    String.valueOf(p.getBlurKernel()),
+                    String.valueOf(p.getCannyThreshold1()),
+                    String.valueOf(p.getCannyThreshold2()),
+                    String.valueOf(p.getDilateKernelSize()),
+                    String.valueOf(p.getDilateIterations()),
+                    String.format("%.1f", p.getMinAspectRatio()),
+                    String.format("%.1f", p.getMaxAspectRatio()),
+                    String.valueOf(t.stats.getTotalImages()),
+                    String.valueOf(t.stats.getPlateDetected()),
+                    String.format("%.1f", t.stats.getDetectionRate()),
+                    String.valueOf(t.stats.getExactMatch()),
+                    String.format("%.1f", t.stats.getExactAccuracy()),
+                    String.valueOf(t.getMatchedChars()),
+                    String.format("%.2f", t.getMeanCandidates())
+                ));
+            }
+            log.info("Leaderboard written to: {}", fileName);
+        } catch (IOException e) {
+            log.error("Failed to write leaderboard: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the best set on top of the current {@code alpr_config.properties}, with
+     * the keys of both {@link Main} and {@link TuningGUI}.
+     */
+    private static void writeBestConfig(Trial best, String fileName, Strategy strategy, int imageCount) {
+        Properties props = new Properties();
+        File configFile = new File(CONFIG_FILE);
+        if (configFile.exists()) {
+            try (FileInputStream fis = new FileInputStream(configFile)) {
+                props.load(fis);
+            } catch (IOException e) {
+                log.warn("Could not read {}: {}", CONFIG_FILE, e.getMessage());
+            }
+        }
+
+        DetectionParams p = best.params;
+        props.setProperty("blur.kernel", String.valueOf(p.getBlurKernel()));
+        props.setProperty("canny.threshold1", String.valueOf(p.getCannyThreshold1()));
+        props.setProperty("canny.threshold2", String.valueOf(p.getCannyThreshold2()));
+        props.setProperty("dilate.kernel", String.valueOf(p.getDilateKernelSize()));
+        props.setProperty("dilate.iterations", String.valueOf(p.getDilateIterations()));
+        props.setProperty("aspect.ratio.min", String.valueOf(p.getMinAspectRatio()));
+        props.setProperty("aspect.ratio.max", String.valueOf(p.getMaxAspectRatio()));
+        props.setProperty("aspect.min", String.valueOf(p.getMinAspectRatio()));
+        props.setProperty("aspect.max", String.valueOf(p.getMaxAspectRatio()));
+
+        try (FileOutputStream fos = new FileOutputStream(fileName)) {
+            props.store(fos, String.format("ALPR Configuration - Auto-tuned (%s, %d images, exact %.1f%%)",
+                    strategy.name().toLowerCase(Locale.ROOT), imageCount, best.stats.getExactAccuracy()));
+            log.info("Best configuration written to: {}", fileName);
+        } catch (IOException e) {
+            log.error("Failed to write config: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.alpr;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * BatchStatistics - Thread-safe aggregator for batch run results
+ *
+ * <p>Replaces the static counters in {@link Main} so several worker threads can
+ * record results concurrently. All counting rules are identical to the
+ * sequential run; only the arrival order of results differs, which is restored
+ * by {@link #getSortedResults()}.</p>
+ *
+ * <p>Counters cover every recorded image, but only the first {@code maxRetained}
+ * results are kept for the summary table; the full per-image output is streamed
+ * to disk by {@link ResultSink}.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public class BatchStatistics {
+
+    private int totalImages = 0;
+    private int plateDetected = 0;
+    private int exactMatch = 0;
+    private int partialMatch = 0;
+    private int totalCharacters = 0;
+    private int matchedCharacters = 0;
+    private final int maxRetained;
+    private final List<DebugResult> results = new ArrayList<>();
+
+    public BatchStatistics() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxRetained Most results kept in memory for {@link #getSortedResults()}
+     */
+    public BatchStatistics(int maxRetained) {
+        this.maxRetained = Math.max(0, maxRetained);
+    }
+
+    /**
+     * Records a finished image and updates all counters atomically.
+     *
+     * @param result The per-image result
+     * @return Number of positionally matching characters (0 when not compared)
+     */
+    public synchronized int record(DebugResult result) {
+        totalImages++;
+        if (results.size() < maxRetained) results.add(result);
+
+        if (!result.detected) return 0;
+        plateDetected++;
+
+        if (result.expectedPlate.isEmpty()) return 0;
+        if (result.ocrResult.equals(result.expectedPlate)) {
+            exactMatch++;
+            return result.expectedPlate.length();
+        }
+
+        int matched = countMatchingChars(result.expectedPlate, result.ocrResult);
+        totalCharacters += result.expectedPlate.length();
+        matchedCharacters += matched;
+        if (matched > 0) partialMatch++;
+        return matched;
+    }
+
+    /**
+     * Count positional matching characters between expected and actual plates.
+     */
+    static int countMatchingChars(String expected, String actual) {
+        if (expected == null || actual == null) return 0;
+
+        int matches = 0;
+        int minLen = Math.min(expected.length(), actual.length());
+        for (int i = 0; i < minLen; i++) {
+            if (expected.charAt(i) == actual.charAt(i)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns a snapshot of the retained results sorted by file name.
+     */
+    public synchronized List<DebugResult> getSortedResults() {
+        List<DebugResult> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparing(r -> r.fileName));
+        return sorted;
+    }
+
+    public synchronized int getTotalImages() { return totalImages; }
+    public synchronized int getPlateDetected() { return plateDetected; }
+    public synchronized int getExactMatch() { return exactMatch; }
+    public synchronized int getPartialMatch() { return partialMatch; }
+    public synchronized int getTotalCharacters() { return totalCharacters; }
+    public synchronized int getMatchedCharacters() { return matchedCharacters; }
+
+    public synchronized double getDetectionRate() {
+        return totalImages > 0 ? (plateDetected * 100.0 / totalImages) : 0;
+    }
+
+    public synchronized double getExactAccuracy() {
+        return totalImages > 0 ? (exactMatch * 100.0 / totalImages) : 0;
+    }
+
+    public synchronized double getCharAccuracy() {
+        return totalCharacters > 0 ? (matchedCharacters * 100.0 / totalCharacters) : 0;
+    }
+}
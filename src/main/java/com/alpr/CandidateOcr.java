@@ -0,0 +1,174 @@
+package com.alpr;
+
+import org.opencv.core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * CandidateOcr - Parallel OCR over all detection candidates of one image
+ *
+ * <p>Each Haar and geometric crop is submitted to a worker pool and OCR'd
+ * concurrently, so per-image latency is roughly the slowest single Tesseract call
+ * instead of the sum of all of them.</p>
+ *
+ * <p>Early cancellation: as soon as one candidate's text satisfies the caller's
+ * "decisive" predicate (e.g. a perfect plate format match), all queued jobs for that
+ * image are cancelled and results still in flight are discarded. Cancelled
+ * candidates have no entry in the returned reads. Jobs already inside Tesseract cannot be
+ * interrupted, so {@link #recognizeAll} waits for them before it returns: the crops
+ * they read are released by the caller's next {@code reset()}.</p>
+ *
+ * <p>By default all instances share one daemon worker pool sized to the CPU count;
+ * actual Tesseract concurrency is bounded by the service's {@link OcrEnginePool}.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.1 - Reads are returned to the caller instead of stored on the detections
+ */
+public class CandidateOcr {
+
+    private static final Logger log = LoggerFactory.getLogger(CandidateOcr.class);
+
+    /** Turkish plate format: 2 digits + 1-3 letters + 2-4 digits (e.g. 34ABC1234). */
+    public static final Pattern PLATE_FORMAT = Pattern.compile("^\\d{2}[A-Z]{1,3}\\d{2,4}$");
+
+    private static final ExecutorService SHARED_EXECUTOR = createExecutor(
+            Runtime.getRuntime().availableProcessors());
+
+    private final OcrService ocrService;
+    private final ExecutorService executor;
+
+    /**
+     * @param ocrService Thread-safe OCR service (engines come from its pool)
+     */
+    public CandidateOcr(OcrService ocrService) {
+        this(ocrService, SHARED_EXECUTOR);
+    }
+
+    /**
+     * @param ocrService Thread-safe OCR service (engines come from its pool)
+     * @param executor   Pool that runs the per-candidate OCR jobs
+     */
+    public CandidateOcr(OcrService ocrService, ExecutorService executor) {
+        this.ocrService = ocrService;
+        this.executor = executor;
+    }
+
+    private static ExecutorService createExecutor(int threads) {
+        AtomicInteger ids = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "alpr-ocr-" + ids.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * @return true if the text is a well-formed Turkish plate
+     */
+    public static boolean isPlateFormat(String text) {
+        return text != null && PLATE_FORMAT.matcher(text).matches();
+    }
+
+    /**
+     * OCRs all candidates with a cropped plate. The detections are not modified.
+     *
+     * @param detections Candidates of one image
+     * @param debugName  Image name prefix for OCR debug output, or null for none
+     * @param decisive   Stops the remaining jobs once a result satisfies it
+     * @return Caller-owned OCR text per candidate, keyed by identity; candidates without
+     *         a crop, dropped after a decisive result or failed have no entry
+     */
+    public Map<DetectionResult, String> recognizeAll(List<DetectionResult> detections, String debugName, Predicate<String> decisive) {
+        List<DetectionResult> candidates = new ArrayList<>();
+        for (DetectionResult det : detections) {
+            Mat plate = det.getCroppedPlate();
+            if (plate != null && !plate.empty()) candidates.add(det);
+        }
+
+        Map<DetectionResult, String> reads = new IdentityHashMap<>();
+
+        // Nothing to fan out; skip the hand-off to the pool
+        if (candidates.size() == 1) {
+            DetectionResult det = candidates.get(0);
+            reads.put(det, ocrService.recognizePlate(det.getCroppedPlate(), debugNameFor(debugName, det)));
+            return reads;
+        }
+
+        CompletionService<Map.Entry<DetectionResult, String>> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Map.Entry<DetectionResult, String>>> futures = new ArrayList<>();
+        AtomicBoolean decided = new AtomicBoolean(false);
+        // Jobs that have started; a job registering after the decision sees it and leaves the crop alone
+        Phaser running = new Phaser(1);
+
+        for (DetectionResult det : candidates) {
+            futures.add(completion.submit(() -> {
+                running.register();
+                try {
+                    if (decided.get()) return null;
+                    String text = ocrService.recognizePlate(det.getCroppedPlate(), debugNameFor(debugName, det));
+                    return new SimpleImmutableEntry<>(det, text);
+                } finally {
+                    running.arriveAndDeregister();
+                }
+            }));
+        }
+
+        // Results are only published on this thread, so dropped jobs never reach the caller
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                Map.Entry<DetectionResult, String> done = takeResult(completion);
+                if (done == null) continue;
+                reads.put(done.getKey(), done.getValue());
+
+                if (decisive.test(done.getValue())) {
+                    decided.set(true);
+                    futures.forEach(f -> f.cancel(false));
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            decided.set(true);
+            futures.forEach(f -> f.cancel(false));
+        }
+
+        // Queued jobs are cancelled, but running ones still read their crop in native code
+        running.arriveAndAwaitAdvance();
+        return reads;
+    }
+
+    private static Map.Entry<DetectionResult, String> takeResult(
+            CompletionService<Map.Entry<DetectionResult, String>> completion) throws InterruptedException {
+        try {
+            return completion.take().get();
+        } catch (ExecutionException e) {
+            log.error("OCR candidate failed", e.getCause());
+            return null;
+        } catch (CancellationException e) {
+            return null;
+        }
+    }
+
+    private static String debugNameFor(String debugName, DetectionResult det) {
+        if (debugName == null) return null;
+        return debugName + "_" + det.getMethod().name().toLowerCase();
+    }
+}
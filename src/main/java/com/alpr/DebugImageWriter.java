@@ -0,0 +1,201 @@
+package com.alpr;
+
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DebugImageWriter - Asynchronous, bounded writer for debug images
+ *
+ * <p>JPEG encoding and disk I/O for the per-step debug images used to run on the
+ * detection hot path. They are now handed to a single background thread via a
+ * bounded queue. When the queue is full the oldest pending image is dropped,
+ * so a slow disk can never stall detection or grow memory without bound.</p>
+ *
+ * <p>Target directories are created by the writer thread before the first image
+ * lands in them, so runs with debug output off leave no directories behind.</p>
+ *
+ * <p>Controls (system properties, or the setters / config file keys via {@link Main}):</p>
+ * <ul>
+ *   <li>{@code alpr.debug.enabled} - global switch; when off nothing is queued or written (default true)</li>
+ *   <li>{@code alpr.debug.sampleRate} - write debug output for 1 in N images (default 1 = every image)</li>
+ *   <li>{@code alpr.debug.queueCapacity} - maximum pending images (default 256)</li>
+ * </ul>
+ *
+ * @author ALPR Academic Project
+ * @version 1.1 - Directories created on first write
+ */
+public final class DebugImageWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(DebugImageWriter.class);
+
+    private static final DebugImageWriter INSTANCE = new DebugImageWriter();
+
+    private static final class PendingImage {
+        final String path;
+        final Mat image;
+
+        PendingImage(String path, Mat image) {
+            this.path = path;
+            this.image = image;
+        }
+    }
+
+    private volatile boolean enabled = Boolean.parseBoolean(System.getProperty("alpr.debug.enabled", "true"));
+    private volatile int sampleRate = Math.max(1, Integer.getInteger("alpr.debug.sampleRate", 1));
+    private final BlockingDeque<PendingImage> queue =
+        new LinkedBlockingDeque<>(Math.max(1, Integer.getInteger("alpr.debug.queueCapacity", 256)));
+
+    private final AtomicLong imageCounter = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong inFlight = new AtomicLong();
+    private Thread worker;
+    // Directories already created; only touched by the writer thread
+    private final Set<File> createdDirs = new HashSet<>();
+
+    private DebugImageWriter() {
+    }
+
+    public static DebugImageWriter get() {
+        return INSTANCE;
+    }
+
+    // ==================== CONFIGURATION ====================
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Global off switch. Disabling also discards anything still queued.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            PendingImage pending;
+            while ((pending = queue.pollFirst()) != null) {
+                pending.image.release();
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    /**
+     * Decides whether debug output should be captured for the next image.
+     * Called once per image so all steps of an image are either kept or skipped together.
+     */
+    public boolean sampleImage() {
+        return enabled && imageCounter.getAndIncrement() % sampleRate == 0;
+    }
+
+    // ==================== WRITING ====================
+
+    /**
+     * Queues an image for writing. The Mat is copied, so callers may reuse or
+     * release their buffer immediately.
+     *
+     * @param path  Target file path (format taken from the extension)
+     * @param image Image to write
+     */
+    public void submit(String path, Mat image) {
+        if (!enabled || image == null || image.empty()) return;
+        ensureWorker();
+
+        PendingImage pending = new PendingImage(path, image.clone());
+        inFlight.incrementAndGet();
+        while (!queue.offerLast(pending)) {
+            // Drop-oldest: keep the most recent debug output
+            PendingImage oldest = queue.pollFirst();
+            if (oldest != null) {
+                oldest.image.release();
+                inFlight.decrementAndGet();
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    private synchronized void ensureWorker() {
+        if (worker != null) return;
+        worker = new Thread(this::drainLoop, "alpr-debug-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void drainLoop() {
+        while (true) {
+            PendingImage pending;
+            try {
+                pending = queue.takeFirst();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                ensureParentDirectory(pending.path);
+                Imgcodecs.imwrite(pending.path, pending.image);
+                written.incrementAndGet();
+            } catch (Exception e) {
+                log.warn("Failed to write debug image {}: {}", pending.path, e.getMessage());
+            } finally {
+                pending.image.release();
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Waits until all queued images are written, or the timeout expires.
+     *
+     * @return true if the queue was fully drained
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (inFlight.get() > 0) {
+            if (System.nanoTime() > deadline) return false;
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensureParentDirectory(String path) {
+        File dir = new File(path).getAbsoluteFile().getParentFile();
+        if (dir != null && createdDirs.add(dir) && !dir.isDirectory() && !dir.mkdirs()) {
+            createdDirs.remove(dir);
+            log.warn("Could not create debug directory: {}", dir);
+        }
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,20 @@
+package com.alpr;
+
+/**
+ * DebugResult - Per-image outcome of a batch run
+ *
+ * <p>One instance is produced per processed image, counted by
+ * {@link BatchStatistics} and written to disk right away by {@link ResultSink}.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+class DebugResult {
+    String fileName = "";
+    String expectedPlate = "";
+    String ocrResult = "";
+    boolean detected = false;
+    int haarCount = 0;
+    int geoCount = 0;
+    String bestMethod = "";
+}
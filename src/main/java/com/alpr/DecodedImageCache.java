@@ -0,0 +1,283 @@
+package com.alpr;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DecodedImageCache - Optional on-disk cache of decoded image pixels
+ *
+ * <p>Evaluation runs (tuning sweeps, regression checks, repeated {@link Main} runs)
+ * decode the same JPEGs over and over. With a cache directory set, the first
+ * {@link #load(String)} of an image stores its raw BGR pixels in one file per
+ * image; later loads memory-map that file and copy the pixels into a new Mat,
+ * skipping the decoder entirely.</p>
+ *
+ * <p>Entries are keyed by absolute path, modification time and size (plus the
+ * downscale setting), so an edited or replaced image is decoded again. Stale
+ * entries are never read, but stay on disk until the directory is deleted.</p>
+ *
+ * <p>With a max edge, images larger than it are stored (and returned) downscaled
+ * to that long edge, which shrinks the cache and the per-image work at the cost of
+ * resolution for OCR. The default {@code 0} keeps full resolution, so results are
+ * identical to {@code Imgcodecs.imread}.</p>
+ *
+ * <p>Controls (system properties, or the setters / config file keys via {@link Main}):</p>
+ * <ul>
+ *   <li>{@code alpr.frameCache.dir} - cache directory; unset disables the cache (default)</li>
+ *   <li>{@code alpr.frameCache.maxEdge} - long edge of cached images, 0 = full size (default 0)</li>
+ * </ul>
+ *
+ * <p>Thread-safe: concurrent loads of the same image may both decode it, and the
+ * last complete write wins.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public final class DecodedImageCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DecodedImageCache.class);
+
+    private static final DecodedImageCache INSTANCE = new DecodedImageCache();
+
+    private static final int MAGIC = 0x414C5046; // "ALPF"
+    private static final int VERSION = 1;
+    // magic, version, source size, source mtime, rows, cols, type, key length
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4 + 4 + 4 + 4;
+    private static final String EXTENSION = ".frame";
+
+    private volatile File directory;
+    private volatile int maxEdge = Math.max(0, Integer.getInteger("alpr.frameCache.maxEdge", 0));
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong writeFailures = new AtomicLong();
+
+    private DecodedImageCache() {
+        setDirectory(System.getProperty("alpr.frameCache.dir"));
+    }
+
+    public static DecodedImageCache get() {
+        return INSTANCE;
+    }
+
+    // ==================== CONFIGURATION ====================
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @param path Cache directory (created if missing), or null/empty to disable the cache
+     */
+    public void setDirectory(String path) {
+        if (path == null || path.trim().isEmpty()) {
+            directory = null;
+            return;
+        }
+        File dir = new File(path.trim());
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            log.warn("Cannot create frame cache directory {}; cache disabled", dir);
+            directory = null;
+            return;
+        }
+        directory = dir;
+    }
+
+    public int getMaxEdge() {
+        return maxEdge;
+    }
+
+    /**
+     * @param maxEdge Long edge cached images are downscaled to, 0 to keep full size
+     */
+    public void setMaxEdge(int maxEdge) {
+        this.maxEdge = Math.max(0, maxEdge);
+    }
+
+    // ==================== LOADING ====================
+
+    /**
+     * Loads an image as 8-bit BGR, like {@code Imgcodecs.imread(imagePath)}, through
+     * the cache when it is enabled. The caller owns the returned Mat.
+     *
+     * @return The image, or an empty Mat if the file cannot be read
+     */
+    public Mat load(String imagePath) {
+        File dir = directory;
+        if (dir == null) {
+            return Imgcodecs.imread(imagePath);
+        }
+        int edge = maxEdge;
+
+        File source = new File(imagePath).getAbsoluteFile();
+        long size = source.length();
+        long modified = source.lastModified();
+        if (size == 0) {
+            // Missing or empty file; nothing worth caching
+            return Imgcodecs.imread(imagePath);
+        }
+
+        String key = source.getPath() + "|" + edge;
+        File entry = new File(dir, entryName(key, size, modified));
+        Mat cached = read(entry, key, size, modified);
+        if (cached != null) {
+            hits.incrementAndGet();
+            PipelineMetrics.get().increment(PipelineMetrics.FRAME_CACHE_HITS);
+            return cached;
+        }
+
+        misses.incrementAndGet();
+        Mat image = Imgcodecs.imread(imagePath);
+        if (image.empty()) return image;
+        if (edge > 0 && Math.max(image.cols(), image.rows()) > edge) {
+            double scale = (double) edge / Math.max(image.cols(), image.rows());
+            Mat scaled = new Mat();
+            Imgproc.resize(image, scaled, new Size(), scale, scale, Imgproc.INTER_AREA);
+            image.release();
+            image = scaled;
+        }
+        write(entry, key, size, modified, image);
+        return image;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total > 0 ? (double) hits.get() / total : 0;
+    }
+
+    public String getStats() {
+        return String.format("dir=%s, hits=%d, misses=%d, hitRate=%.1f%%, writeFailures=%d, maxEdge=%d",
+                directory, getHitCount(), getMissCount(), getHitRate() * 100, writeFailures.get(), maxEdge);
+    }
+
+    // ==================== ENTRY FILES ====================
+
+    /**
+     * Layout: header (see {@link #HEADER_BYTES}), the UTF-8 key, then the pixels
+     * row by row, exactly as a continuous Mat holds them.
+     *
+     * @return The cached image, or null if the entry is missing, stale or damaged
+     */
+    private static Mat read(File entry, String key, long size, long modified) {
+        if (!entry.isFile()) return null;
+        try (FileChannel channel = FileChannel.open(entry.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES
+                    || buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || buffer.getLong() != size || buffer.getLong() != modified) {
+                return null;
+            }
+            int rows = buffer.getInt();
+            int cols = buffer.getInt();
+            int type = buffer.getInt();
+            int keyLength = buffer.getInt();
+            if (rows <= 0 || cols <= 0 || keyLength < 0 || keyLength > buffer.remaining()) return null;
+
+            byte[] keyBytes = new byte[keyLength];
+            buffer.get(keyBytes);
+            if (!key.equals(new String(keyBytes, StandardCharsets.UTF_8))) return null;
+            if (buffer.remaining() != (long) rows * cols * CvType.ELEM_SIZE(type)) return null;
+
+            // Wraps the mapping without copying; the copy gives the caller memory that
+            // does not depend on the mapping staying alive
+            ByteBuffer pixels = buffer.slice();
+            Mat mapped = new Mat(rows, cols, type, pixels);
+            Mat image = new Mat();
+            mapped.copyTo(image);
+            mapped.release();
+            Reference.reachabilityFence(pixels);
+            return image;
+        } catch (IOException | RuntimeException e) {
+            log.debug("Ignoring unreadable frame cache entry {}: {}", entry.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes through a temporary file and an atomic rename, so readers never see a
+     * partial entry. Plain channel writes instead of a writable mapping, because a
+     * file that is still mapped cannot be renamed on Windows.
+     */
+    private void write(File entry, String key, long size, long modified, Mat image) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + keyBytes.length);
+        header.putInt(MAGIC).putInt(VERSION).putLong(size).putLong(modified)
+                .putInt(image.rows()).putInt(image.cols()).putInt(image.type()).putInt(keyBytes.length)
+                .put(keyBytes)
+                .flip();
+
+        ByteBuffer pixels = ByteBuffer.allocateDirect((int) (image.total() * image.elemSize()));
+        Mat target = new Mat(image.rows(), image.cols(), image.type(), pixels);
+        image.copyTo(target);
+        target.release();
+
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(entry.getParentFile().toPath(), entry.getName(), ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining()) channel.write(header);
+                while (pixels.hasRemaining()) channel.write(pixels);
+            }
+            Files.move(tmp, entry.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+        } catch (IOException e) {
+            if (writeFailures.getAndIncrement() == 0) {
+                log.warn("Failed to write frame cache entry {}: {}", entry.getName(), e.getMessage());
+            }
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                    // Leftover temp files are never read
+                }
+            }
+        }
+    }
+
+    private static String entryName(String key, long size, long modified) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((key + "|" + size + "|" + modified).getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                name.append(String.format("%02x", hash[i]));
+            }
+            return name.append(EXTENSION).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,887 @@
+package com.alpr;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.objdetect.CascadeClassifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * DetectionEngine - Stateless, thread-safe plate detection
+ *
+ * <p>{@link #detect(Mat, DetectionParams)} runs the full Haar + geometric pipeline
+ * on one image and returns everything it found in a {@link DetectionOutput}. The
+ * engine keeps no per-image state: parameters come in as an immutable
+ * {@link DetectionParams}, scratch buffers live in a per-thread
+ * {@link PreprocessWorkspace} and each thread gets its own cascade classifier.
+ * One engine can therefore be shared by any number of threads, each with its own
+ * parameter set.</p>
+ *
+ * <p>{@link PlateDetector} is the stateful wrapper used by the CLI and the tuning
+ * GUI; it drives the same stage methods with its own workspace so the intermediate
+ * images stay available through its {@code last*} getters.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public final class DetectionEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(DetectionEngine.class);
+
+    private static final String[] HAAR_CASCADE_FILES = {
+        "haarcascade_russian_plate_number.xml",
+        "haarcascade_licence_plate_rus_16stages.xml"
+    };
+
+    // Refinement window around a coarse hit, as a fraction of the hit size added on each side
+    private static final double HAAR_REFINE_MARGIN = 1.0;
+
+    private static final double MIN_PLATE_AREA_RATIO = 0.002;
+    private static final double MAX_PLATE_AREA_RATIO = 0.20;
+
+    static final String DEBUG_BASE_DIR = "debug_output";
+
+    // Runs the geometric branch while Haar runs on the caller (concurrentDetection)
+    private static final ExecutorService DETECTION_EXECUTOR = createDetectionExecutor();
+
+    private static volatile DetectionEngine defaultEngine;
+
+    private final String cascadePath;
+    private final ThreadLocal<CascadeClassifier> classifiers;
+    private final ThreadLocal<PreprocessWorkspace> workspaces = ThreadLocal.withInitial(PreprocessWorkspace::new);
+
+    /**
+     * Looks up the Haar cascade in the working directory and {@code src/main/resources}.
+     */
+    public DetectionEngine() {
+        this(findCascade());
+    }
+
+    /**
+     * @param cascadePath Haar cascade XML, or null to run geometric detection only
+     */
+    public DetectionEngine(String cascadePath) {
+        String loaded = null;
+        if (cascadePath != null) {
+            CascadeClassifier probe = new CascadeClassifier(cascadePath);
+            if (!probe.empty()) {
+                loaded = cascadePath;
+                log.info("Haar cascade loaded: {}", cascadePath);
+            }
+        }
+        if (loaded == null) {
+            log.warn("No Haar cascade file found. Haar detection disabled.");
+        }
+        this.cascadePath = loaded;
+        this.classifiers = ThreadLocal.withInitial(() -> new CascadeClassifier(this.cascadePath));
+    }
+
+    /**
+     * @return Engine shared by all detectors that were not given one explicitly
+     */
+    public static DetectionEngine getDefault() {
+        DetectionEngine engine = defaultEngine;
+        if (engine == null) {
+            synchronized (DetectionEngine.class) {
+                engine = defaultEngine;
+                if (engine == null) {
+                    engine = new DetectionEngine();
+                    defaultEngine = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
+    private static String findCascade() {
+        for (String cascadeFile : HAAR_CASCADE_FILES) {
+            File file = new File(cascadeFile);
+            if (!file.exists()) {
+                file = new File("src/main/resources/" + cascadeFile);
+            }
+            if (file.exists()) {
+                return file.getAbsolutePath();
+            }
+        }
+        return null;
+    }
+
+    private static ExecutorService createDetectionExecutor() {
+        AtomicInteger ids = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "alpr-detect-" + ids.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public boolean isHaarAvailable() {
+        return cascadePath != null;
+    }
+
+    /**
+     * Queues a debug image on the background writer. Skipped when the caller did
+     * not name the image (debug output off or not sampled).
+     */
+    private static void saveDebugImage(String stepDir, Mat image, String imageName) {
+        if (imageName == null || image == null || image.empty()) return;
+        String filename = DEBUG_BASE_DIR + "/" + stepDir + "/" + imageName + ".jpg";
+        DebugImageWriter.get().submit(filename, image);
+    }
+
+    // ==================== STATELESS API ====================
+
+    /**
+     * Detects plates in one BGR image. Thread-safe; the image is only read.
+     */
+    public DetectionOutput detect(Mat image, DetectionParams params) {
+        return detect(image, params, null);
+    }
+
+    /**
+     * Detects plates in one BGR image and writes debug images under the given name.
+     *
+     * @param image     BGR image; only read, the caller keeps ownership
+     * @param params    Detection parameters
+     * @param debugName Base name for debug images, or null to write none
+     * @return Detections in original coordinates; release it when done
+     */
+    public DetectionOutput detect(Mat image, DetectionParams params, String debugName) {
+        return detect(image, null, params, debugName, null);
+    }
+
+    /**
+     * Variant for interactive callers that rerun the same image with changing
+     * parameters:
+     * <ul>
+     *   <li>With an {@code imageKey}, preprocessing stages whose input and
+     *       parameters match the previous call on this thread are reused (see
+     *       {@link #preprocess(Mat, Object, DetectionParams, PreprocessWorkspace)}).</li>
+     *   <li>{@code cancelled} is checked after preprocessing and after detection,
+     *       so a superseded run stops at the next stage boundary.</li>
+     * </ul>
+     *
+     * @param imageKey  Identifies the pixels of {@code image}; pass the same key only for unchanged pixels,
+     *                  or null to preprocess from scratch
+     * @param cancelled Polled between stages, or null for a run that cannot be cancelled
+     * @return Detections as for {@link #detect(Mat, DetectionParams, String)}, or null if cancelled
+     */
+    public DetectionOutput detect(Mat image, Object imageKey, DetectionParams params, String debugName,
+                                  BooleanSupplier cancelled) {
+        if (image == null || image.empty()) {
+            return new DetectionOutput(new ArrayList<>(), 1.0, null);
+        }
+
+        PreprocessWorkspace workspace = workspaces.get();
+        preprocess(image, imageKey, params, workspace);
+        if (cancelled != null && cancelled.getAsBoolean()) return null;
+        saveStepImages(workspace, debugName);
+        List<DetectionResult> results = detectPreprocessed(image, params, workspace, debugName);
+        if (cancelled != null && cancelled.getAsBoolean()) {
+            for (DetectionResult result : results) {
+                result.release();
+            }
+            return null;
+        }
+
+        DetectionOutput.Intermediates intermediates = null;
+        if (params.isCaptureIntermediates()) {
+            Mat annotated = new Mat();
+            renderDetections(image, results, annotated);
+            intermediates = new DetectionOutput.Intermediates(workspace.gray.clone(),
+                    workspace.filtered.clone(), workspace.edges.clone(), workspace.dilated.clone(), annotated);
+        }
+        return new DetectionOutput(results, workspace.detectionScale, intermediates);
+    }
+
+    // ==================== PREPROCESSING ====================
+
+    /**
+     * Runs the preprocessing chain into the workspace buffers and records the
+     * detection scale there. All destinations are reused: same resolution =&gt; no
+     * reallocation.
+     */
+    void preprocess(Mat image, DetectionParams params, PreprocessWorkspace workspace) {
+        preprocess(image, null, params, workspace);
+    }
+
+    /**
+     * Runs the preprocessing chain, recomputing only what changed. The stages form
+     * a chain, and each one is keyed by its input and its own parameters:
+     * <pre>
+     *   image --detectMaxEdge--&gt; resize, grayscale, CLAHE --blurKernel--&gt; bilateral
+     *         --cannyThreshold1/2--&gt; Canny, close --dilateKernelSize/Iterations--&gt; dilate
+     * </pre>
+     * If {@code imageKey} is the key of the previous call on this workspace, every
+     * stage whose parameters are unchanged, and whose upstream stages were not
+     * recomputed, keeps its buffer. Changing only the dilation therefore reruns
+     * just the dilation. In such keyed runs the Haar scan, which hangs off the
+     * grayscale stage, is reused by {@link #detectHaar} as well.
+     *
+     * @param imageKey Identity of the image pixels, or null to run every stage
+     */
+    void preprocess(Mat image, Object imageKey, DetectionParams params, PreprocessWorkspace workspace) {
+        PipelineMetrics metrics = PipelineMetrics.get();
+        long t = System.nanoTime();
+
+        // Buffers count as stale until the whole chain has completed
+        boolean sameImage = imageKey != null && imageKey == workspace.stageImageKey;
+        workspace.stageImageKey = null;
+        int reused = 0;
+
+        // Steps 0-2 depend on the image and the detection resolution only
+        int maxEdge = params.getDetectMaxEdge();
+        boolean dirty = !sameImage || maxEdge != workspace.stageMaxEdge;
+        if (dirty) {
+            // Step 0: Optional downscale to the detection resolution
+            Mat source = image;
+            int longEdge = Math.max(image.cols(), image.rows());
+            if (maxEdge > 0 && longEdge > maxEdge) {
+                workspace.detectionScale = (double) maxEdge / longEdge;
+                Imgproc.resize(image, workspace.detectionImage, new Size(),
+                        workspace.detectionScale, workspace.detectionScale, Imgproc.INTER_AREA);
+                source = workspace.detectionImage;
+                t = metrics.recordSince(PipelineMetrics.PREPROCESS_RESIZE, t);
+            } else {
+                workspace.detectionScale = 1.0;
+            }
+
+            // Step 1: Grayscale
+            Imgproc.cvtColor(source, workspace.gray, Imgproc.COLOR_BGR2GRAY);
+            workspace.grayVersion++;
+            t = metrics.recordSince(PipelineMetrics.PREPROCESS_GRAYSCALE, t);
+
+            // Step 2: CLAHE for contrast enhancement
+            workspace.clahe.apply(workspace.gray, workspace.enhanced);
+            t = metrics.recordSince(PipelineMetrics.PREPROCESS_CLAHE, t);
+            workspace.stageMaxEdge = maxEdge;
+        } else {
+            reused += 2;
+        }
+
+        // Step 3: Bilateral filter
+        dirty |= params.getBlurKernel() != workspace.stageBlurKernel;
+        if (dirty) {
+            Imgproc.bilateralFilter(workspace.enhanced, workspace.filtered, params.getBlurKernel(), 17, 17);
+            t = metrics.recordSince(PipelineMetrics.PREPROCESS_BILATERAL, t);
+            workspace.stageBlurKernel = params.getBlurKernel();
+        } else {
+            reused++;
+        }
+
+        // Step 4: Canny edge detection, Step 5: Morphological Closing - connect horizontal elements
+        dirty |= params.getCannyThreshold1() != workspace.stageCannyThreshold1
+                || params.getCannyThreshold2() != workspace.stageCannyThreshold2;
+        if (dirty) {
+            Imgproc.Canny(workspace.filtered, workspace.edges, params.getCannyThreshold1(), params.getCannyThreshold2());
+            t = metrics.recordSince(PipelineMetrics.PREPROCESS_CANNY, t);
+            Imgproc.morphologyEx(workspace.edges, workspace.closed, Imgproc.MORPH_CLOSE, workspace.closeKernel);
+            workspace.stageCannyThreshold1 = params.getCannyThreshold1();
+            workspace.stageCannyThreshold2 = params.getCannyThreshold2();
+        } else {
+            reused += 2;
+        }
+
+        // Step 6: Dilate
+        dirty |= params.getDilateKernelSize() != workspace.stageDilateKernelSize
+                || params.getDilateIterations() != workspace.stageDilateIterations;
+        if (dirty) {
+            if (params.getDilateIterations() > 0) {
+                Imgproc.dilate(workspace.closed, workspace.dilated,
+                        workspace.dilateKernel(params.getDilateKernelSize()),
+                        new Point(-1, -1), params.getDilateIterations());
+            } else {
+                workspace.closed.copyTo(workspace.dilated);
+            }
+            metrics.recordSince(PipelineMetrics.PREPROCESS_MORPHOLOGY, t);
+            workspace.stageDilateKernelSize = params.getDilateKernelSize();
+            workspace.stageDilateIterations = params.getDilateIterations();
+        } else {
+            reused++;
+        }
+
+        workspace.stageImageKey = imageKey;
+        if (reused > 0) {
+            metrics.add(PipelineMetrics.PREPROCESS_REUSED, reused);
+        }
+    }
+
+    void saveStepImages(PreprocessWorkspace workspace, String debugName) {
+        saveDebugImage("step1_grayscale", workspace.gray, debugName);
+        saveDebugImage("step2_filtered", workspace.filtered, debugName);
+        saveDebugImage("step3_canny", workspace.edges, debugName);
+        saveDebugImage("step3b_dilated", workspace.dilated, debugName);
+    }
+
+    // ==================== DUAL DETECTION ====================
+
+    /**
+     * Runs both detection methods on an image whose preprocessing is in the workspace.
+     *
+     * @return Haar results followed by geometric results
+     */
+    List<DetectionResult> detectPreprocessed(Mat image, DetectionParams params,
+                                             PreprocessWorkspace workspace, String debugName) {
+        List<DetectionResult> haarResults;
+        List<DetectionResult> geoResults;
+        if (params.isConcurrentDetection()) {
+            // Lazily built shared state must exist before the branches fork
+            roiMaskForDetection(params, workspace);
+            Future<List<DetectionResult>> geoFuture = DETECTION_EXECUTOR.submit(
+                    () -> detectGeometric(image, params, workspace, debugName));
+            try {
+                haarResults = detectHaar(image, params, workspace, debugName);
+            } catch (RuntimeException | Error e) {
+                // The branch still writes to this workspace; it must finish before the caller moves on
+                for (DetectionResult result : awaitBranch(geoFuture)) {
+                    result.release();
+                }
+                throw e;
+            }
+            geoResults = awaitBranch(geoFuture);
+        } else {
+            // Run Haar Cascade detection
+            haarResults = detectHaar(image, params, workspace, debugName);
+
+            // Run Geometric detection
+            geoResults = detectGeometric(image, params, workspace, debugName);
+        }
+
+        // Same order as sequential mode, so results are deterministic
+        List<DetectionResult> results = new ArrayList<>(haarResults.size() + geoResults.size());
+        results.addAll(haarResults);
+        results.addAll(geoResults);
+
+        log.debug("Detection complete - Haar: {}, Geometric: {}", haarResults.size(), geoResults.size());
+        return results;
+    }
+
+    /**
+     * Waits for the geometric branch to finish. The wait is not interruptible: native
+     * OpenCV calls cannot be cancelled, and the branch writes to the caller's workspace,
+     * so returning early would let it race with the caller's next image. An interrupt
+     * is re-asserted once the branch is done.
+     *
+     * @return The branch's results, or an empty list if it failed
+     */
+    private static List<DetectionResult> awaitBranch(Future<List<DetectionResult>> branch) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return branch.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    log.error("Geometric detection failed", e.getCause());
+                    return new ArrayList<>();
+                }
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Detects plates using Haar Cascade classifier.
+     */
+    List<DetectionResult> detectHaar(Mat image, DetectionParams params,
+                                     PreprocessWorkspace workspace, String debugName) {
+        List<DetectionResult> results = new ArrayList<>();
+
+        if (!isHaarAvailable() || workspace.gray.empty()) {
+            return results;
+        }
+        long start = System.nanoTime();
+
+        double scale = workspace.detectionScale;
+        Mat mask = roiMaskForDetection(params, workspace);
+
+        // The scan depends only on the grayscale stage and the Haar parameters. Hits are
+        // reused for incremental (keyed) runs only, so repeated scans still get measured.
+        List<Object> scanKey = Arrays.asList(workspace.grayVersion, params.getHaarScanMode(),
+                params.getHaarScaleFactor(), params.getHaarMinNeighbors(), params.getHaarCoarseScaleFactor(),
+                params.getRoiMask());
+        List<Rect> hits;
+        if (workspace.stageImageKey != null && scanKey.equals(workspace.haarScanKey)) {
+            hits = workspace.haarHits;
+            PipelineMetrics.get().increment(PipelineMetrics.PREPROCESS_REUSED);
+        } else {
+            // Apply histogram equalization for better detection
+            Imgproc.equalizeHist(workspace.gray, workspace.equalized);
+
+            // Plate size limits are defined at full resolution
+            Size minSize = new Size(80 * scale, 20 * scale);
+            Size maxSize = new Size(500 * scale, 150 * scale);
+            Rect scanArea = (mask != null) ? workspace.roiBounds
+                    : new Rect(0, 0, workspace.equalized.cols(), workspace.equalized.rows());
+
+            hits = (params.getHaarScanMode() == PlateDetector.HaarScanMode.COARSE_TO_FINE)
+                    ? scanHaarCoarseToFine(workspace, params, scanArea, minSize, maxSize)
+                    : scanHaar(workspace, scanArea, params.getHaarScaleFactor(), params.getHaarMinNeighbors(),
+                               minSize, maxSize);
+            workspace.haarHits = hits;
+            workspace.haarScanKey = scanKey;
+        }
+
+        int idx = 0;
+        for (Rect detected : hits) {
+            if (!insideRoi(mask, detected)) continue;
+            Rect rect = toOriginal(detected, scale, image);
+
+            // Validate aspect ratio
+            double ar = (double) rect.width / rect.height;
+            if (ar < 1.5 || ar > 8.0) continue;
+
+            // Crop and store the plate with padding
+            long cropStart = System.nanoTime();
+            Mat croppedPlate = cropPlateWithPadding(image, rect, 5);
+            PipelineMetrics.get().recordSince(PipelineMetrics.DETECT_CROP, cropStart);
+            DetectionResult result = new DetectionResult(rect, DetectionResult.MethodType.HAAR, croppedPlate);
+            if (croppedPlate != null) {
+                saveDebugImage("haar_plates", croppedPlate, debugName == null ? null : debugName + "_haar_" + idx);
+            }
+
+            results.add(result);
+            if (log.isDebugEnabled()) {
+                log.debug("Haar #{}: {},{} size: {}x{} AR: {}", idx, rect.x, rect.y,
+                        rect.width, rect.height, String.format("%.2f", ar));
+            }
+            idx++;
+        }
+
+        PipelineMetrics.get().recordSince(PipelineMetrics.DETECT_HAAR, start);
+        PipelineMetrics.get().add(PipelineMetrics.CANDIDATES_HAAR, results.size());
+        return results;
+    }
+
+    /**
+     * Runs the cascade over one area of the equalized image.
+     *
+     * @return Hits in detection-image coordinates
+     */
+    private List<Rect> scanHaar(PreprocessWorkspace workspace, Rect area, double scaleFactor, int minNeighbors,
+                                Size minSize, Size maxSize) {
+        List<Rect> hits = new ArrayList<>();
+        if (area.width < minSize.width || area.height < minSize.height) return hits;
+
+        boolean fullFrame = area.x == 0 && area.y == 0
+                && area.width == workspace.equalized.cols() && area.height == workspace.equalized.rows();
+        Mat region = fullFrame ? workspace.equalized : workspace.equalized.submat(area);
+        try {
+            classifiers.get().detectMultiScale(region, workspace.haarDetections, scaleFactor,
+                    minNeighbors, 0, minSize, maxSize);
+        } finally {
+            if (!fullFrame) region.release();
+        }
+
+        for (Rect hit : workspace.haarDetections.toArray()) {
+            hits.add(new Rect(hit.x + area.x, hit.y + area.y, hit.width, hit.height));
+        }
+        return hits;
+    }
+
+    /**
+     * Coarse pass with {@code haarCoarseScaleFactor} and no neighbour grouping to
+     * propose candidate areas: overlapping raw windows are merged into clusters.
+     * Each cluster (plus a margin) is then rescanned densely with
+     * {@code haarScaleFactor} and the full {@code haarMinNeighbors}, limited to the
+     * size band of the cluster's windows. Only hits confirmed by the dense pass are
+     * returned, so precision matches the exhaustive scan.
+     */
+    private List<Rect> scanHaarCoarseToFine(PreprocessWorkspace workspace, DetectionParams params, Rect area,
+                                            Size minSize, Size maxSize) {
+        List<Rect> refined = new ArrayList<>();
+        double coarseScale = params.getHaarCoarseScaleFactor();
+
+        for (Rect[] cluster : clusterOverlapping(scanHaar(workspace, area, coarseScale, 0, minSize, maxSize))) {
+            Rect bounds = cluster[0];
+            Rect smallest = cluster[1];
+            Rect largest = cluster[2];
+
+            int marginX = (int) (largest.width * HAAR_REFINE_MARGIN);
+            int marginY = (int) (largest.height * HAAR_REFINE_MARGIN);
+            int x = Math.max(area.x, bounds.x - marginX);
+            int y = Math.max(area.y, bounds.y - marginY);
+            int right = Math.min(area.x + area.width, bounds.x + bounds.width + marginX);
+            int bottom = Math.min(area.y + area.height, bounds.y + bounds.height + marginY);
+            Rect window = new Rect(x, y, right - x, bottom - y);
+
+            // The true plate size lies within one coarse step of the cluster's windows
+            Size localMin = new Size(Math.max(minSize.width, smallest.width / coarseScale),
+                                     Math.max(minSize.height, smallest.height / coarseScale));
+            Size localMax = new Size(Math.min(maxSize.width, largest.width * coarseScale),
+                                     Math.min(maxSize.height, largest.height * coarseScale));
+
+            for (Rect candidate : scanHaar(workspace, window, params.getHaarScaleFactor(),
+                                           params.getHaarMinNeighbors(), localMin, localMax)) {
+                boolean duplicate = refined.stream()
+                        .anyMatch(r -> DetectionResult.calculateIoU(r, candidate) > 0.5);
+                if (!duplicate) refined.add(candidate);
+            }
+        }
+        return refined;
+    }
+
+    /**
+     * Merges overlapping rectangles into clusters.
+     *
+     * @return Per cluster: {bounding box, smallest member, largest member}
+     */
+    private static List<Rect[]> clusterOverlapping(List<Rect> rects) {
+        List<Rect[]> clusters = new ArrayList<>();
+        for (Rect rect : rects) {
+            Rect[] merged = {rect, rect, rect};
+            // Absorb every existing cluster this rectangle (or the growing cluster) touches
+            for (int i = clusters.size() - 1; i >= 0; i--) {
+                Rect[] other = clusters.get(i);
+                if (intersects(merged[0], other[0])) {
+                    merged = new Rect[]{union(merged[0], other[0]),
+                            other[1].area() < merged[1].area() ? other[1] : merged[1],
+                            other[2].area() > merged[2].area() ? other[2] : merged[2]};
+                    clusters.remove(i);
+                }
+            }
+            clusters.add(merged);
+        }
+        return clusters;
+    }
+
+    private static boolean intersects(Rect a, Rect b) {
+        return a.x < b.x + b.width && b.x < a.x + a.width
+            && a.y < b.y + b.height && b.y < a.y + a.height;
+    }
+
+    private static Rect union(Rect a, Rect b) {
+        int x = Math.min(a.x, b.x);
+        int y = Math.min(a.y, b.y);
+        int right = Math.max(a.x + a.width, b.x + b.width);
+        int bottom = Math.max(a.y + a.height, b.y + b.height);
+        return new Rect(x, y, right - x, bottom - y);
+    }
+
+    /**
+     * @return ROI mask at detection resolution, or null when no mask is set
+     */
+    private static Mat roiMaskForDetection(DetectionParams params, PreprocessWorkspace workspace) {
+        Mat roiMask = params.getRoiMask();
+        if (roiMask == null || workspace.gray.empty()) return null;
+        Size size = workspace.gray.size();
+        if (workspace.roiMaskSource != roiMask || workspace.roiMask.empty()
+                || !workspace.roiMask.size().equals(size)) {
+            Imgproc.resize(roiMask, workspace.roiMask, size, 0, 0, Imgproc.INTER_NEAREST);
+            workspace.roiBounds = Imgproc.boundingRect(workspace.roiMask);
+            workspace.roiMaskSource = roiMask;
+        }
+        return workspace.roiMask;
+    }
+
+    /**
+     * @return true if there is no mask or the rectangle's centre lies inside it
+     */
+    private static boolean insideRoi(Mat mask, Rect rect) {
+        if (mask == null) return true;
+        int cx = Math.min(mask.cols() - 1, rect.x + rect.width / 2);
+        int cy = Math.min(mask.rows() - 1, rect.y + rect.height / 2);
+        return mask.get(cy, cx)[0] > 0;
+    }
+
+    /**
+     * Detects plates using Geometric/Contour analysis with perspective transform.
+     */
+    List<DetectionResult> detectGeometric(Mat image, DetectionParams params,
+                                          PreprocessWorkspace workspace, String debugName) {
+        List<DetectionResult> results = new ArrayList<>();
+        Mat dilated = workspace.dilated;
+
+        if (dilated.empty()) {
+            return results;
+        }
+        long start = System.nanoTime();
+
+        double scale = workspace.detectionScale;
+        double imageArea = dilated.rows() * dilated.cols();
+        double minArea = imageArea * MIN_PLATE_AREA_RATIO;
+        double maxArea = imageArea * MAX_PLATE_AREA_RATIO;
+
+        // Contours, hierarchy and polygon approximations are all native; free them on exit
+        try (MatArena arena = new MatArena()) {
+            List<MatOfPoint> contours = new ArrayList<>();
+            Mat hierarchy = arena.newMat();
+            Mat mask = roiMaskForDetection(params, workspace);
+            if (mask != null) {
+                Core.bitwise_and(dilated, mask, workspace.contourInput);
+            } else {
+                dilated.copyTo(workspace.contourInput);
+            }
+            Imgproc.findContours(workspace.contourInput, contours, hierarchy,
+                    Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+            arena.trackAll(contours);
+
+            contours.sort((c1, c2) -> Double.compare(
+                    Imgproc.contourArea(c2), Imgproc.contourArea(c1)));
+
+            int idx = 0;
+            for (int i = 0; i < Math.min(50, contours.size()); i++) {
+                MatOfPoint contour = contours.get(i);
+                double area = Imgproc.contourArea(contour);
+
+                if (area < minArea || area > maxArea) continue;
+
+                MatOfPoint2f contour2f = arena.track(new MatOfPoint2f(contour.toArray()));
+                double peri = Imgproc.arcLength(contour2f, true);
+                MatOfPoint2f approx = arena.track(new MatOfPoint2f());
+                Imgproc.approxPolyDP(contour2f, approx, 0.018 * peri, true);
+
+                Point[] pts = approx.toArray();
+
+                // Accept 4-6 vertices (more flexible for noisy contours)
+                if (pts.length >= 4 && pts.length <= 6) {
+                    Rect rect = toOriginal(Imgproc.boundingRect(contour), scale, image);
+                    double aspectRatio = (double) rect.width / rect.height;
+
+                    if (aspectRatio >= params.getMinAspectRatio() && aspectRatio <= params.getMaxAspectRatio()) {
+                        // Use four-point transform if we have exactly 4 points
+                        long cropStart = System.nanoTime();
+                        Mat croppedPlate;
+                        if (pts.length == 4) {
+                            croppedPlate = fourPointTransform(image, toOriginal(pts, scale));
+                        } else {
+                            croppedPlate = cropPlateWithPadding(image, rect, 3);
+                        }
+                        PipelineMetrics.get().recordSince(PipelineMetrics.DETECT_CROP, cropStart);
+
+                        if (croppedPlate != null && croppedPlate.empty()) {
+                            croppedPlate = null;
+                        }
+                        DetectionResult result = new DetectionResult(rect, DetectionResult.MethodType.GEOMETRIC,
+                                                                     croppedPlate);
+                        if (croppedPlate != null) {
+                            saveDebugImage("geo_plates", croppedPlate,
+                                           debugName == null ? null : debugName + "_geo_" + idx);
+                        }
+
+                        results.add(result);
+                        if (log.isDebugEnabled()) {
+                            log.debug("Geometric #{}: {},{} size: {}x{} AR: {}", idx, rect.x, rect.y,
+                                    rect.width, rect.height, String.format("%.2f", aspectRatio));
+                        }
+                        idx++;
+
+                        // Limit to top 3 geometric detections
+                        if (idx >= 3) break;
+                    }
+                }
+            }
+        }
+
+        PipelineMetrics.get().recordSince(PipelineMetrics.DETECT_GEOMETRIC, start);
+        PipelineMetrics.get().add(PipelineMetrics.CANDIDATES_GEOMETRIC, results.size());
+        return results;
+    }
+
+    /**
+     * Maps a rectangle from detection resolution back to the original image.
+     */
+    private static Rect toOriginal(Rect rect, double scale, Mat original) {
+        if (scale == 1.0) return rect;
+        int x = (int) Math.floor(rect.x / scale);
+        int y = (int) Math.floor(rect.y / scale);
+        int right = (int) Math.ceil((rect.x + rect.width) / scale);
+        int bottom = (int) Math.ceil((rect.y + rect.height) / scale);
+        x = Math.max(0, x);
+        y = Math.max(0, y);
+        right = Math.min(original.cols(), right);
+        bottom = Math.min(original.rows(), bottom);
+        return new Rect(x, y, right - x, bottom - y);
+    }
+
+    /**
+     * Maps contour/quad points from detection resolution back to the original image.
+     */
+    private static Point[] toOriginal(Point[] pts, double scale) {
+        if (scale == 1.0) return pts;
+        Point[] mapped = new Point[pts.length];
+        for (int i = 0; i < pts.length; i++) {
+            mapped[i] = new Point(pts[i].x / scale, pts[i].y / scale);
+        }
+        return mapped;
+    }
+
+    /**
+     * Crops a plate region with padding.
+     */
+    private static Mat cropPlateWithPadding(Mat image, Rect rect, int padding) {
+        int x = Math.max(0, rect.x - padding);
+        int y = Math.max(0, rect.y - padding);
+        int w = Math.min(image.cols() - x, rect.width + 2 * padding);
+        int h = Math.min(image.rows() - y, rect.height + 2 * padding);
+
+        if (w <= 0 || h <= 0) return null;
+
+        return new Mat(image, new Rect(x, y, w, h));
+    }
+
+    // ==================== VISUALIZATION ====================
+
+    /**
+     * Draws the detections onto a copy of the image: red for boxes found by both
+     * methods, green for Haar, blue for geometric.
+     *
+     * @param target Destination, reallocated only when the image size changes
+     */
+    void renderDetections(Mat image, List<DetectionResult> results, Mat target) {
+        image.copyTo(target);
+
+        List<Rect> highConfidenceRects = findHighConfidenceDetections(results);
+
+        for (DetectionResult result : results) {
+            Rect rect = result.getBounds();
+            Scalar color;
+            int thickness = 2;
+
+            boolean isHighConfidence = highConfidenceRects.stream()
+                    .anyMatch(hc -> DetectionResult.calculateIoU(rect, hc) > 0.5);
+
+            if (isHighConfidence) {
+                color = new Scalar(0, 0, 255); // Red
+                thickness = 3;
+            } else if (result.getMethod() == DetectionResult.MethodType.HAAR) {
+                color = new Scalar(0, 255, 0); // Green
+            } else {
+                color = new Scalar(255, 0, 0); // Blue
+            }
+
+            Imgproc.rectangle(target, rect, color, thickness);
+
+            String label = result.getMethod() == DetectionResult.MethodType.HAAR ? "H" : "G";
+            if (isHighConfidence) label = "H+G";
+            Imgproc.putText(target, label,
+                    new Point(rect.x, rect.y - 5),
+                    Imgproc.FONT_HERSHEY_SIMPLEX, 0.5, color, 2);
+        }
+    }
+
+    private static List<Rect> findHighConfidenceDetections(List<DetectionResult> results) {
+        List<Rect> highConfidence = new ArrayList<>();
+
+        List<DetectionResult> haarResults = new ArrayList<>();
+        List<DetectionResult> geoResults = new ArrayList<>();
+
+        for (DetectionResult result : results) {
+            if (result.getMethod() == DetectionResult.MethodType.HAAR) {
+                haarResults.add(result);
+            } else {
+                geoResults.add(result);
+            }
+        }
+
+        for (DetectionResult haar : haarResults) {
+            for (DetectionResult geo : geoResults) {
+                if (haar.overlaps(geo, 0.3)) {
+                    highConfidence.add(haar.getBounds());
+                }
+            }
+        }
+
+        return highConfidence;
+    }
+
+    // ==================== FOUR POINT TRANSFORM ====================
+
+    private static Point[] orderPoints(Point[] pts) {
+        if (pts == null || pts.length != 4) {
+            return null;
+        }
+
+        Point[] ordered = new Point[4];
+        double[] sums = new double[4];
+        double[] diffs = new double[4];
+
+        for (int i = 0; i < 4; i++) {
+            sums[i] = pts[i].x + pts[i].y;
+            diffs[i] = pts[i].y - pts[i].x;
+        }
+
+        ordered[0] = pts[indexOfMin(sums)];
+        ordered[2] = pts[indexOfMax(sums)];
+        ordered[1] = pts[indexOfMin(diffs)];
+        ordered[3] = pts[indexOfMax(diffs)];
+
+        return ordered;
+    }
+
+    private static int indexOfMin(double[] arr) {
+        int idx = 0;
+        for (int i = 1; i < arr.length; i++) {
+            if (arr[i] < arr[idx]) idx = i;
+        }
+        return idx;
+    }
+
+    private static int indexOfMax(double[] arr) {
+        int idx = 0;
+        for (int i = 1; i < arr.length; i++) {
+            if (arr[i] > arr[idx]) idx = i;
+        }
+        return idx;
+    }
+
+    private static Mat fourPointTransform(Mat image, Point[] pts) {
+        Point[] ordered = orderPoints(pts);
+        if (ordered == null) return null;
+
+        Point tl = ordered[0], tr = ordered[1], br = ordered[2], bl = ordered[3];
+
+        double widthTop = distance(tl, tr);
+        double widthBottom = distance(bl, br);
+        int maxWidth = (int) Math.max(widthTop, widthBottom);
+
+        double heightLeft = distance(tl, bl);
+        double heightRight = distance(tr, br);
+        int maxHeight = (int) Math.max(heightLeft, heightRight);
+
+        maxWidth = Math.max(maxWidth, 100);
+        maxHeight = Math.max(maxHeight, 30);
+
+        try (MatArena arena = new MatArena()) {
+            MatOfPoint2f srcPoints = arena.track(new MatOfPoint2f(tl, tr, br, bl));
+            MatOfPoint2f dstPoints = arena.track(new MatOfPoint2f(
+                new Point(0, 0),
+                new Point(maxWidth - 1, 0),
+                new Point(maxWidth - 1, maxHeight - 1),
+                new Point(0, maxHeight - 1)
+            ));
+
+            Mat transformMatrix = arena.track(Imgproc.getPerspectiveTransform(srcPoints, dstPoints));
+            Mat warped = new Mat();
+            Imgproc.warpPerspective(image, warped, transformMatrix, new Size(maxWidth, maxHeight));
+
+            return warped;
+        }
+    }
+
+    private static double distance(Point p1, Point p2) {
+        double dx = p2.x - p1.x;
+        double dy = p2.y - p1.y;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,100 @@
+package com.alpr;
+
+import org.opencv.core.Mat;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * DetectionOutput - Result of one {@link DetectionEngine#detect} call
+ *
+ * <p>Holds the detections in a fixed order (Haar first, then geometric) as an
+ * unmodifiable list. When {@link DetectionParams#isCaptureIntermediates()} is set,
+ * copies of the preprocessing stages and the annotated image are attached for
+ * previews; otherwise {@link #getIntermediates()} is null.</p>
+ *
+ * <p>The output owns the native memory of the cropped plates and the captured
+ * images. Call {@link #release()} when done with it.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public final class DetectionOutput {
+
+    /**
+     * Copies of the pipeline stages of one image, at detection resolution
+     * (the annotated image is at full resolution).
+     */
+    public static final class Intermediates {
+        private final Mat gray;
+        private final Mat filtered;
+        private final Mat edges;
+        private final Mat dilated;
+        private final Mat annotated;
+
+        Intermediates(Mat gray, Mat filtered, Mat edges, Mat dilated, Mat annotated) {
+            this.gray = gray;
+            this.filtered = filtered;
+            this.edges = edges;
+            this.dilated = dilated;
+            this.annotated = annotated;
+        }
+
+        public Mat getGray() { return gray; }
+        public Mat getFiltered() { return filtered; }
+        public Mat getEdges() { return edges; }
+        public Mat getDilated() { return dilated; }
+        public Mat getAnnotated() { return annotated; }
+
+        void release() {
+            gray.release();
+            filtered.release();
+            edges.release();
+            dilated.release();
+            annotated.release();
+        }
+    }
+
+    private final List<DetectionResult> results;
+    private final double detectionScale;
+    private final Intermediates intermediates;
+
+    DetectionOutput(List<DetectionResult> results, double detectionScale, Intermediates intermediates) {
+        this.results = Collections.unmodifiableList(results);
+        this.detectionScale = detectionScale;
+        this.intermediates = intermediates;
+    }
+
+    /**
+     * @return Detections in original image coordinates (unmodifiable)
+     */
+    public List<DetectionResult> getResults() {
+        return results;
+    }
+
+    /**
+     * @return Detection resolution / original resolution (1.0 = full resolution)
+     */
+    public double getDetectionScale() {
+        return detectionScale;
+    }
+
+    /**
+     * @return Captured stage images, or null if capture was not requested
+     */
+    public Intermediates getIntermediates() {
+        return intermediates;
+    }
+
+    /**
+     * Frees the cropped plates and captured images.
+     */
+    public void release() {
+        for (DetectionResult result : results) {
+            result.release();
+        }
+        if (intermediates != null) {
+            intermediates.release();
+        }
+    }
+}
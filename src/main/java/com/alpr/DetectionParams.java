@@ -0,0 +1,258 @@
+package com.alpr;
+
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * DetectionParams - Immutable parameter set for one detection run
+ *
+ * <p>All tunables of the preprocessing and detection pipeline in one value object,
+ * so a single {@link DetectionEngine} can serve many threads with different
+ * settings. Instances are created with {@link #builder()} or derived from an
+ * existing set with {@link #toBuilder()}; the builder applies the same
+ * normalization the old {@link PlateDetector} setters did (odd blur kernel,
+ * kernel size &ge; 1, ...).</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public final class DetectionParams {
+
+    private static final DetectionParams DEFAULTS = new Builder().build();
+
+    private final int blurKernel;
+    private final int cannyThreshold1;
+    private final int cannyThreshold2;
+    private final double minAspectRatio;
+    private final double maxAspectRatio;
+    private final int dilateKernelSize;
+    private final int dilateIterations;
+    private final double haarScaleFactor;
+    private final int haarMinNeighbors;
+    private final int detectMaxEdge;
+    private final PlateDetector.HaarScanMode haarScanMode;
+    private final double haarCoarseScaleFactor;
+    private final Mat roiMask;
+    private final boolean concurrentDetection;
+    private final boolean captureIntermediates;
+
+    private DetectionParams(Builder b) {
+        this.blurKernel = b.blurKernel;
+        this.cannyThreshold1 = b.cannyThreshold1;
+        this.cannyThreshold2 = b.cannyThreshold2;
+        this.minAspectRatio = b.minAspectRatio;
+        this.maxAspectRatio = b.maxAspectRatio;
+        this.dilateKernelSize = b.dilateKernelSize;
+        this.dilateIterations = b.dilateIterations;
+        this.haarScaleFactor = b.haarScaleFactor;
+        this.haarMinNeighbors = b.haarMinNeighbors;
+        this.detectMaxEdge = b.detectMaxEdge;
+        this.haarScanMode = b.haarScanMode;
+        this.haarCoarseScaleFactor = b.haarCoarseScaleFactor;
+        this.roiMask = b.roiMask;
+        this.concurrentDetection = b.concurrentDetection;
+        this.captureIntermediates = b.captureIntermediates;
+    }
+
+    /**
+     * @return Parameter set with the default values
+     */
+    public static DetectionParams defaults() {
+        return DEFAULTS;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return Builder pre-filled with this parameter set
+     */
+    public Builder toBuilder() {
+        Builder b = new Builder();
+        b.blurKernel = blurKernel;
+        b.cannyThreshold1 = cannyThreshold1;
+        b.cannyThreshold2 = cannyThreshold2;
+        b.minAspectRatio = minAspectRatio;
+        b.maxAspectRatio = maxAspectRatio;
+        b.dilateKernelSize = dilateKernelSize;
+        b.dilateIterations = dilateIterations;
+        b.haarScaleFactor = haarScaleFactor;
+        b.haarMinNeighbors = haarMinNeighbors;
+        b.detectMaxEdge = detectMaxEdge;
+        b.haarScanMode = haarScanMode;
+        b.haarCoarseScaleFactor = haarCoarseScaleFactor;
+        b.roiMask = roiMask; // already normalized and never modified
+        b.concurrentDetection = concurrentDetection;
+        b.captureIntermediates = captureIntermediates;
+        return b;
+    }
+
+    // ==================== GETTERS ====================
+
+    public int getBlurKernel() { return blurKernel; }
+    public int getCannyThreshold1() { return cannyThreshold1; }
+    public int getCannyThreshold2() { return cannyThreshold2; }
+    public double getMinAspectRatio() { return minAspectRatio; }
+    public double getMaxAspectRatio() { return maxAspectRatio; }
+    public int getDilateKernelSize() { return dilateKernelSize; }
+    public int getDilateIterations() { return dilateIterations; }
+    public double getHaarScaleFactor() { return haarScaleFactor; }
+    public int getHaarMinNeighbors() { return haarMinNeighbors; }
+    public int getDetectMaxEdge() { return detectMaxEdge; }
+    public PlateDetector.HaarScanMode getHaarScanMode() { return haarScanMode; }
+    public double getHaarCoarseScaleFactor() { return haarCoarseScaleFactor; }
+    public boolean isConcurrentDetection() { return concurrentDetection; }
+    public boolean isCaptureIntermediates() { return captureIntermediates; }
+
+    /**
+     * The mask is shared by every copy of these params and by all detection threads using
+     * them, so callers must not write to or release it; {@code clone()} it for a private copy.
+     *
+     * @return Binary ROI mask at camera resolution (read-only), or null for the whole frame
+     */
+    public Mat getRoiMask() { return roiMask; }
+
+    /**
+     * Frees the native memory of the ROI mask. Params derived with {@link #toBuilder()}
+     * share the mask, so only the last holder may call this, once no detection uses
+     * these params any more.
+     */
+    public void release() {
+        if (roiMask != null) roiMask.release();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DetectionParams{blur=%d, canny=%d/%d, ar=%.2f-%.2f, dilate=%dx%d, " +
+                        "haar=%.2f/%d %s, maxEdge=%d, roi=%s, concurrent=%s}",
+                blurKernel, cannyThreshold1, cannyThreshold2, minAspectRatio, maxAspectRatio,
+                dilateKernelSize, dilateIterations, haarScaleFactor, haarMinNeighbors, haarScanMode,
+                detectMaxEdge, roiMask != null, concurrentDetection);
+    }
+
+    // ==================== BUILDER ====================
+
+    /**
+     * Mutable builder; not thread-safe.
+     */
+    public static final class Builder {
+        private int blurKernel = 11;
+        private int cannyThreshold1 = 50;
+        private int cannyThreshold2 = 150;
+        private double minAspectRatio = 2.0;
+        private double maxAspectRatio = 7.0;
+        private int dilateKernelSize = 3;
+        private int dilateIterations = 2;
+        private double haarScaleFactor = 1.05;
+        private int haarMinNeighbors = 3;
+        private int detectMaxEdge = 0;
+        private PlateDetector.HaarScanMode haarScanMode = PlateDetector.HaarScanMode.EXHAUSTIVE;
+        private double haarCoarseScaleFactor = 1.15;
+        private Mat roiMask;
+        private boolean concurrentDetection = false;
+        private boolean captureIntermediates = false;
+
+        private Builder() {
+        }
+
+        /** Bilateral filter diameter; even values are rounded up to the next odd one. */
+        public Builder blurKernel(int size) {
+            this.blurKernel = (size % 2 == 0) ? size + 1 : size;
+            return this;
+        }
+
+        public Builder cannyThreshold1(int threshold) {
+            this.cannyThreshold1 = threshold;
+            return this;
+        }
+
+        public Builder cannyThreshold2(int threshold) {
+            this.cannyThreshold2 = threshold;
+            return this;
+        }
+
+        public Builder minAspectRatio(double ratio) {
+            this.minAspectRatio = ratio;
+            return this;
+        }
+
+        public Builder maxAspectRatio(double ratio) {
+            this.maxAspectRatio = ratio;
+            return this;
+        }
+
+        public Builder dilateKernelSize(int size) {
+            this.dilateKernelSize = (size < 1) ? 1 : size;
+            return this;
+        }
+
+        public Builder dilateIterations(int iterations) {
+            this.dilateIterations = (iterations < 0) ? 0 : iterations;
+            return this;
+        }
+
+        public Builder haarScaleFactor(double factor) {
+            this.haarScaleFactor = factor;
+            return this;
+        }
+
+        public Builder haarMinNeighbors(int neighbors) {
+            this.haarMinNeighbors = neighbors;
+            return this;
+        }
+
+        /** Longest edge detection runs at (0 = full resolution). */
+        public Builder detectMaxEdge(int maxEdge) {
+            this.detectMaxEdge = Math.max(0, maxEdge);
+            return this;
+        }
+
+        public Builder haarScanMode(PlateDetector.HaarScanMode mode) {
+            this.haarScanMode = (mode == null) ? PlateDetector.HaarScanMode.EXHAUSTIVE : mode;
+            return this;
+        }
+
+        public Builder haarCoarseScaleFactor(double factor) {
+            this.haarCoarseScaleFactor = Math.max(1.01, factor);
+            return this;
+        }
+
+        /**
+         * Static region of interest at camera resolution. The mask is copied and
+         * binarized (non-zero = search), so the caller keeps ownership of its Mat.
+         *
+         * @param mask Single- or three-channel mask, or null for the whole frame
+         */
+        public Builder roiMask(Mat mask) {
+            if (mask == null || mask.empty()) {
+                this.roiMask = null;
+                return this;
+            }
+            Mat binary = new Mat();
+            if (mask.channels() > 1) {
+                Imgproc.cvtColor(mask, binary, Imgproc.COLOR_BGR2GRAY);
+            } else {
+                mask.copyTo(binary);
+            }
+            Imgproc.threshold(binary, binary, 127, 255, Imgproc.THRESH_BINARY);
+            this.roiMask = binary;
+            return this;
+        }
+
+        public Builder concurrentDetection(boolean concurrent) {
+            this.concurrentDetection = concurrent;
+            return this;
+        }
+
+        /** Copy the intermediate images into the {@link DetectionOutput} (for previews). */
+        public Builder captureIntermediates(boolean capture) {
+            this.captureIntermediates = capture;
+            return this;
+        }
+
+        public DetectionParams build() {
+            return new DetectionParams(this);
+        }
+    }
+}
@@ -6,8 +6,14 @@ import org.opencv.core.Rect;
 /**
  * DetectionResult - Container for plate detection results
  *
+ * <p>Immutable: bounds, method, confidence and the cropped plate are fixed at
+ * construction, so results can be handed between threads (OCR workers, the GUI)
+ * without copying. OCR text is not part of a detection; callers keep it next to
+ * the results (see {@link CandidateOcr#recognizeAll}). The only state change is
+ * {@link #release()}, which frees the crop's native buffer.</p>
+ *
  * @author ALPR Academic Project
- * @version 1.1 - Added cropped plate image for OCR
+ * @version 1.2 - Immutable; OCR text moved to the caller
  */
 public class DetectionResult {
 
@@ -32,23 +38,35 @@ public class DetectionResult {
     private final Rect bounds;
     private final MethodType method;
     private final double confidence;
-    private Mat croppedPlate;  // Cropped plate image for OCR
-    private String ocrResult;  // OCR result for this detection
+    private Mat croppedPlate;  // Cropped plate image for OCR; only cleared by release()
 
     public DetectionResult(Rect bounds, MethodType method) {
-        this(bounds, method, 1.0);
+        this(bounds, method, 1.0, null);
+    }
+
+    public DetectionResult(Rect bounds, MethodType method, Mat croppedPlate) {
+        this(bounds, method, 1.0, croppedPlate);
     }
 
     public DetectionResult(Rect bounds, MethodType method, double confidence) {
-        this.bounds = bounds;
+        this(bounds, method, confidence, null);
+    }
+
+    /**
+     * @param croppedPlate Plate crop for OCR, or null; the result takes ownership of it
+     */
+    public DetectionResult(Rect bounds, MethodType method, double confidence, Mat croppedPlate) {
+        this.bounds = bounds.clone();
         this.method = method;
         this.confidence = confidence;
-        this.ocrResult = null;
-        this.croppedPlate = null;
+        this.croppedPlate = croppedPlate;
     }
 
+    /**
+     * @return Copy of the bounding box
+     */
     public Rect getBounds() {
-        return bounds;
+        return bounds.clone();
     }
 
     public MethodType getMethod() {
@@ -59,20 +77,22 @@ public class DetectionResult {
         return confidence;
     }
 
+    /**
+     * @return The plate crop (read-only; shared with every holder of this result), or null
+     *         if there is none or it was released
+     */
     public Mat getCroppedPlate() {
         return croppedPlate;
     }
 
-    public void setCroppedPlate(Mat croppedPlate) {
-        this.croppedPlate = croppedPlate;
-    }
-
-    public String getOcrResult() {
-        return ocrResult;
-    }
-
-    public void setOcrResult(String ocrResult) {
-        this.ocrResult = ocrResult;
+    /**
+     * Frees the native buffer of the cropped plate. The bounds stay usable.
+     */
+    public void release() {
+        if (croppedPlate != null) {
+            croppedPlate.release();
+            croppedPlate = null;
+        }
     }
 
     /**
@@ -119,8 +139,7 @@ public class DetectionResult {
 
     @Override
     public String toString() {
-        return String.format("DetectionResult{method=%s, bounds=[%d,%d,%dx%d], ocr='%s'}",
-                method.name(), bounds.x, bounds.y, bounds.width, bounds.height,
-                ocrResult != null ? ocrResult : "N/A");
+        return String.format("DetectionResult{method=%s, bounds=[%d,%d,%dx%d]}",
+                method.name(), bounds.x, bounds.y, bounds.width, bounds.height);
     }
 }
@@ -0,0 +1,139 @@
+package com.alpr;
+
+import org.opencv.core.Mat;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * FrameSource - Sequential frames from a video file or an image sequence
+ *
+ * <p>Three kinds of input are accepted:</p>
+ * <ul>
+ *   <li>a video file, read with OpenCV {@link VideoCapture} (supported containers
+ *       depend on the OpenCV build; MJPEG AVI always works)</li>
+ *   <li>a printf-style image sequence such as {@code frames/img_%04d.jpg}, also read
+ *       by {@link VideoCapture}</li>
+ *   <li>a directory of images, read in file name order</li>
+ * </ul>
+ *
+ * <p>Every call to {@link #next()} returns a newly decoded BGR frame owned by the
+ * caller. Not thread-safe.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public class FrameSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(FrameSource.class);
+
+    private static final String[] IMAGE_EXTENSIONS = {".jpg", ".jpeg", ".png", ".bmp"};
+    private static final String[] VIDEO_EXTENSIONS = {".avi", ".mp4", ".mov", ".mkv", ".mjpg", ".mjpeg"};
+
+    private final String description;
+    private final VideoCapture capture;
+    private final File[] frames;
+    private int frameIndex = 0;
+
+    private FrameSource(String description, VideoCapture capture, File[] frames) {
+        this.description = description;
+        this.capture = capture;
+        this.frames = frames;
+    }
+
+    /**
+     * Opens a video file, an image sequence pattern or a directory of frames.
+     *
+     * @return The source, or null if the input could not be opened
+     */
+    public static FrameSource open(String path) {
+        File file = new File(path);
+        if (file.isDirectory()) {
+            File[] images = file.listFiles((dir, name) -> hasExtension(name, IMAGE_EXTENSIONS));
+            if (images == null || images.length == 0) {
+                log.error("No frames found in: {}", path);
+                return null;
+            }
+            Arrays.sort(images);
+            return new FrameSource(path + " (" + images.length + " frames)", null, images);
+        }
+
+        VideoCapture capture = new VideoCapture(path);
+        if (!capture.isOpened()) {
+            capture.release();
+            log.error("Could not open video: {}", path);
+            return null;
+        }
+        return new FrameSource(path, capture, null);
+    }
+
+    /**
+     * @return true if the path looks like something {@link #open(String)} reads as frames
+     */
+    public static boolean isFrameInput(String path) {
+        return path.contains("%") || hasExtension(path, VIDEO_EXTENSIONS);
+    }
+
+    private static boolean hasExtension(String name, String[] extensions) {
+        String lowerName = name.toLowerCase();
+        return Arrays.stream(extensions).anyMatch(lowerName::endsWith);
+    }
+
+    /**
+     * @return Next frame (caller owns it), or null at the end of the input
+     */
+    public Mat next() {
+        long start = System.nanoTime();
+        if (capture != null) {
+            Mat frame = new Mat();
+            if (!capture.read(frame) || frame.empty()) {
+                frame.release();
+                return null;
+            }
+            frameIndex++;
+            PipelineMetrics.get().recordSince(PipelineMetrics.IMAGE_LOAD, start);
+            return frame;
+        }
+
+        while (frameIndex < frames.length) {
+            File file = frames[frameIndex++];
+            Mat frame = DecodedImageCache.get().load(file.getAbsolutePath());
+            if (!frame.empty()) {
+                PipelineMetrics.get().recordSince(PipelineMetrics.IMAGE_LOAD, start);
+                return frame;
+            }
+            log.warn("Skipping unreadable frame: {}", file.getName());
+            frame.release();
+        }
+        return null;
+    }
+
+    /**
+     * @return Index of the frame last returned by {@link #next()} (0-based), or -1 before the first
+     */
+    public int getFrameIndex() {
+        return frameIndex - 1;
+    }
+
+    /**
+     * @return Frame rate reported by the container, or 0 when unknown (image sequences)
+     */
+    public double getFps() {
+        return capture != null ? capture.get(Videoio.CAP_PROP_FPS) : 0;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public void close() {
+        if (capture != null) {
+            capture.release();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.alpr;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram - Lock-free latency histogram with logarithmic buckets
+ *
+ * <p>Bucket upper bounds grow by 10% from 10 us up to about 30 minutes, so any
+ * percentile is reported with at most 10% relative error while recording stays a
+ * single atomic increment. Safe to record from many threads; percentiles read
+ * while recording is in progress are approximate.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public final class LatencyHistogram {
+
+    private static final double MIN_MICROS = 10.0;
+    private static final double GROWTH = 1.1;
+    private static final int BUCKETS = 200;
+    private static final double LOG_GROWTH = Math.log(GROWTH);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records one latency.
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketOf(nanos));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static int bucketOf(long nanos) {
+        double micros = nanos / 1000.0;
+        if (micros <= MIN_MICROS) return 0;
+        int bucket = (int) Math.ceil(Math.log(micros / MIN_MICROS) / LOG_GROWTH);
+        return Math.min(BUCKETS - 1, bucket);
+    }
+
+    private static double upperBoundMillis(int bucket) {
+        return MIN_MICROS * Math.pow(GROWTH, bucket) / 1000.0;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @param percentile Percentile in 0-100 (e.g. 99)
+     * @return Upper bound of the bucket holding that percentile in ms, or 0 when empty
+     */
+    public double getPercentileMillis(double percentile) {
+        long total = count.get();
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundMillis(i), getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    public double getMeanMillis() {
+        long total = count.get();
+        return total > 0 ? totalNanos.get() / 1_000_000.0 / total : 0;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * @return {"count":..,"mean":..,"p50":..,"p90":..,"p99":..,"max":..} in milliseconds
+     */
+    public String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"count\":%d,\"mean\":%.2f,\"p50\":%.2f,\"p90\":%.2f,\"p99\":%.2f,\"max\":%.2f}",
+                getCount(), getMeanMillis(), getPercentileMillis(50), getPercentileMillis(90),
+                getPercentileMillis(99), getMaxMillis());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.2fms p50=%.2fms p90=%.2fms p99=%.2fms max=%.2fms",
+                getCount(), getMeanMillis(), getPercentileMillis(50), getPercentileMillis(90),
+                getPercentileMillis(99), getMaxMillis());
+    }
+}
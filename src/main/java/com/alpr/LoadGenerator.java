@@ -0,0 +1,139 @@
+package com.alpr;
+
+import nu.pattern.OpenCV;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoadGenerator - Local load test for {@link RecognitionServer}
+ *
+ * <p>Sends the same image from {@code concurrency} client threads until
+ * {@code requests} requests are done, then prints throughput, status codes and
+ * client-side latency percentiles, followed by the server's {@code /metrics}.</p>
+ *
+ * <p>Usage: {@code LoadGenerator [http://localhost:8080] [--image path]
+ * [--concurrency 8] [--requests 200]}. Without {@code --image} a synthetic
+ * 1280x720 plate image from {@link TestImageGenerator} is used.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public class LoadGenerator {
+
+    static {
+        try {
+            OpenCV.loadLocally();
+        } catch (Exception e) {
+            System.err.println("[ERROR] Failed to load OpenCV: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = "http://localhost:8080";
+        String imagePath = null;
+        int concurrency = 8;
+        int totalRequests = 200;
+
+        for (int i = 0; i < args.length; i++) {
+            if ("--image".equals(args[i]) && i + 1 < args.length) {
+                imagePath = args[++i];
+            } else if ("--concurrency".equals(args[i]) && i + 1 < args.length) {
+                concurrency = Math.max(1, Integer.parseInt(args[++i]));
+            } else if ("--requests".equals(args[i]) && i + 1 < args.length) {
+                totalRequests = Math.max(1, Integer.parseInt(args[++i]));
+            } else if (!args[i].startsWith("--")) {
+                baseUrl = args[i].endsWith("/") ? args[i].substring(0, args[i].length() - 1) : args[i];
+            }
+        }
+
+        byte[] body = imagePath != null ? Files.readAllBytes(Paths.get(imagePath)) : syntheticImage();
+        System.out.println("[LOAD] Target: " + baseUrl + "/recognize");
+        System.out.println("[LOAD] Image: " + (imagePath != null ? imagePath : "synthetic 1280x720") +
+                          " (" + body.length / 1024 + " KB), concurrency: " + concurrency +
+                          ", requests: " + totalRequests);
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(concurrency))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/recognize"))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/octet-stream")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+
+        LatencyHistogram latency = new LatencyHistogram();
+        Map<Integer, AtomicLong> statusCounts = new ConcurrentHashMap<>();
+        AtomicInteger remaining = new AtomicInteger(totalRequests);
+        AtomicLong ioErrors = new AtomicLong();
+
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        for (int t = 0; t < concurrency; t++) {
+            clients.submit(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        latency.record(System.nanoTime() - sent);
+                        statusCounts.computeIfAbsent(response.statusCode(), k -> new AtomicLong()).incrementAndGet();
+                    } catch (IOException e) {
+                        ioErrors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(1, TimeUnit.HOURS);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.println();
+        System.out.println("==================== LOAD TEST ====================");
+        System.out.printf("Requests:    %d in %.2f s (%.1f req/s)%n", latency.getCount(), seconds,
+                latency.getCount() / seconds);
+        System.out.println("Status:      " + new TreeMap<>(statusCounts) +
+                          (ioErrors.get() > 0 ? ", I/O errors: " + ioErrors.get() : ""));
+        System.out.println("Latency:     " + latency);
+
+        try {
+            HttpRequest metrics = HttpRequest.newBuilder(URI.create(baseUrl + "/metrics")).GET().build();
+            System.out.println("Server:      " + client.send(metrics, HttpResponse.BodyHandlers.ofString()).body());
+        } catch (IOException e) {
+            System.out.println("Server:      metrics unavailable (" + e.getMessage() + ")");
+        }
+        System.out.println("===================================================");
+        System.exit(0);
+    }
+
+    private static byte[] syntheticImage() {
+        Mat image = TestImageGenerator.createTestImage(1280, 720);
+        MatOfByte encoded = new MatOfByte();
+        Imgcodecs.imencode(".jpg", image, encoded);
+        byte[] bytes = encoded.toArray();
+        image.release();
+        encoded.release();
+        return bytes;
+    }
+}
@@ -5,17 +5,27 @@ import org.opencv.core.Core;
 import org.opencv.core.Mat;
 import org.opencv.core.Scalar;
 import org.opencv.imgcodecs.Imgcodecs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Main - Entry Point for the ALPR (Automatic License Plate Recognition) System
@@ -36,18 +46,11 @@ import java.util.Properties;
  */
 public class Main {
 
+    private static final Logger log = LoggerFactory.getLogger(Main.class);
+
     private static final String[] IMAGE_EXTENSIONS = {".jpg", ".jpeg", ".png", ".bmp"};
     private static final String CONFIG_FILE = "alpr_config.properties";
 
-    // Debug statistics
-    private static int totalImages = 0;
-    private static int plateDetected = 0;
-    private static int exactMatch = 0;
-    private static int partialMatch = 0;
-    private static int totalCharacters = 0;
-    private static int matchedCharacters = 0;
-    private static List<DebugResult> debugResults = new ArrayList<>();
-
     // Current parameters (will be read from config file or detector defaults)
     private static int currentBlurKernel;
     private static int currentCannyT1;
@@ -56,6 +59,36 @@ public class Main {
     private static int currentDilateIter;
     private static double currentMinAR;
     private static double currentMaxAR;
+    private static int currentDetectMaxEdge;
+    private static PlateDetector.HaarScanMode currentHaarScanMode = PlateDetector.HaarScanMode.EXHAUSTIVE;
+    private static double currentHaarCoarseScale = 1.15;
+    private static String currentRoiMaskPath;
+    private static boolean currentConcurrentDetection;
+    private static int currentTrackMaxMissed = 5;
+    private static int currentOcrCacheSize = 0;
+    private static int currentOcrCacheDistance = 12;
+    private static long currentOcrCacheTtlSeconds = 300;
+    private static long currentMetricsIntervalSeconds = 0;
+    private static String currentMetricsFile;
+    private static String currentResultsFile;
+    private static boolean currentResume;
+
+    /**
+     * Rows kept in memory for the summary table; the full list is streamed by {@link ResultSink}.
+     */
+    private static final int SUMMARY_TABLE_ROWS = 200;
+
+    /**
+     * OCR service shared by all workers; its engine pool is sized to the worker count.
+     */
+    private static OcrService sharedOcrService;
+
+    /**
+     * One detector per worker thread, reused across the whole batch.
+     * Avoids re-parsing the Haar cascade per image.
+     */
+    private static final ThreadLocal<PipelineContext> PIPELINE_CONTEXT =
+        ThreadLocal.withInitial(() -> new PipelineContext(Main::applyCurrentParameters, sharedOcrService));
 
     /**
      * Static initializer to load OpenCV native libraries.
@@ -63,9 +96,9 @@ public class Main {
     static {
         try {
             OpenCV.loadLocally();
-            System.out.println("[INFO] OpenCV loaded successfully");
+            log.info("OpenCV loaded successfully");
         } catch (Exception e) {
-            System.err.println("[ERROR] Failed to load OpenCV: " + e.getMessage());
+            log.error("Failed to load OpenCV: {}", e.getMessage());
             System.exit(1);
         }
     }
@@ -81,7 +114,7 @@ public class Main {
         File configFile = new File(CONFIG_FILE);
 
         if (!configFile.exists()) {
-            System.out.println("[CONFIG] Config file not found, using defaults");
+            log.info("Config file not found, using defaults");
             return false;
         }
 
@@ -97,37 +130,104 @@ public class Main {
             currentDilateIter = Integer.parseInt(props.getProperty("dilate.iterations", "2"));
             currentMinAR = Double.parseDouble(props.getProperty("aspect.ratio.min", "2.0"));
             currentMaxAR = Double.parseDouble(props.getProperty("aspect.ratio.max", "7.0"));
+            currentDetectMaxEdge = Integer.parseInt(props.getProperty("detect.max.edge", "0"));
+            currentHaarScanMode = parseHaarScanMode(props.getProperty("haar.scan.mode", "exhaustive"));
+            currentHaarCoarseScale = Double.parseDouble(props.getProperty("haar.coarse.scale", "1.15"));
+            currentRoiMaskPath = props.getProperty("detect.roi.mask");
+            currentConcurrentDetection = Boolean.parseBoolean(props.getProperty("detect.concurrent", "false"));
+            currentTrackMaxMissed = Integer.parseInt(props.getProperty("track.max.missed", "5"));
+            currentOcrCacheSize = Integer.parseInt(props.getProperty("ocr.cache.size", "0"));
+            currentOcrCacheDistance = Integer.parseInt(props.getProperty("ocr.cache.max.distance", "12"));
+            currentOcrCacheTtlSeconds = Long.parseLong(props.getProperty("ocr.cache.ttl.seconds", "300"));
+            currentMetricsIntervalSeconds = Long.parseLong(props.getProperty("metrics.interval.seconds", "0"));
+            currentMetricsFile = props.getProperty("metrics.file");
+            currentResultsFile = props.getProperty("results.file");
+
+            // Debug image output (background writer)
+            DebugImageWriter debugWriter = DebugImageWriter.get();
+            debugWriter.setEnabled(Boolean.parseBoolean(
+                props.getProperty("debug.enabled", String.valueOf(debugWriter.isEnabled()))));
+            debugWriter.setSampleRate(Integer.parseInt(
+                props.getProperty("debug.sample.rate", String.valueOf(debugWriter.getSampleRate()))));
+
+            // Decoded-image cache for repeated runs over the same files
+            DecodedImageCache frameCache = DecodedImageCache.get();
+            String frameCacheDir = props.getProperty("frame.cache.dir");
+            if (frameCacheDir != null) {
+                frameCache.setDirectory(frameCacheDir);
+            }
+            frameCache.setMaxEdge(Integer.parseInt(
+                props.getProperty("frame.cache.max.edge", String.valueOf(frameCache.getMaxEdge()))));
 
             // Apply to detector
-            detector.setBlurKernel(currentBlurKernel);
-            detector.setCannyThreshold1(currentCannyT1);
-            detector.setCannyThreshold2(currentCannyT2);
-            detector.setDilateKernelSize(currentDilateKernel);
-            detector.setDilateIterations(currentDilateIter);
-            detector.setMinAspectRatio(currentMinAR);
-            detector.setMaxAspectRatio(currentMaxAR);
-
-            System.out.println("[CONFIG] Loaded configuration from: " + CONFIG_FILE);
+            applyCurrentParameters(detector);
+
+            log.info("Loaded configuration from: {}", CONFIG_FILE);
             return true;
 
         } catch (Exception e) {
-            System.err.println("[CONFIG] Error loading config: " + e.getMessage());
-            System.out.println("[CONFIG] Using default values");
+            log.error("Error loading config: {}. Using default values", e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Detection parameters from {@code alpr_config.properties}, or the defaults when
+     * there is no config file. For entry points that use the stateless
+     * {@link DetectionEngine} instead of a {@link PlateDetector}.
+     */
+    static DetectionParams loadConfiguredParams() {
+        PlateDetector detector = new PlateDetector();
+        loadConfigFromFile(detector);
+        return detector.getParams();
+    }
+
+    /**
+     * Applies the currently loaded parameter values to a detector.
+     *
+     * @param detector The PlateDetector instance to configure
+     */
+    static void applyCurrentParameters(PlateDetector detector) {
+        detector.setBlurKernel(currentBlurKernel);
+        detector.setCannyThreshold1(currentCannyT1);
+        detector.setCannyThreshold2(currentCannyT2);
+        detector.setDilateKernelSize(currentDilateKernel);
+        detector.setDilateIterations(currentDilateIter);
+        detector.setMinAspectRatio(currentMinAR);
+        detector.setMaxAspectRatio(currentMaxAR);
+        detector.setDetectMaxEdge(currentDetectMaxEdge);
+        detector.setHaarScanMode(currentHaarScanMode);
+        detector.setHaarCoarseScaleFactor(currentHaarCoarseScale);
+        detector.setConcurrentDetection(currentConcurrentDetection);
+        if (currentRoiMaskPath != null && !currentRoiMaskPath.isEmpty()) {
+            detector.loadRoiMask(currentRoiMaskPath);
+        }
+    }
+
+    /**
+     * Parses a Haar scan mode name such as "exhaustive" or "coarse-to-fine".
+     */
+    static PlateDetector.HaarScanMode parseHaarScanMode(String value) {
+        return PlateDetector.HaarScanMode.valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+
     /**
      * Application entry point.
      *
-     * @param args Command-line arguments. args[0] = image path (optional)
+     * @param args Command-line arguments: [image or directory path] [--threads N]
+     *             [--no-debug] [--debug-sample N] [--detect-max-edge N]
+     *             [--haar-scan exhaustive|coarse-to-fine] [--roi-mask mask.png]
+     *             [--concurrent-detect] [--video] [--track-max-missed N]
+     *             [--ocr-cache N] [--ocr-cache-distance N] [--ocr-cache-ttl S]
+     *             [--metrics-interval S] [--metrics-file alpr_metrics.prom]
+     *             [--results-file results.csv|results.jsonl] [--resume]
+     *             [--frame-cache dir] [--frame-cache-max-edge N]
      */
     public static void main(String[] args) {
         System.out.println("==============================================");
         System.out.println("  ALPR - Automatic License Plate Recognition  ");
         System.out.println("==============================================");
-        System.out.println("[INFO] OpenCV Version: " + Core.VERSION);
-        System.out.println();
+        log.info("OpenCV version: {}", Core.VERSION);
 
         // Initialize detector
         PlateDetector tempDetector = new PlateDetector();
@@ -142,89 +242,265 @@ public class Main {
             currentDilateIter = tempDetector.getDilateIterations();
             currentMinAR = tempDetector.getMinAspectRatio();
             currentMaxAR = tempDetector.getMaxAspectRatio();
+            currentDetectMaxEdge = tempDetector.getDetectMaxEdge();
         }
 
-        // Determine input path (file or directory)
-        String inputPath = args.length > 0 ? args[0] : "src/plates";
+        // Determine input path (file or directory) and worker count
+        String inputPath = "src/plates";
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean videoMode = false;
+        for (int i = 0; i < args.length; i++) {
+            if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            } else if ("--no-debug".equals(args[i])) {
+                DebugImageWriter.get().setEnabled(false);
+            } else if ("--debug-sample".equals(args[i]) && i + 1 < args.length) {
+                DebugImageWriter.get().setSampleRate(Integer.parseInt(args[++i]));
+            } else if ("--detect-max-edge".equals(args[i]) && i + 1 < args.length) {
+                currentDetectMaxEdge = Math.max(0, Integer.parseInt(args[++i]));
+            } else if ("--haar-scan".equals(args[i]) && i + 1 < args.length) {
+                currentHaarScanMode = parseHaarScanMode(args[++i]);
+            } else if ("--roi-mask".equals(args[i]) && i + 1 < args.length) {
+                currentRoiMaskPath = args[++i];
+            } else if ("--concurrent-detect".equals(args[i])) {
+                currentConcurrentDetection = true;
+            } else if ("--video".equals(args[i])) {
+                videoMode = true;
+            } else if ("--track-max-missed".equals(args[i]) && i + 1 < args.length) {
+                currentTrackMaxMissed = Math.max(0, Integer.parseInt(args[++i]));
+            } else if ("--ocr-cache".equals(args[i]) && i + 1 < args.length) {
+                currentOcrCacheSize = Math.max(0, Integer.parseInt(args[++i]));
+            } else if ("--ocr-cache-distance".equals(args[i]) && i + 1 < args.length) {
+                currentOcrCacheDistance = Math.max(0, Integer.parseInt(args[++i]));
+            } else if ("--ocr-cache-ttl".equals(args[i]) && i + 1 < args.length) {
+                currentOcrCacheTtlSeconds = Math.max(0, Long.parseLong(args[++i]));
+            } else if ("--metrics-interval".equals(args[i]) && i + 1 < args.length) {
+                currentMetricsIntervalSeconds = Math.max(0, Long.parseLong(args[++i]));
+            } else if ("--metrics-file".equals(args[i]) && i + 1 < args.length) {
+                currentMetricsFile = args[++i];
+            } else if ("--results-file".equals(args[i]) && i + 1 < args.length) {
+                currentResultsFile = args[++i];
+            } else if ("--resume".equals(args[i])) {
+                currentResume = true;
+            } else if ("--frame-cache".equals(args[i]) && i + 1 < args.length) {
+                DecodedImageCache.get().setDirectory(args[++i]);
+            } else if ("--frame-cache-max-edge".equals(args[i]) && i + 1 < args.length) {
+                DecodedImageCache.get().setMaxEdge(Integer.parseInt(args[++i]));
+            } else {
+                inputPath = args[i];
+            }
+        }
         File input = new File(inputPath);
 
-        if (input.isDirectory()) {
+        PipelineMetrics metrics = PipelineMetrics.get();
+        if (currentMetricsIntervalSeconds > 0) {
+            metrics.startPeriodicSummary(currentMetricsIntervalSeconds, currentMetricsFile);
+        }
+
+        OcrEnginePool enginePool = new OcrEnginePool(OcrEnginePool.Config.defaults(null), threads);
+        sharedOcrService = new OcrService(enginePool);
+        OcrResultCache ocrCache = null;
+        if (currentOcrCacheSize > 0) {
+            // Near-duplicate crops (parked cars, repeated frames) reuse earlier OCR results
+            ocrCache = new OcrResultCache(currentOcrCacheSize, currentOcrCacheDistance,
+                    TimeUnit.SECONDS.toMillis(currentOcrCacheTtlSeconds));
+            sharedOcrService.setResultCache(ocrCache);
+        }
+
+        if (videoMode || FrameSource.isFrameInput(inputPath)) {
+            // Video file, image sequence pattern or (with --video) a directory of frames
+            processVideo(inputPath);
+        } else if (input.isDirectory()) {
             // Process all images in directory
-            processDirectory(input);
+            processDirectory(input, threads);
         } else if (input.isFile()) {
             // Process single image
-            processAndPrintResult(input.getAbsolutePath());
-            printFinalSummary();
-            exportResultsToCSV();
+            processImages(new File[]{input}, 1);
         } else {
-            System.err.println("[ERROR] Invalid path: " + inputPath);
+            log.error("Invalid path: {}", inputPath);
+        }
+
+        log.info("OCR pool: {}", enginePool.getStats());
+        if (ocrCache != null) {
+            log.info("OCR cache: {}", ocrCache.getStats());
+        }
+        if (DecodedImageCache.get().isEnabled()) {
+            log.info("Frame cache: {}", DecodedImageCache.get().getStats());
+        }
+
+        metrics.stopPeriodicSummary();
+        System.out.println("[METRICS] Stage timings:");
+        System.out.print(metrics.formatSummary());
+        if (currentMetricsFile != null && !currentMetricsFile.isEmpty()) {
+            metrics.writePrometheus(currentMetricsFile);
+            log.info("Prometheus metrics written to: {}", currentMetricsFile);
+        }
+        enginePool.close();
+
+        DebugImageWriter debugWriter = DebugImageWriter.get();
+        if (debugWriter.isEnabled()) {
+            debugWriter.flush(30, TimeUnit.SECONDS);
+            log.info("Debug images written: {}, dropped: {}", debugWriter.getWrittenCount(),
+                debugWriter.getDroppedCount());
+        }
+    }
+
+    /**
+     * Processes a video or frame sequence with plate tracking: OCR runs only for
+     * new plates and improved crops, and each plate is reported once.
+     */
+    private static void processVideo(String inputPath) {
+        try (FrameSource source = FrameSource.open(inputPath)) {
+            if (source == null) return;
+
+            PlateTracker tracker = new PlateTracker();
+            tracker.setMaxMissedFrames(currentTrackMaxMissed);
+            VideoProcessor processor = new VideoProcessor(PIPELINE_CONTEXT.get(), tracker);
+            processor.run(source);
+            processor.printSummary();
+            processor.exportTracksToCSV();
         }
     }
 
     /**
-     * Processes all images in a directory.
+     * Processes all images in a directory using a pool of worker threads.
+     * Each worker owns its own detector/OCR pair (see {@link #PIPELINE_CONTEXT}).
      */
-    private static void processDirectory(File directory) {
+    private static void processDirectory(File directory, int threads) {
         File[] imageFiles = directory.listFiles((dir, name) -> {
             String lowerName = name.toLowerCase();
             return Arrays.stream(IMAGE_EXTENSIONS).anyMatch(lowerName::endsWith);
         });
 
         if (imageFiles == null || imageFiles.length == 0) {
-            System.err.println("[ERROR] No image files found in: " + directory.getPath());
+            log.error("No image files found in: {}", directory.getPath());
             return;
         }
 
-        System.out.println("[INFO] Found " + imageFiles.length + " images in: " + directory.getPath());
-        System.out.println();
+        log.info("Found {} images in: {} (worker threads: {})", imageFiles.length, directory.getPath(), threads);
+
+        // Parallelism comes from the workers; avoid oversubscribing cores with OpenCV's own pool
+        if (threads > 1) {
+            Core.setNumThreads(1);
+        }
 
+        processImages(imageFiles, threads);
+    }
+
+    /**
+     * Runs the given images on a pool of worker threads. Each result is appended to
+     * the results file as soon as it is ready, and the file is sorted by name when the
+     * run ends; with {@code --resume}, images already in that file are skipped and
+     * their rows count towards the summary.
+     */
+    private static void processImages(File[] imageFiles, int threads) {
+        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+        BatchStatistics stats = new BatchStatistics(SUMMARY_TABLE_ROWS);
+
+        ResultSink sink = openResultSink(timestamp, stats);
+        if (sink == null) return;
+
+        List<File> pending = new ArrayList<>();
         for (File imageFile : imageFiles) {
-            System.out.println("----------------------------------------------");
-            processAndPrintResult(imageFile.getAbsolutePath());
-            System.out.println();
+            if (!sink.getCompletedFiles().contains(imageFile.getName())) {
+                pending.add(imageFile);
+            }
         }
+        if (pending.size() < imageFiles.length) {
+            log.info("Skipping {} image(s) already in {}, {} left", imageFiles.length - pending.size(),
+                sink.getPath(), pending.size());
+        }
+
+        AtomicInteger workerIds = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "alpr-worker-" + workerIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (File imageFile : pending) {
+            futures.add(workers.submit(() -> processAndPrintResult(imageFile.getAbsolutePath(), stats, sink)));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                log.error("Failed to process {}", pending.get(i).getName(), e.getCause());
+            }
+        }
+        workers.shutdownNow();
+        sink.close();
+        log.info("Results written to: {} ({} new row(s))", sink.getPath(), sink.getWrittenCount());
 
         // Print final summary
-        printFinalSummary();
-        exportResultsToCSV();
+        printFinalSummary(stats);
+        exportSummaryRow(timestamp, stats);
+    }
+
+    /**
+     * Opens the streaming results file: {@code --results-file} if given, otherwise
+     * a new {@code alpr_results_<timestamp>.csv}. A new file starts with the
+     * parameter block, as the end-of-run export did; a resumed file must have the
+     * same block.
+     *
+     * @return The sink, or null if the file cannot be opened or was written with other parameters
+     */
+    private static ResultSink openResultSink(String timestamp, BatchStatistics stats) {
+        String path = currentResultsFile;
+        if (path == null || path.isEmpty()) {
+            if (currentResume) {
+                log.warn("--resume needs --results-file; starting a new results file");
+            }
+            path = "alpr_results_" + timestamp + ".csv";
+        }
+
+        List<String> preamble = Arrays.asList(
+            "BlurKernel;CannyT1;CannyT2;DilateKernel;DilateIter;MinAR;MaxAR",
+            String.format("%d;%d;%d;%d;%d;%.1f;%.1f",
+                currentBlurKernel, currentCannyT1, currentCannyT2,
+                currentDilateKernel, currentDilateIter, currentMinAR, currentMaxAR),
+            "");
+
+        try {
+            return new ResultSink(path, currentResume, preamble, stats::record, 1000);
+        } catch (IOException e) {
+            log.error("Failed to open results file {}: {}", path, e.getMessage());
+            return null;
+        }
     }
 
     /**
-     * Processes a single image and prints the result.
+     * Processes a single image, prints the result and appends it to the results file.
      */
-    private static String processAndPrintResult(String imagePath) {
-        totalImages++;
+    private static String processAndPrintResult(String imagePath, BatchStatistics stats, ResultSink sink) {
         File imageFile = new File(imagePath);
         String fileName = imageFile.getName();
         String expectedPlate = extractExpectedPlate(fileName);
 
-        System.out.println("[INPUT] Image: " + fileName);
-        System.out.println("[EXPECTED] Plate: " + (expectedPlate.isEmpty() ? "(unknown)" : expectedPlate));
-
         DebugResult result = processImage(imagePath, expectedPlate);
-        debugResults.add(result);
-
-        if (result.detected) {
-            plateDetected++;
-            System.out.println("[OCR RESULT] " + result.ocrResult);
-
-            if (!expectedPlate.isEmpty()) {
-                if (result.ocrResult.equals(expectedPlate)) {
-                    exactMatch++;
-                    System.out.println("[MATCH] ✓ EXACT MATCH!");
-                } else {
-                    int matched = countMatchingChars(expectedPlate, result.ocrResult);
-                    if (matched > 0) {
-                        partialMatch++;
-                        System.out.println("[MATCH] ~ PARTIAL: " + matched + "/" + expectedPlate.length() + " chars");
-                    } else {
-                        System.out.println("[MATCH] ✗ NO MATCH");
-                    }
-                }
-            }
+        int matched = stats.record(result);
+        sink.write(result);
+
+        // One line per image, so parallel workers never interleave a result
+        String outcome;
+        if (!result.detected) {
+            outcome = "✗ no plate detected";
+        } else if (expectedPlate.isEmpty()) {
+            outcome = "read";
+        } else if (result.ocrResult.equals(expectedPlate)) {
+            outcome = "✓ exact match";
+        } else if (matched > 0) {
+            outcome = "~ partial: " + matched + "/" + expectedPlate.length() + " chars";
         } else {
-            System.out.println("[RESULT] ✗ No plate detected");
+            outcome = "✗ no match";
         }
+        log.info("{}: expected {}, OCR {} ({})", fileName, expectedPlate.isEmpty() ? "(unknown)" : expectedPlate,
+                result.detected ? result.ocrResult : "-", outcome);
 
         return result.ocrResult;
     }
@@ -233,7 +509,7 @@ public class Main {
      * Extracts expected plate number from filename.
      * Assumes filename format: PLATENUM.jpg or PLATENUM_variant.jpg
      */
-    private static String extractExpectedPlate(String fileName) {
+    static String extractExpectedPlate(String fileName) {
         // Remove extension
         String name = fileName.replaceAll("\\.[^.]+$", "");
         // Remove variant suffix (e.g., _1, _2, _3)
@@ -243,37 +519,22 @@ public class Main {
     }
 
     /**
-     * Count matching characters between expected and actual plates.
+     * Processes an image through the full ALPR pipeline using the current thread's context.
      */
-    private static int countMatchingChars(String expected, String actual) {
-        if (expected == null || actual == null) return 0;
-
-        int matches = 0;
-        int minLen = Math.min(expected.length(), actual.length());
-
-        // Count positional matches
-        for (int i = 0; i < minLen; i++) {
-            if (expected.charAt(i) == actual.charAt(i)) {
-                matches++;
-            }
-        }
-
-        totalCharacters += expected.length();
-        matchedCharacters += matches;
-
-        return matches;
+    private static DebugResult processImage(String imagePath, String expectedPlate) {
+        return processImage(PIPELINE_CONTEXT.get(), imagePath, expectedPlate);
     }
 
     /**
-     * Processes an image through the full ALPR pipeline.
+     * Processes an image through the full ALPR pipeline with the given reusable context.
      */
-    private static DebugResult processImage(String imagePath, String expectedPlate) {
+    static DebugResult processImage(PipelineContext context, String imagePath, String expectedPlate) {
         DebugResult result = new DebugResult();
         result.fileName = new File(imagePath).getName();
         result.expectedPlate = expectedPlate;
 
-        PlateDetector detector = new PlateDetector();
-        OcrService ocrService = new OcrService();
+        context.beginImage();
+        PlateDetector detector = context.getDetector();
 
         // Step 1: Preprocess
         Mat edgeImage = detector.preprocessImageWithOriginal(imagePath);
@@ -295,17 +556,18 @@ public class Main {
             }
         }
 
-        // Step 3: OCR on all detections
+        // Step 3: OCR on all detections in parallel, stop once one is a perfect match
+        String debugName = detector.isDebugSampled() ? detector.getCurrentImageName() : null;
+        Map<DetectionResult, String> reads = context.getCandidateOcr().recognizeAll(detections,
+            debugName, text -> isPerfectMatch(text, expectedPlate));
+        log.debug("OCR read {} of {} detection(s)", reads.size(), detections.size());
+
         String bestResult = "";
         int bestScore = 0;
 
         for (DetectionResult det : detections) {
-            Mat plate = det.getCroppedPlate();
-            if (plate == null || plate.empty()) continue;
-
-            String ocrText = ocrService.recognizePlate(plate,
-                detector.getCurrentImageName() + "_" + det.getMethod().name().toLowerCase());
-            det.setOcrResult(ocrText);
+            String ocrText = reads.get(det);
+            if (ocrText == null) continue;
 
             int score = calculateScore(ocrText, expectedPlate);
             if (score > bestScore) {
@@ -323,7 +585,7 @@ public class Main {
         if (resultImage != null && !resultImage.empty()) {
             String outputPath = "result_" + result.fileName;
             Imgcodecs.imwrite(outputPath, resultImage);
-            System.out.println("[OUTPUT] Saved: " + outputPath);
+            log.debug("Saved: {}", outputPath);
         }
 
         return result;
@@ -332,7 +594,7 @@ public class Main {
     /**
      * Calculate OCR result score based on Turkish plate format and match with expected.
      */
-    private static int calculateScore(String text, String expected) {
+    static int calculateScore(String text, String expected) {
         if (text == null || text.isEmpty()) return 0;
 
         int score = text.length(); // Base score
@@ -362,10 +624,20 @@ public class Main {
         return score;
     }
 
+    /**
+     * A candidate that earns the full format bonus in {@link #calculateScore} and,
+     * when the expected plate is known, the exact-match bonus too. Remaining
+     * candidates of the image are not worth OCR'ing after such a result.
+     */
+    static boolean isPerfectMatch(String text, String expected) {
+        if (!CandidateOcr.isPlateFormat(text)) return false;
+        return expected == null || expected.isEmpty() || text.equals(expected);
+    }
+
     /**
      * Print final debug summary.
      */
-    private static void printFinalSummary() {
+    private static void printFinalSummary(BatchStatistics stats) {
         System.out.println();
         System.out.println("══════════════════════════════════════════════════════════════════");
         System.out.println("                      ALPR DEBUG SUMMARY                          ");
@@ -390,21 +662,19 @@ public class Main {
         System.out.println("┌─────────────────────────────────────────────────────────────────┐");
         System.out.println("│                     OVERALL STATISTICS                         │");
         System.out.println("├─────────────────────────────────────────────────────────────────┤");
-        System.out.printf("│  Total Images Processed:    %-36d │%n", totalImages);
-        System.out.printf("│  Plates Detected:           %-36d │%n", plateDetected);
-        System.out.printf("│  Detection Rate:            %-35.1f%% │%n",
-            totalImages > 0 ? (plateDetected * 100.0 / totalImages) : 0);
+        System.out.printf("│  Total Images Processed:    %-36d │%n", stats.getTotalImages());
+        System.out.printf("│  Plates Detected:           %-36d │%n", stats.getPlateDetected());
+        System.out.printf("│  Detection Rate:            %-35.1f%% │%n", stats.getDetectionRate());
         System.out.println("├─────────────────────────────────────────────────────────────────┤");
-        System.out.printf("│  Exact Matches:             %-36d │%n", exactMatch);
-        System.out.printf("│  Partial Matches:           %-36d │%n", partialMatch);
-        System.out.printf("│  No Match:                  %-36d │%n", plateDetected - exactMatch - partialMatch);
-        System.out.printf("│  Accuracy (Exact):          %-35.1f%% │%n",
-            totalImages > 0 ? (exactMatch * 100.0 / totalImages) : 0);
+        System.out.printf("│  Exact Matches:             %-36d │%n", stats.getExactMatch());
+        System.out.printf("│  Partial Matches:           %-36d │%n", stats.getPartialMatch());
+        System.out.printf("│  No Match:                  %-36d │%n",
+            stats.getPlateDetected() - stats.getExactMatch() - stats.getPartialMatch());
+        System.out.printf("│  Accuracy (Exact):          %-35.1f%% │%n", stats.getExactAccuracy());
         System.out.println("├─────────────────────────────────────────────────────────────────┤");
-        System.out.printf("│  Total Characters:          %-36d │%n", totalCharacters);
-        System.out.printf("│  Matched Characters:        %-36d │%n", matchedCharacters);
-        System.out.printf("│  Character Accuracy:        %-35.1f%% │%n",
-            totalCharacters > 0 ? (matchedCharacters * 100.0 / totalCharacters) : 0);
+        System.out.printf("│  Total Characters:          %-36d │%n", stats.getTotalCharacters());
+        System.out.printf("│  Matched Characters:        %-36d │%n", stats.getMatchedCharacters());
+        System.out.printf("│  Character Accuracy:        %-35.1f%% │%n", stats.getCharAccuracy());
         System.out.println("└─────────────────────────────────────────────────────────────────┘");
         System.out.println();
 
@@ -413,7 +683,8 @@ public class Main {
         System.out.println("│ File               │ Expected      │ OCR Result    │ Haar │ Geo  │ Status │");
         System.out.println("├────────────────────┼───────────────┼───────────────┼──────┼──────┼────────┤");
 
-        for (DebugResult result : debugResults) {
+        List<DebugResult> sortedResults = stats.getSortedResults();
+        for (DebugResult result : sortedResults) {
             String fileName = truncate(result.fileName, 18);
             String expected = truncate(result.expectedPlate, 13);
             String ocr = truncate(result.ocrResult, 13);
@@ -424,89 +695,20 @@ public class Main {
         }
 
         System.out.println("└────────────────────┴───────────────┴───────────────┴──────┴──────┴────────┘");
+        if (sortedResults.size() < stats.getTotalImages()) {
+            System.out.printf("(showing %d of %d results; see the results file for all)%n",
+                sortedResults.size(), stats.getTotalImages());
+        }
         System.out.println();
         System.out.println("Legend: ✓ = Exact Match, ~ = Partial Match, ✗ = No Match/Detection");
         System.out.println("══════════════════════════════════════════════════════════════════");
     }
 
-    /**
-     * Export results to CSV file for Excel analysis.
-     * Uses semicolon as delimiter for better Excel compatibility.
-     */
-    private static void exportResultsToCSV() {
-        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-        String csvFileName = "alpr_results_" + timestamp + ".csv";
-
-        try (PrintWriter writer = new PrintWriter(new FileWriter(csvFileName))) {
-            // Write BOM for UTF-8 Excel compatibility
-            writer.print('\ufeff');
-
-            // Write parameters as structured data (header + values)
-            writer.println("BlurKernel;CannyT1;CannyT2;DilateKernel;DilateIter;MinAR;MaxAR");
-            writer.printf("%d;%d;%d;%d;%d;%.1f;%.1f%n",
-                currentBlurKernel, currentCannyT1, currentCannyT2,
-                currentDilateKernel, currentDilateIter, currentMinAR, currentMaxAR);
-            writer.println();
-
-            // Write summary as structured data (header + values)
-            writer.println("TotalImages;PlatesDetected;DetectionRate;ExactMatches;PartialMatches;ExactAccuracy;CharAccuracy");
-            writer.printf("%d;%d;%.1f;%d;%d;%.1f;%.1f%n",
-                totalImages, plateDetected,
-                totalImages > 0 ? (plateDetected * 100.0 / totalImages) : 0,
-                exactMatch, partialMatch,
-                totalImages > 0 ? (exactMatch * 100.0 / totalImages) : 0,
-                totalCharacters > 0 ? (matchedCharacters * 100.0 / totalCharacters) : 0);
-            writer.println();
-
-            // Write detailed results header
-            writer.println("FileName;Expected;OCRResult;HaarCount;GeoCount;Detected;ExactMatch;PartialMatch;MatchedChars;TotalChars;BestMethod");
-
-            // Write data rows
-            for (DebugResult result : debugResults) {
-                int matchedChars = 0;
-                int totalChars = result.expectedPlate.length();
-                if (!result.expectedPlate.isEmpty() && !result.ocrResult.isEmpty()) {
-                    int minLen = Math.min(result.expectedPlate.length(), result.ocrResult.length());
-                    for (int i = 0; i < minLen; i++) {
-                        if (result.expectedPlate.charAt(i) == result.ocrResult.charAt(i)) {
-                            matchedChars++;
-                        }
-                    }
-                }
-
-                boolean isExact = result.ocrResult.equals(result.expectedPlate);
-                boolean isPartial = !isExact && matchedChars > 0;
-
-                writer.println(String.join(";",
-                    result.fileName,
-                    result.expectedPlate,
-                    result.ocrResult,
-                    String.valueOf(result.haarCount),
-                    String.valueOf(result.geoCount),
-                    result.detected ? "YES" : "NO",
-                    isExact ? "YES" : "NO",
-                    isPartial ? "YES" : "NO",
-                    String.valueOf(matchedChars),
-                    String.valueOf(totalChars),
-                    result.bestMethod
-                ));
-            }
-
-            System.out.println("[CSV] Results exported to: " + csvFileName);
-
-        } catch (Exception e) {
-            System.err.println("[ERROR] Failed to export CSV: " + e.getMessage());
-        }
-
-        // Also export a summary row for parameter comparison
-        exportSummaryRow(timestamp);
-    }
-
     /**
      * Export a single summary row for comparing different parameter configurations.
      * Uses semicolon as delimiter for Excel compatibility.
      */
-    private static void exportSummaryRow(String timestamp) {
+    private static void exportSummaryRow(String timestamp, BatchStatistics stats) {
         String summaryFileName = "alpr_summary.csv";
         File summaryFile = new File(summaryFileName);
         boolean writeHeader = !summaryFile.exists() || summaryFile.length() == 0;
@@ -528,19 +730,19 @@ public class Main {
                 String.valueOf(currentDilateIter),
                 String.format("%.1f", currentMinAR),
                 String.format("%.1f", currentMaxAR),
-                String.valueOf(totalImages),
-                String.valueOf(plateDetected),
-                String.format("%.1f", totalImages > 0 ? (plateDetected * 100.0 / totalImages) : 0),
-                String.valueOf(exactMatch),
-                String.valueOf(partialMatch),
-                String.format("%.1f", totalImages > 0 ? (exactMatch * 100.0 / totalImages) : 0),
-                String.format("%.1f", totalCharacters > 0 ? (matchedCharacters * 100.0 / totalCharacters) : 0)
+                String.valueOf(stats.getTotalImages()),
+                String.valueOf(stats.getPlateDetected()),
+                String.format("%.1f", stats.getDetectionRate()),
+                String.valueOf(stats.getExactMatch()),
+                String.valueOf(stats.getPartialMatch()),
+                String.format("%.1f", stats.getExactAccuracy()),
+                String.format("%.1f", stats.getCharAccuracy())
             ));
 
-            System.out.println("[CSV] Summary appended to: " + summaryFileName);
+            log.info("Summary appended to: {}", summaryFileName);
 
         } catch (Exception e) {
-            System.err.println("[ERROR] Failed to append summary: " + e.getMessage());
+            log.error("Failed to append summary: {}", e.getMessage());
         }
     }
 
@@ -562,17 +764,4 @@ public class Main {
         }
         return "✗";
     }
-
-    /**
-     * Debug result container.
-     */
-    private static class DebugResult {
-        String fileName = "";
-        String expectedPlate = "";
-        String ocrResult = "";
-        boolean detected = false;
-        int haarCount = 0;
-        int geoCount = 0;
-        String bestMethod = "";
-    }
 }
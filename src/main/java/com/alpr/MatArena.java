@@ -0,0 +1,88 @@
+package com.alpr;
+
+import org.opencv.core.Mat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MatArena - Scoped owner for temporary OpenCV Mats
+ *
+ * <p>OpenCV Mats hold native memory that the JVM does not see. Without an
+ * explicit {@code release()} it is only freed when the GC finalizes the Java
+ * wrapper, which on long batch runs lets native RSS grow far beyond the heap.
+ * An arena collects every intermediate Mat of one processing scope and frees all
+ * of them deterministically when the scope closes:</p>
+ *
+ * <pre>
+ * try (MatArena arena = new MatArena()) {
+ *     Mat tmp = arena.newMat();
+ *     ...
+ *     return arena.keep(result);   // escapes the scope, caller owns it
+ * }
+ * </pre>
+ *
+ * <p>Not thread-safe; use one arena per thread and scope.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public final class MatArena implements AutoCloseable {
+
+    private final List<Mat> owned = new ArrayList<>();
+
+    /**
+     * Allocates an empty Mat owned by this arena.
+     */
+    public Mat newMat() {
+        return track(new Mat());
+    }
+
+    /**
+     * Registers an existing Mat (or subclass such as MatOfPoint) for release on close.
+     */
+    public <T extends Mat> T track(T mat) {
+        if (mat != null) owned.add(mat);
+        return mat;
+    }
+
+    /**
+     * Registers every Mat of a list, e.g. the contours returned by findContours.
+     */
+    public <T extends Mat> List<T> trackAll(List<T> mats) {
+        for (T mat : mats) track(mat);
+        return mats;
+    }
+
+    /**
+     * Removes a Mat from the arena so it survives {@link #close()}.
+     * Ownership passes to the caller.
+     */
+    public <T extends Mat> T keep(T mat) {
+        for (int i = owned.size() - 1; i >= 0; i--) {
+            if (owned.get(i) == mat) {
+                owned.remove(i);
+                break;
+            }
+        }
+        return mat;
+    }
+
+    /**
+     * @return Number of Mats currently owned by the arena
+     */
+    public int size() {
+        return owned.size();
+    }
+
+    /**
+     * Releases all owned Mats, most recent first.
+     */
+    @Override
+    public void close() {
+        for (int i = owned.size() - 1; i >= 0; i--) {
+            owned.get(i).release();
+        }
+        owned.clear();
+    }
+}
@@ -0,0 +1,73 @@
+package com.alpr;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+/**
+ * MatImageConverter - Copies Mat pixels straight into a reused BufferedImage
+ *
+ * <p>OpenCV's 8-bit BGR and grayscale layouts are byte-for-byte the layouts of
+ * {@link BufferedImage#TYPE_3BYTE_BGR} and {@link BufferedImage#TYPE_BYTE_GRAY},
+ * so a preview frame is a single {@code Mat.get} into the image's backing array,
+ * with no PNG encode/decode in between.</p>
+ *
+ * <p>The target image is kept and overwritten while the size and channel count
+ * stay the same, which is the case on every slider move. Callers must therefore
+ * be done with the previous image (e.g. it has been painted) before converting
+ * the next frame; the Swing preview satisfies this by converting on the EDT.</p>
+ *
+ * <p>Other inputs are normalised first: 4-channel images lose their alpha, and
+ * non-8-bit depths are scaled to 8 bit.</p>
+ *
+ * <p>Not thread-safe; use one converter per view.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public class MatImageConverter {
+
+    private BufferedImage image;
+    private final Mat scratch = new Mat();
+
+    /**
+     * Converts a Mat into the reused image.
+     *
+     * @param mat 1, 3 or 4 channel image of any depth
+     * @return The shared image holding the pixels of {@code mat}, or null for an empty Mat
+     */
+    public BufferedImage convert(Mat mat) {
+        if (mat == null || mat.empty()) return null;
+
+        Mat source = mat;
+        if (source.depth() != CvType.CV_8U) {
+            source.convertTo(scratch, CvType.makeType(CvType.CV_8U, source.channels()));
+            source = scratch;
+        }
+        if (source.channels() == 4) {
+            Imgproc.cvtColor(source, scratch, Imgproc.COLOR_BGRA2BGR);
+            source = scratch;
+        }
+
+        int type = source.channels() == 1 ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_3BYTE_BGR;
+        if (image == null || image.getWidth() != source.cols() || image.getHeight() != source.rows()
+                || image.getType() != type) {
+            image = new BufferedImage(source.cols(), source.rows(), type);
+        }
+
+        byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        source.get(0, 0, pixels);
+        return image;
+    }
+
+    /**
+     * Drops the reused image and scratch buffer.
+     */
+    public void release() {
+        image = null;
+        scratch.release();
+    }
+}
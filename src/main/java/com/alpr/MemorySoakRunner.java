@@ -0,0 +1,142 @@
+package com.alpr;
+
+import nu.pattern.OpenCV;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * MemorySoakRunner - Long-running check for native memory leaks
+ *
+ * <p>Cycles through a directory of images for many iterations with one reused
+ * {@link PipelineContext} and debug output disabled, sampling the process
+ * resident set size (VmRSS from {@code /proc/self/status}) as it goes. Leaked
+ * OpenCV Mats show up as steady RSS growth even when the Java heap is flat.</p>
+ *
+ * <p>Usage: {@code MemorySoakRunner [directory] [--iterations N] [--max-growth-mb M] [--ocr]}</p>
+ * <ul>
+ *   <li>{@code --iterations N}: images to process in total (default 10000)</li>
+ *   <li>{@code --max-growth-mb M}: allowed RSS growth after warm-up before FAIL (default 64)</li>
+ *   <li>{@code --ocr}: also run OCR (requires a Tesseract installation)</li>
+ * </ul>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public class MemorySoakRunner {
+
+    private static final String[] IMAGE_EXTENSIONS = {".jpg", ".jpeg", ".png", ".bmp"};
+
+    static {
+        try {
+            OpenCV.loadLocally();
+        } catch (Exception e) {
+            System.err.println("[ERROR] Failed to load OpenCV: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    public static void main(String[] args) {
+        String inputPath = "src/plates";
+        int iterations = 10000;
+        long maxGrowthMb = 64;
+        boolean runOcr = false;
+
+        for (int i = 0; i < args.length; i++) {
+            if ("--iterations".equals(args[i]) && i + 1 < args.length) {
+                iterations = Integer.parseInt(args[++i]);
+            } else if ("--max-growth-mb".equals(args[i]) && i + 1 < args.length) {
+                maxGrowthMb = Long.parseLong(args[++i]);
+            } else if ("--ocr".equals(args[i])) {
+                runOcr = true;
+            } else {
+                inputPath = args[i];
+            }
+        }
+
+        File[] imageFiles = new File(inputPath).listFiles((dir, name) -> {
+            String lowerName = name.toLowerCase();
+            return Arrays.stream(IMAGE_EXTENSIONS).anyMatch(lowerName::endsWith);
+        });
+        if (imageFiles == null || imageFiles.length == 0) {
+            System.err.println("[ERROR] No image files found in: " + inputPath);
+            System.exit(1);
+        }
+        Arrays.sort(imageFiles);
+
+        DebugImageWriter.get().setEnabled(false);
+        PipelineContext context = new PipelineContext();
+
+        // Allocator pools and JIT settle during the first pass; measure growth after it
+        int warmup = Math.min(iterations, Math.max(imageFiles.length, iterations / 10));
+        int sampleEvery = Math.max(1, iterations / 20);
+        long baselineKb = -1;
+        long peakKb = 0;
+        long start = System.nanoTime();
+
+        System.out.println("[SOAK] " + iterations + " iterations over " + imageFiles.length +
+                          " images (warm-up " + warmup + ")");
+
+        for (int i = 0; i < iterations; i++) {
+            File imageFile = imageFiles[i % imageFiles.length];
+            String path = imageFile.getAbsolutePath();
+
+            if (runOcr) {
+                Main.processImage(context, path, Main.extractExpectedPlate(imageFile.getName()));
+            } else {
+                context.beginImage();
+                if (context.getDetector().preprocessImageWithOriginal(path) != null) {
+                    context.getDetector().detectAll();
+                }
+            }
+
+            if (i + 1 == warmup) {
+                baselineKb = readRssKb();
+            }
+            if ((i + 1) % sampleEvery == 0 || i + 1 == iterations) {
+                long rssKb = readRssKb();
+                peakKb = Math.max(peakKb, rssKb);
+                long heapMb = (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) >> 20;
+                System.out.printf("[SOAK] %6d / %d  RSS: %6d MB  heap: %5d MB%n",
+                                  i + 1, iterations, rssKb >> 10, heapMb);
+            }
+        }
+        context.beginImage(); // release the last image's buffers
+
+        long finalKb = readRssKb();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        long growthMb = baselineKb > 0 ? (finalKb - baselineKb) >> 10 : 0;
+        boolean pass = baselineKb > 0 && growthMb <= maxGrowthMb;
+
+        System.out.println();
+        System.out.println("==============================================");
+        System.out.println("  MEMORY SOAK (" + iterations + " images, " + String.format("%.1f", seconds) + "s)");
+        System.out.println("==============================================");
+        System.out.println("  RSS after warm-up:  " + (baselineKb >> 10) + " MB");
+        System.out.println("  RSS at end:         " + (finalKb >> 10) + " MB");
+        System.out.println("  RSS peak:           " + (Math.max(peakKb, finalKb) >> 10) + " MB");
+        System.out.println("  Growth:             " + growthMb + " MB (limit " + maxGrowthMb + " MB)");
+        System.out.println("  Result:             " + (pass ? "PASS" : "FAIL"));
+
+        System.exit(pass ? 0 : 1);
+    }
+
+    /**
+     * @return Resident set size in KB, or -1 where /proc is not available
+     */
+    static long readRssKb() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not Linux - fall through
+        }
+        return -1;
+    }
+}
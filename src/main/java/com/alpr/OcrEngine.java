@@ -0,0 +1,138 @@
+package com.alpr;
+
+import com.sun.jna.Pointer;
+import net.sourceforge.tess4j.ITessAPI.TessBaseAPI;
+import net.sourceforge.tess4j.ITessAPI.TessPageIteratorLevel;
+import net.sourceforge.tess4j.ITessAPI.TessResultIterator;
+import net.sourceforge.tess4j.TessAPI1;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OcrEngine - One initialized native Tesseract instance
+ *
+ * <p>Unlike {@code Tesseract.doOCR}, which creates, initializes and disposes a
+ * native TessBaseAPI on every call, an engine loads the traineddata and applies
+ * language, page segmentation mode and whitelist exactly once in its constructor.
+ * Recognition afterwards only sets the image and reads the text back.</p>
+ *
+ * <p>An engine is <b>not</b> thread-safe. Engines are handed out one thread at a
+ * time by {@link OcrEnginePool}.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+class OcrEngine implements AutoCloseable {
+
+    /** Resolution reported to Tesseract; raw buffers carry no DPI metadata. */
+    private static final int SOURCE_RESOLUTION = 70;
+
+    private final TessBaseAPI handle;
+    private final int generation;
+    private long borrowedAtNanos;
+
+    OcrEngine(OcrEnginePool.Config config, int generation) {
+        this.generation = generation;
+        this.handle = TessAPI1.TessBaseAPICreate();
+
+        int rc = TessAPI1.TessBaseAPIInit2(handle, config.getDatapath(), config.getLanguage(),
+                config.getEngineMode());
+        if (rc != 0) {
+            TessAPI1.TessBaseAPIDelete(handle);
+            throw new IllegalStateException("Could not initialize Tesseract (datapath="
+                    + config.getDatapath() + ", language=" + config.getLanguage() + ")");
+        }
+
+        TessAPI1.TessBaseAPISetPageSegMode(handle, config.getPageSegMode());
+        if (config.getWhitelist() != null) {
+            TessAPI1.TessBaseAPISetVariable(handle, "tessedit_char_whitelist", config.getWhitelist());
+        }
+    }
+
+    /**
+     * Recognizes text in an 8-bit single-channel image.
+     *
+     * @param pixels Pixel buffer, one byte per pixel, rows packed without padding
+     * @param width  Image width in pixels
+     * @param height Image height in pixels
+     * @return Raw recognized text (never null)
+     */
+    String recognize(ByteBuffer pixels, int width, int height) {
+        TessAPI1.TessBaseAPISetImage(handle, pixels, width, height, 1, width);
+        TessAPI1.TessBaseAPISetSourceResolution(handle, SOURCE_RESOLUTION);
+
+        Pointer text = TessAPI1.TessBaseAPIGetUTF8Text(handle);
+        try {
+            return text != null ? text.getString(0, "UTF-8") : "";
+        } finally {
+            if (text != null) TessAPI1.TessDeleteText(text);
+            TessAPI1.TessBaseAPIClear(handle);
+        }
+    }
+
+    /**
+     * Recognizes text in an 8-bit single-channel image and reads back every symbol
+     * with its confidence.
+     *
+     * @param pixels Pixel buffer, one byte per pixel, rows packed without padding
+     * @param width  Image width in pixels
+     * @param height Image height in pixels
+     * @return Cleaned text with one confidence per character
+     */
+    OcrRead recognizeSymbols(ByteBuffer pixels, int width, int height) {
+        TessAPI1.TessBaseAPISetImage(handle, pixels, width, height, 1, width);
+        TessAPI1.TessBaseAPISetSourceResolution(handle, SOURCE_RESOLUTION);
+
+        TessResultIterator iterator = null;
+        try {
+            if (TessAPI1.TessBaseAPIRecognize(handle, null) != 0) {
+                return OcrRead.empty();
+            }
+            iterator = TessAPI1.TessBaseAPIGetIterator(handle);
+            if (iterator == null) {
+                return OcrRead.empty();
+            }
+
+            List<String> symbols = new ArrayList<>();
+            List<Float> confidences = new ArrayList<>();
+            int level = TessPageIteratorLevel.RIL_SYMBOL;
+            do {
+                Pointer symbol = TessAPI1.TessResultIteratorGetUTF8Text(iterator, level);
+                if (symbol == null) continue;
+                try {
+                    symbols.add(symbol.getString(0, "UTF-8"));
+                    confidences.add(TessAPI1.TessResultIteratorConfidence(iterator, level));
+                } finally {
+                    TessAPI1.TessDeleteText(symbol);
+                }
+            } while (TessAPI1.TessResultIteratorNext(iterator, level) != 0);
+
+            float[] conf = new float[confidences.size()];
+            for (int i = 0; i < conf.length; i++) conf[i] = confidences.get(i);
+            return OcrRead.fromSymbols(symbols.toArray(new String[0]), conf);
+        } finally {
+            if (iterator != null) TessAPI1.TessResultIteratorDelete(iterator);
+            TessAPI1.TessBaseAPIClear(handle);
+        }
+    }
+
+    int getGeneration() {
+        return generation;
+    }
+
+    long getBorrowedAtNanos() {
+        return borrowedAtNanos;
+    }
+
+    void setBorrowedAtNanos(long borrowedAtNanos) {
+        this.borrowedAtNanos = borrowedAtNanos;
+    }
+
+    @Override
+    public void close() {
+        TessAPI1.TessBaseAPIEnd(handle);
+        TessAPI1.TessBaseAPIDelete(handle);
+    }
+}
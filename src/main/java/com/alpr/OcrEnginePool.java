@@ -0,0 +1,301 @@
+package com.alpr;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * OcrEnginePool - Bounded pool of initialized Tesseract engines
+ *
+ * <p>A native Tesseract instance is expensive to initialize and cannot be shared
+ * between threads. The pool creates engines lazily on first demand, up to
+ * {@code maxSize}, and hands each one to a single thread at a time via
+ * {@link #borrow()} / {@link #release(OcrEngine)}. When all engines are busy,
+ * borrowers block until one is returned or a slot frees up (an engine of an older
+ * configuration was retired), and fail once the pool is closed.</p>
+ *
+ * <p>Configuration (language, page segmentation mode, whitelist) is applied once
+ * per engine at creation. {@link #reconfigure(Config)} retires all existing
+ * engines; replacements pick up the new configuration on their next creation.</p>
+ *
+ * <p>Wait time and utilization metrics are available through {@link #getStats()}
+ * for sizing the pool against the plate rate.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public class OcrEnginePool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(OcrEnginePool.class);
+
+    private static final String DEFAULT_WHITELIST = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    /** Upper bound for one wait; blocked borrowers re-check the pool at least this often. */
+    private static final long WAIT_SLICE_MILLIS = 100;
+
+    /**
+     * Immutable engine configuration.
+     */
+    public static final class Config {
+        private final String datapath;
+        private final String language;
+        private final int pageSegMode;
+        private final int engineMode;
+        private final String whitelist;
+
+        public Config(String datapath, String language, int pageSegMode, int engineMode, String whitelist) {
+            this.datapath = datapath;
+            this.language = language;
+            this.pageSegMode = pageSegMode;
+            this.engineMode = engineMode;
+            this.whitelist = whitelist;
+        }
+
+        /**
+         * Plate defaults: English, single text line (PSM 7), LSTM engine, A-Z0-9 whitelist.
+         *
+         * @param datapath Tessdata directory, or null to search the usual locations
+         */
+        public static Config defaults(String datapath) {
+            String path = (datapath != null) ? datapath : OcrService.findTessdataPath();
+            return new Config(path, "eng", 7, 3, DEFAULT_WHITELIST);
+        }
+
+        public Config withDatapath(String path) {
+            return new Config(path, language, pageSegMode, engineMode, whitelist);
+        }
+
+        public Config withLanguage(String lang) {
+            return new Config(datapath, lang, pageSegMode, engineMode, whitelist);
+        }
+
+        public Config withWhitelist(String chars) {
+            return new Config(datapath, language, pageSegMode, engineMode, chars);
+        }
+
+        public String getDatapath() { return datapath; }
+        public String getLanguage() { return language; }
+        public int getPageSegMode() { return pageSegMode; }
+        public int getEngineMode() { return engineMode; }
+        public String getWhitelist() { return whitelist; }
+    }
+
+    /**
+     * Point-in-time pool metrics.
+     */
+    public static final class Stats {
+        public final int maxSize;
+        public final int created;
+        public final int inUse;
+        public final int peakInUse;
+        public final long borrows;
+        public final long blockedBorrows;
+        public final double avgWaitMillis;
+        public final double maxWaitMillis;
+        public final double utilization;
+
+        Stats(int maxSize, int created, int inUse, int peakInUse, long borrows, long blockedBorrows,
+              double avgWaitMillis, double maxWaitMillis, double utilization) {
+            this.maxSize = maxSize;
+            this.created = created;
+            this.inUse = inUse;
+            this.peakInUse = peakInUse;
+            this.borrows = borrows;
+            this.blockedBorrows = blockedBorrows;
+            this.avgWaitMillis = avgWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+            this.utilization = utilization;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("engines=%d/%d, inUse=%d, peak=%d, borrows=%d, blocked=%d, " +
+                    "wait avg=%.2fms max=%.2fms, utilization=%.1f%%",
+                    created, maxSize, inUse, peakInUse, borrows, blockedBorrows,
+                    avgWaitMillis, maxWaitMillis, utilization * 100);
+        }
+    }
+
+    private final int maxSize;
+    private final BlockingQueue<OcrEngine> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger generation = new AtomicInteger();
+    private volatile Config config;
+    private volatile boolean closed = false;
+
+    // Signalled whenever an engine becomes idle, a slot frees up or the pool closes
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    // Metrics
+    private final long startNanos = System.nanoTime();
+    private final AtomicInteger peakInUse = new AtomicInteger();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong blockedBorrows = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+
+    public OcrEnginePool(Config config, int maxSize) {
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize must be >= 1");
+        this.config = config;
+        this.maxSize = maxSize;
+        log.info("OCR engine pool: max {} engine(s), tessdata: {}", maxSize, config.getDatapath());
+    }
+
+    /**
+     * Borrows an engine, creating one if the pool is below its limit,
+     * otherwise waiting until another thread returns one or a slot frees up.
+     *
+     * @throws IllegalStateException if the pool is closed, also while waiting
+     */
+    public OcrEngine borrow() throws InterruptedException {
+        long start = System.nanoTime();
+        boolean blocked = false;
+        OcrEngine engine;
+        while (true) {
+            if (closed) throw new IllegalStateException("OCR engine pool is closed");
+
+            engine = idle.poll();
+            if (engine != null) {
+                if (engine.getGeneration() == generation.get()) break;
+                // Returned just before a reconfigure drained the idle queue
+                retire(engine);
+                continue;
+            }
+            if (reserveSlot()) {
+                engine = createEngine();
+                break;
+            }
+
+            if (!blocked) {
+                blocked = true;
+                blockedBorrows.incrementAndGet();
+            }
+            lock.lock();
+            try {
+                // Checked again under the lock, so a signal sent after the checks above is not missed
+                if (!closed && idle.isEmpty() && created.get() >= maxSize) {
+                    available.await(WAIT_SLICE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        long now = System.nanoTime();
+
+        long waited = now - start;
+        borrows.incrementAndGet();
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        peakInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+
+        engine.setBorrowedAtNanos(now);
+        return engine;
+    }
+
+    /**
+     * Returns a borrowed engine. Engines created under an older configuration are closed instead.
+     */
+    public void release(OcrEngine engine) {
+        if (engine == null) return;
+        busyNanos.addAndGet(System.nanoTime() - engine.getBorrowedAtNanos());
+        inUse.decrementAndGet();
+
+        if (closed || engine.getGeneration() != generation.get()) {
+            retire(engine);
+        } else {
+            idle.offer(engine);
+            signalAvailable();
+        }
+    }
+
+    /**
+     * Replaces the engine configuration. Idle engines are closed now, borrowed
+     * ones when they are returned; new engines are created lazily.
+     */
+    public void reconfigure(Config newConfig) {
+        this.config = newConfig;
+        generation.incrementAndGet();
+        OcrEngine engine;
+        while ((engine = idle.poll()) != null) {
+            retire(engine);
+        }
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = created.get();
+            if (current >= maxSize) return false;
+            if (created.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    private OcrEngine createEngine() {
+        try {
+            log.info("Initializing Tesseract engine #{}", created.get());
+            return new OcrEngine(config, generation.get());
+        } catch (RuntimeException | Error e) {
+            created.decrementAndGet();
+            signalAvailable();
+            throw e;
+        }
+    }
+
+    private void retire(OcrEngine engine) {
+        created.decrementAndGet();
+        engine.close();
+        signalAvailable();
+    }
+
+    private void signalAvailable() {
+        lock.lock();
+        try {
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public Stats getStats() {
+        long borrowCount = borrows.get();
+        double elapsed = System.nanoTime() - startNanos;
+        return new Stats(
+            maxSize,
+            created.get(),
+            inUse.get(),
+            peakInUse.get(),
+            borrowCount,
+            blockedBorrows.get(),
+            borrowCount > 0 ? totalWaitNanos.get() / 1_000_000.0 / borrowCount : 0,
+            maxWaitNanos.get() / 1_000_000.0,
+            elapsed > 0 ? busyNanos.get() / (elapsed * maxSize) : 0
+        );
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        OcrEngine engine;
+        while ((engine = idle.poll()) != null) {
+            retire(engine);
+        }
+        // Blocked borrowers fail instead of waiting for engines that will never come back
+        signalAvailable();
+    }
+}
@@ -0,0 +1,97 @@
+package com.alpr;
+
+import java.util.Arrays;
+
+/**
+ * OcrRead - One OCR result with per-character confidences
+ *
+ * <p>Holds the cleaned text (upper case A-Z / 0-9 only) and, for every character
+ * of it, the confidence Tesseract reported for that symbol (0-100). Used by
+ * {@link PlateConsensus} to weight votes from several reads of the same plate.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public final class OcrRead {
+
+    private static final OcrRead EMPTY = new OcrRead("", new float[0]);
+
+    private final String text;
+    private final float[] confidences;
+
+    OcrRead(String text, float[] confidences) {
+        if (text.length() != confidences.length) {
+            throw new IllegalArgumentException("One confidence per character required");
+        }
+        this.text = text;
+        this.confidences = confidences.clone();
+    }
+
+    public static OcrRead empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Wraps a plain string with the same confidence for every character.
+     */
+    public static OcrRead of(String text, float confidence) {
+        float[] confidences = new float[text.length()];
+        Arrays.fill(confidences, confidence);
+        return new OcrRead(text, confidences);
+    }
+
+    /**
+     * Builds a cleaned read from raw symbols: symbols are upper-cased and
+     * everything except A-Z / 0-9 is dropped together with its confidence.
+     *
+     * @param symbols     Raw symbol texts in reading order
+     * @param confidences Confidence per symbol (0-100)
+     */
+    static OcrRead fromSymbols(String[] symbols, float[] confidences) {
+        StringBuilder text = new StringBuilder();
+        float[] kept = new float[symbols.length];
+        int n = 0;
+        for (int i = 0; i < symbols.length; i++) {
+            String symbol = symbols[i].trim().toUpperCase();
+            for (int c = 0; c < symbol.length(); c++) {
+                char ch = symbol.charAt(c);
+                if ((ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9')) {
+                    if (n == kept.length) kept = Arrays.copyOf(kept, n * 2 + 1);
+                    text.append(ch);
+                    kept[n++] = confidences[i];
+                }
+            }
+        }
+        return new OcrRead(text.toString(), Arrays.copyOf(kept, n));
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public boolean isEmpty() {
+        return text.isEmpty();
+    }
+
+    /**
+     * @return Confidence of the character at the given index (0-100)
+     */
+    public float getConfidence(int index) {
+        return confidences[index];
+    }
+
+    /**
+     * @return Mean character confidence, or 0 for an empty read
+     */
+    public float getMeanConfidence() {
+        if (confidences.length == 0) return 0;
+        float sum = 0;
+        for (float confidence : confidences) sum += confidence;
+        return sum / confidences.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("OcrRead{'%s', conf=%.1f}", text, getMeanConfidence());
+    }
+}
@@ -0,0 +1,230 @@
+package com.alpr;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OcrResultCache - Perceptual-hash cache of OCR results for near-duplicate crops
+ *
+ * <p>Fixed cameras see the same plate again and again (parked cars, queues at a
+ * barrier, repeated frames). The binary crop from
+ * {@link OcrService#preprocessForOcr} is trimmed to its dark (text) area and
+ * reduced to a 1024-bit difference hash (dHash: shrunk to 65x16, every pixel
+ * compared with its right neighbour). A lookup returns the cached read of the
+ * closest entry whose hash differs in at most {@code maxDistance} bits and whose
+ * text area has a similar aspect ratio.</p>
+ *
+ * <p>The threshold trades hit rate against wrong reads: two renderings of one
+ * plate with different blur or scale can differ by 20-40 bits, but so can two
+ * plates that differ in a single character. The default of 12 only matches
+ * crops that are practically the same pixels, which is the fixed-camera case.</p>
+ *
+ * <p>The cache holds at most {@code maxEntries} entries, evicting the least
+ * recently used one, and entries expire {@code ttlMillis} after they were stored
+ * (0 = never). Lookups scan all entries; with a few hundred entries this costs
+ * microseconds, against tens of milliseconds for a Tesseract call.</p>
+ *
+ * <p>Thread-safe.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public class OcrResultCache {
+
+    private static final int HASH_WIDTH = 64;
+    private static final int HASH_HEIGHT = 16;
+    private static final int HASH_WORDS = HASH_WIDTH * HASH_HEIGHT / 64;
+    // Crops whose aspect ratios differ by more than this are never duplicates
+    private static final double MAX_ASPECT_DIFF = 0.15;
+
+    /**
+     * Hash of one preprocessed crop.
+     */
+    public static final class Key {
+        private final long[] bits;
+        private final double aspect;
+
+        Key(long[] bits, double aspect) {
+            this.bits = bits;
+            this.aspect = aspect;
+        }
+
+        /**
+         * @return Number of differing hash bits
+         */
+        int distance(Key other) {
+            int distance = 0;
+            for (int i = 0; i < HASH_WORDS; i++) {
+                distance += Long.bitCount(bits[i] ^ other.bits[i]);
+            }
+            return distance;
+        }
+
+        boolean similarShape(Key other) {
+            return Math.abs(aspect - other.aspect) <= MAX_ASPECT_DIFF * Math.max(aspect, other.aspect);
+        }
+    }
+
+    private static final class Entry {
+        final long id;
+        final Key key;
+        final OcrRead read;
+        final long storedAt;
+
+        Entry(long id, Key key, OcrRead read, long storedAt) {
+            this.id = id;
+            this.key = key;
+            this.read = read;
+            this.storedAt = storedAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final int maxDistance;
+    private final long ttlNanos;
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long nextId = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    /**
+     * @param maxEntries  Most cached crops before the least recently used is evicted
+     * @param maxDistance Most differing hash bits (of 1024) for a crop to count as a duplicate
+     * @param ttlMillis   Lifetime of an entry in ms, 0 for no expiry
+     */
+    public OcrResultCache(int maxEntries, int maxDistance, long ttlMillis) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxDistance = Math.max(0, maxDistance);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMillis));
+    }
+
+    /**
+     * Computes the difference hash of a preprocessed (grayscale or binary) crop.
+     */
+    public static Key hash(Mat crop) {
+        Mat ink = new Mat();
+        Mat small = new Mat();
+        try {
+            // Hash only the dark (text) area, so crops that differ by a few pixels of framing line up
+            Core.bitwise_not(crop, ink);
+            Imgproc.threshold(ink, ink, 127, 255, Imgproc.THRESH_BINARY);
+            Rect box = Imgproc.boundingRect(ink);
+            Mat text = box.area() > 0 ? crop.submat(box) : crop;
+            Imgproc.resize(text, small, new Size(HASH_WIDTH + 1, HASH_HEIGHT), 0, 0, Imgproc.INTER_AREA);
+            byte[] pixels = new byte[(HASH_WIDTH + 1) * HASH_HEIGHT];
+            small.get(0, 0, pixels);
+
+            long[] bits = new long[HASH_WORDS];
+            int bit = 0;
+            for (int y = 0; y < HASH_HEIGHT; y++) {
+                int row = y * (HASH_WIDTH + 1);
+                for (int x = 0; x < HASH_WIDTH; x++, bit++) {
+                    if ((pixels[row + x] & 0xFF) > (pixels[row + x + 1] & 0xFF)) {
+                        bits[bit >>> 6] |= 1L << (bit & 63);
+                    }
+                }
+            }
+            return new Key(bits, (double) box.width / Math.max(1, box.height));
+        } finally {
+            ink.release();
+            small.release();
+        }
+    }
+
+    /**
+     * Finds the cached read of the closest near-duplicate crop.
+     *
+     * @return Cached read, or null on a miss
+     */
+    public synchronized OcrRead lookup(Key key) {
+        long now = System.nanoTime();
+        Entry best = null;
+        int bestDistance = Integer.MAX_VALUE;
+
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (isExpired(entry, now)) {
+                it.remove();
+                expirations.incrementAndGet();
+                continue;
+            }
+            if (!entry.key.similarShape(key)) continue;
+            int distance = entry.key.distance(key);
+            if (distance <= maxDistance && distance < bestDistance) {
+                best = entry;
+                bestDistance = distance;
+            }
+        }
+
+        if (best == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        // Touch the entry so it becomes the most recently used
+        entries.get(best.id);
+        return best.read;
+    }
+
+    /**
+     * Stores a read, evicting the least recently used entry when full.
+     */
+    public synchronized void put(Key key, OcrRead read) {
+        long id = nextId++;
+        entries.put(id, new Entry(id, key, read, System.nanoTime()));
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return ttlNanos > 0 && now - entry.storedAt > ttlNanos;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    // ==================== METRICS ====================
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() { return hits.get(); }
+    public long getMissCount() { return misses.get(); }
+    public long getEvictionCount() { return evictions.get(); }
+    public long getExpirationCount() { return expirations.get(); }
+    public int getMaxDistance() { return maxDistance; }
+
+    /**
+     * @return Share of lookups answered from the cache (0-1)
+     */
+    public double getHitRate() {
+        long lookups = hits.get() + misses.get();
+        return lookups > 0 ? (double) hits.get() / lookups : 0;
+    }
+
+    public String getStats() {
+        return String.format("size=%d/%d, hits=%d, misses=%d, hitRate=%.1f%%, evicted=%d, expired=%d, maxDistance=%d",
+                size(), maxEntries, getHitCount(), getMissCount(), getHitRate() * 100,
+                getEvictionCount(), getExpirationCount(), maxDistance);
+    }
+}
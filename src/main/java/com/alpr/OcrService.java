@@ -1,30 +1,34 @@
 package com.alpr;
 
-import net.sourceforge.tess4j.Tesseract;
-import net.sourceforge.tess4j.TesseractException;
 import org.opencv.core.Core;
 import org.opencv.core.Mat;
 import org.opencv.core.Size;
-import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.nio.ByteBuffer;
 
 /**
  * OcrService - Optical Character Recognition for License Plates
  *
  * <p>Uses Tesseract OCR to extract text from cropped plate images.</p>
  *
+ * <p>Recognition runs on engines borrowed from an {@link OcrEnginePool}, so one
+ * service can be shared by several threads. Each thread gets its own native
+ * Tesseract instance for the duration of a call.</p>
+ *
  * @author ALPR Academic Project
- * @version 1.2 - Simplified preprocessing with debug output
+ * @version 1.4 - Near-duplicate crop result cache
  */
 public class OcrService {
 
-    private final Tesseract tesseract;
-    private static final String WHITELIST = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final Logger log = LoggerFactory.getLogger(OcrService.class);
+
+    private final OcrEnginePool enginePool;
     private String tessdataPath;
+    private volatile OcrResultCache resultCache;
 
     /**
      * Debug output directory for OCR preprocessed images.
@@ -32,44 +36,27 @@ public class OcrService {
     private static final String DEBUG_OCR_DIR = "debug_output/step5_ocr_preprocessed";
 
     public OcrService() {
-        this(null);
+        this((String) null);
     }
 
     public OcrService(String tessdataPath) {
+        this(new OcrEnginePool(OcrEnginePool.Config.defaults(tessdataPath),
+                Runtime.getRuntime().availableProcessors()));
         this.tessdataPath = tessdataPath;
-        this.tesseract = new Tesseract();
-        initializeTesseract();
-        ensureDebugDir();
     }
 
     /**
-     * Ensures the OCR debug directory exists.
+     * Creates a service backed by an existing (possibly shared) engine pool.
+     *
+     * @param enginePool Pool that supplies Tesseract engines
      */
-    private void ensureDebugDir() {
-        File dir = new File(DEBUG_OCR_DIR);
-        if (!dir.exists()) {
-            dir.mkdirs();
-        }
+    public OcrService(OcrEnginePool enginePool) {
+        this.enginePool = enginePool;
+        this.tessdataPath = enginePool.getConfig().getDatapath();
+        log.info("OCR ready. Whitelist: {}", enginePool.getConfig().getWhitelist());
     }
 
-    private void initializeTesseract() {
-        System.out.println("[OCR] Initializing Tesseract...");
-
-        String path = (tessdataPath != null) ? tessdataPath : findTessdataPath();
-        if (path != null) {
-            tesseract.setDatapath(path);
-            System.out.println("[OCR] Tessdata: " + path);
-        }
-
-        tesseract.setLanguage("eng");
-        tesseract.setPageSegMode(7);  // Single line
-        tesseract.setOcrEngineMode(3); // Default (LSTM)
-        tesseract.setVariable("tessedit_char_whitelist", WHITELIST);
-
-        System.out.println("[OCR] Ready. Whitelist: " + WHITELIST);
-    }
-
-    private String findTessdataPath() {
+    static String findTessdataPath() {
         String userDir = System.getProperty("user.dir");
         String separator = File.separator;
 
@@ -109,42 +96,48 @@ public class OcrService {
      * @param imageName Name for saving debug image
      * @return Preprocessed binary image
      */
-    private Mat preprocessForOcr(Mat plate, String imageName) {
-        Mat result = plate.clone();
-
-        // Resize small images (Tesseract works better with larger images)
-        if (result.width() < 200) {
-            double scale = 200.0 / result.width();
-            Imgproc.resize(result, result, new Size(result.width() * scale, result.height() * scale),
-                    0, 0, Imgproc.INTER_CUBIC);
-            System.out.println("[OCR] Resized to: " + result.width() + "x" + result.height());
-        }
+    Mat preprocessForOcr(Mat plate, String imageName) {
+        long start = System.nanoTime();
+        // Intermediates are freed on exit; only the binary image escapes to the caller
+        try (MatArena arena = new MatArena()) {
+            Mat result = arena.track(plate.clone());
+
+            // Resize small images (Tesseract works better with larger images)
+            if (result.width() < 200) {
+                double scale = 200.0 / result.width();
+                Imgproc.resize(result, result, new Size(result.width() * scale, result.height() * scale),
+                        0, 0, Imgproc.INTER_CUBIC);
+                log.debug("Resized to: {}x{}", result.width(), result.height());
+            }
 
-        // Convert to grayscale if color
-        if (result.channels() == 3) {
-            Mat gray = new Mat();
-            Imgproc.cvtColor(result, gray, Imgproc.COLOR_BGR2GRAY);
-            result = gray;
-        }
+            // Convert to grayscale if color
+            if (result.channels() == 3) {
+                Mat gray = arena.newMat();
+                Imgproc.cvtColor(result, gray, Imgproc.COLOR_BGR2GRAY);
+                result = gray;
+            }
 
-        // Simple threshold to make text clearer
-        Mat binary = new Mat();
-        Imgproc.threshold(result, binary, 0, 255, Imgproc.THRESH_BINARY + Imgproc.THRESH_OTSU);
+            // Simple threshold to make text clearer
+            Mat binary = arena.newMat();
+            Imgproc.threshold(result, binary, 0, 255, Imgproc.THRESH_BINARY + Imgproc.THRESH_OTSU);
 
-        // Check if we need to invert (text should be dark on light background)
-        double mean = Core.mean(binary).val[0];
-        if (mean < 127) {
-            Core.bitwise_not(binary, binary);
-        }
+            // Check if we need to invert (text should be dark on light background)
+            double mean = Core.mean(binary).val[0];
+            if (mean < 127) {
+                Core.bitwise_not(binary, binary);
+            }
 
-        // Save debug image with proper name
-        if (imageName != null && !imageName.isEmpty()) {
-            String debugPath = DEBUG_OCR_DIR + "/" + imageName + ".jpg";
-            Imgcodecs.imwrite(debugPath, binary);
-            System.out.println("[DEBUG] Saved: " + debugPath);
-        }
+            // Queue debug image with proper name (written in the background)
+            if (imageName != null && !imageName.isEmpty() && DebugImageWriter.get().isEnabled()) {
+                String debugPath = DEBUG_OCR_DIR + "/" + imageName + ".jpg";
+                DebugImageWriter.get().submit(debugPath, binary);
+                log.debug("Queued: {}", debugPath);
+            }
 
-        return binary;
+            return arena.keep(binary);
+        } finally {
+            PipelineMetrics.get().recordSince(PipelineMetrics.OCR_PREPROCESS, start);
+        }
     }
 
     /**
@@ -155,41 +148,86 @@ public class OcrService {
      * @return Recognized text, or empty string if failed
      */
     public String recognizePlate(Mat plateMat, String imageName) {
+        return recognizePlateDetailed(plateMat, imageName).getText();
+    }
+
+    /**
+     * Performs OCR on a cropped license plate image and keeps the per-character
+     * confidences, for combining several reads with {@link PlateConsensus}.
+     *
+     * @param plateMat  Cropped plate image
+     * @param imageName Name of the source image (for debug output)
+     * @return Cleaned text with confidences, or an empty read if failed
+     */
+    public OcrRead recognizePlateDetailed(Mat plateMat, String imageName) {
         if (plateMat == null || plateMat.empty()) {
-            System.err.println("[OCR] Error: Empty input");
-            return "";
+            log.warn("OCR skipped: empty input");
+            return OcrRead.empty();
         }
 
-        System.out.println("[OCR] Input: " + plateMat.width() + "x" + plateMat.height());
+        log.debug("Input: {}x{}", plateMat.width(), plateMat.height());
 
         Mat processed = preprocessForOcr(plateMat, imageName);
-        Path tempFile = null;
+        OcrResultCache cache = resultCache;
+        OcrResultCache.Key cacheKey = null;
+        OcrEngine engine = null;
 
         try {
-            tempFile = Files.createTempFile("plate_", ".png");
-            Imgcodecs.imwrite(tempFile.toString(), processed);
-
-            String result = tesseract.doOCR(tempFile.toFile());
-            String cleaned = cleanResult(result);
-
-            System.out.println("[OCR] Raw: \"" + result.trim() + "\"");
-            System.out.println("[OCR] Clean: \"" + cleaned + "\"");
-
-            return cleaned;
+            if (cache != null) {
+                cacheKey = OcrResultCache.hash(processed);
+                OcrRead cached = cache.lookup(cacheKey);
+                if (cached != null) {
+                    PipelineMetrics.get().increment(PipelineMetrics.OCR_CACHE_HITS);
+                    log.debug("Cache hit: \"{}\"", cached.getText());
+                    return cached;
+                }
+            }
 
-        } catch (TesseractException e) {
-            System.err.println("[OCR] Tesseract error: " + e.getMessage());
-            return "";
+            // Hand the 8-bit pixels straight to Tesseract - no PNG encode/decode or temp file
+            ByteBuffer pixels = toByteBuffer(processed);
+            engine = enginePool.borrow();
+            long ocrStart = System.nanoTime();
+            OcrRead read = engine.recognizeSymbols(pixels, processed.width(), processed.height());
+            PipelineMetrics.get().recordSince(PipelineMetrics.OCR_TESSERACT, ocrStart);
+            PipelineMetrics.get().increment(PipelineMetrics.OCR_CALLS);
+
+            if (log.isDebugEnabled()) {
+                log.debug("Clean: \"{}\" (confidence {})", read.getText(),
+                        String.format("%.1f", read.getMeanConfidence()));
+            }
+            // An empty read may be transient (e.g. engine trouble); let the next crop retry
+            if (cache != null && !read.isEmpty()) cache.put(cacheKey, read);
+            return read;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for an OCR engine");
+            return OcrRead.empty();
         } catch (Exception e) {
-            System.err.println("[OCR] Error: " + e.getMessage());
-            return "";
+            log.error("OCR failed: {}", e.getMessage());
+            return OcrRead.empty();
         } finally {
-            if (tempFile != null) {
-                try { Files.deleteIfExists(tempFile); } catch (Exception ignored) {}
-            }
+            enginePool.release(engine);
+            processed.release();
         }
     }
 
+    /**
+     * Copies a single-channel 8-bit Mat into a direct buffer laid out as
+     * Tesseract expects (one byte per pixel, rows packed without padding).
+     *
+     * @param gray Grayscale or binary image (CV_8UC1)
+     * @return Direct buffer positioned at 0
+     */
+    static ByteBuffer toByteBuffer(Mat gray) {
+        byte[] pixels = new byte[(int) gray.total()];
+        gray.get(0, 0, pixels);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(pixels.length);
+        buffer.put(pixels);
+        buffer.flip();
+        return buffer;
+    }
+
     /**
      * Performs OCR on a cropped license plate image (without image name).
      *
@@ -200,19 +238,9 @@ public class OcrService {
         return recognizePlate(plateMat, null);
     }
 
-    /**
-     * Cleans OCR result - removes spaces and non-alphanumeric chars.
-     */
-    private String cleanResult(String raw) {
-        if (raw == null) return "";
-        return raw.trim()
-                .toUpperCase()
-                .replaceAll("[^A-Z0-9]", "");
-    }
-
     public void setTessdataPath(String path) {
         this.tessdataPath = path;
-        if (path != null) tesseract.setDatapath(path);
+        if (path != null) enginePool.reconfigure(enginePool.getConfig().withDatapath(path));
     }
 
     public String getTessdataPath() {
@@ -220,10 +248,28 @@ public class OcrService {
     }
 
     public void setWhitelist(String whitelist) {
-        tesseract.setVariable("tessedit_char_whitelist", whitelist);
+        enginePool.reconfigure(enginePool.getConfig().withWhitelist(whitelist));
     }
 
     public void setLanguage(String lang) {
-        tesseract.setLanguage(lang);
+        enginePool.reconfigure(enginePool.getConfig().withLanguage(lang));
+    }
+
+    /**
+     * Enables reuse of OCR results for near-duplicate crops.
+     * Only successful Tesseract calls with a non-empty read are cached.
+     *
+     * @param cache Shared result cache, or null to disable caching
+     */
+    public void setResultCache(OcrResultCache cache) {
+        this.resultCache = cache;
+    }
+
+    public OcrResultCache getResultCache() {
+        return resultCache;
+    }
+
+    public OcrEnginePool getEnginePool() {
+        return enginePool;
     }
 }
@@ -0,0 +1,77 @@
+package com.alpr;
+
+import java.util.function.Consumer;
+
+/**
+ * PipelineContext - Reusable detector/OCR pair for batch processing
+ *
+ * <p>Creating a {@link PlateDetector} parses the Haar cascade XML and creating an
+ * {@link OcrService} initializes Tesseract. Doing that for every image costs more
+ * than the detection itself on large batches, so a context is built once per worker
+ * thread and reused for every image that thread processes.</p>
+ *
+ * <p>Per-image contract: call {@link #beginImage()} before each image. It resets the
+ * detector's per-image state (the {@code last*} Mats, the original image and the
+ * previous detection results) so nothing leaks from one image into the next.</p>
+ *
+ * <p>The detector is owned by the context. The {@link OcrService} may be shared
+ * between contexts, since its Tesseract engines come from a thread-safe pool.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public class PipelineContext {
+
+    private final PlateDetector detector;
+    private final OcrService ocrService;
+    private final CandidateOcr candidateOcr;
+    private int imagesProcessed = 0;
+
+    public PipelineContext() {
+        this(null);
+    }
+
+    /**
+     * @param detectorConfigurer Applied once to the new detector (e.g. parameters from the config file)
+     */
+    public PipelineContext(Consumer<PlateDetector> detectorConfigurer) {
+        this(detectorConfigurer, new OcrService());
+    }
+
+    /**
+     * @param detectorConfigurer Applied once to the new detector (e.g. parameters from the config file)
+     * @param ocrService         OCR service to use, typically shared by all worker contexts
+     */
+    public PipelineContext(Consumer<PlateDetector> detectorConfigurer, OcrService ocrService) {
+        this.detector = new PlateDetector();
+        this.ocrService = ocrService;
+        this.candidateOcr = new CandidateOcr(ocrService);
+        if (detectorConfigurer != null) {
+            detectorConfigurer.accept(detector);
+        }
+    }
+
+    /**
+     * Resets per-image state. Must be called before processing each image.
+     */
+    public void beginImage() {
+        detector.reset();
+        imagesProcessed++;
+    }
+
+    public PlateDetector getDetector() {
+        return detector;
+    }
+
+    public OcrService getOcrService() {
+        return ocrService;
+    }
+
+    public CandidateOcr getCandidateOcr() {
+        return candidateOcr;
+    }
+
+    public int getImagesProcessed() {
+        return imagesProcessed;
+    }
+}
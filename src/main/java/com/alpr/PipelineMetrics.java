@@ -0,0 +1,238 @@
+package com.alpr;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PipelineMetrics - Process-wide stage timers and counters
+ *
+ * <p>Every pipeline stage records its duration into a named
+ * {@link LatencyHistogram} (log buckets, 10% resolution) and event counts into
+ * named counters. Stage names are dotted, e.g. {@code preprocess.clahe}; the
+ * constants below list the ones the pipeline records.</p>
+ *
+ * <p>Output: {@link #formatSummary()} (also printed periodically with
+ * {@link #startPeriodicSummary(long, String)}) and {@link #toPrometheus()} in the
+ * Prometheus text format, served by {@link RecognitionServer} and written to a
+ * file by {@link Main} ({@code --metrics-file}).</p>
+ *
+ * <p>Controls: system property {@code alpr.metrics.enabled} (default true) or
+ * {@link #setEnabled(boolean)}. When disabled, recording is a single volatile read.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public final class PipelineMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineMetrics.class);
+
+    // Stage timers
+    public static final String IMAGE_LOAD = "image.load";
+    public static final String PREPROCESS_RESIZE = "preprocess.resize";
+    public static final String PREPROCESS_GRAYSCALE = "preprocess.grayscale";
+    public static final String PREPROCESS_CLAHE = "preprocess.clahe";
+    public static final String PREPROCESS_BILATERAL = "preprocess.bilateral";
+    public static final String PREPROCESS_CANNY = "preprocess.canny";
+    public static final String PREPROCESS_MORPHOLOGY = "preprocess.morphology";
+    public static final String DETECT_HAAR = "detect.haar";
+    public static final String DETECT_GEOMETRIC = "detect.geometric";
+    public static final String DETECT_CROP = "detect.crop";
+    public static final String OCR_PREPROCESS = "ocr.preprocess";
+    public static final String OCR_TESSERACT = "ocr.tesseract";
+
+    // Counters
+    /** Images handed to the pipeline, counted where they are loaded (not per preprocess rerun). */
+    public static final String IMAGES = "images";
+    public static final String PREPROCESS_REUSED = "preprocess.reused";
+    public static final String CANDIDATES_HAAR = "candidates.haar";
+    public static final String CANDIDATES_GEOMETRIC = "candidates.geometric";
+    public static final String OCR_CALLS = "ocr.calls";
+    public static final String OCR_CACHE_HITS = "ocr.cache.hits";
+    public static final String FRAME_CACHE_HITS = "frame.cache.hits";
+
+    private static final PipelineMetrics INSTANCE = new PipelineMetrics();
+
+    private volatile boolean enabled = Boolean.parseBoolean(System.getProperty("alpr.metrics.enabled", "true"));
+    private final ConcurrentMap<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService reporter;
+    private ScheduledFuture<?> reportTask;
+
+    private PipelineMetrics() {
+    }
+
+    public static PipelineMetrics get() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    // ==================== RECORDING ====================
+
+    /**
+     * Records the time since {@code startNanos} for a stage.
+     *
+     * @return Current {@link System#nanoTime()}, so consecutive stages can be chained
+     */
+    public long recordSince(String timer, long startNanos) {
+        long now = System.nanoTime();
+        if (enabled) {
+            timer(timer).record(now - startNanos);
+        }
+        return now;
+    }
+
+    public void record(String timer, long nanos) {
+        if (enabled) {
+            timer(timer).record(nanos);
+        }
+    }
+
+    public void increment(String counter) {
+        add(counter, 1);
+    }
+
+    public void add(String counter, long delta) {
+        if (enabled) {
+            counters.computeIfAbsent(counter, k -> new AtomicLong()).addAndGet(delta);
+        }
+    }
+
+    public LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    public long getCount(String counter) {
+        AtomicLong value = counters.get(counter);
+        return value != null ? value.get() : 0;
+    }
+
+    /**
+     * Drops all recorded values.
+     */
+    public void reset() {
+        timers.clear();
+        counters.clear();
+    }
+
+    // ==================== EXPORT ====================
+
+    /**
+     * @return Table of all timers (count, mean, percentiles) and counters
+     */
+    public String formatSummary() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-24s %8s %9s %9s %9s %9s %9s%n",
+                "Stage", "Count", "Mean ms", "p50 ms", "p90 ms", "p99 ms", "Max ms"));
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(timers).entrySet()) {
+            LatencyHistogram h = entry.getValue();
+            out.append(String.format("%-24s %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), h.getCount(), h.getMeanMillis(), h.getPercentileMillis(50),
+                    h.getPercentileMillis(90), h.getPercentileMillis(99), h.getMaxMillis()));
+        }
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(counters).entrySet()) {
+            out.append(String.format("%-24s %8d%n", entry.getKey(), entry.getValue().get()));
+        }
+        return out.toString();
+    }
+
+    /**
+     * @return All metrics in the Prometheus text exposition format: one summary
+     *         ({@code alpr_stage_duration_seconds}) labelled by stage, and one
+     *         counter per event name
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+        out.append("# HELP alpr_stage_duration_seconds Time spent per pipeline stage\n");
+        out.append("# TYPE alpr_stage_duration_seconds summary\n");
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(timers).entrySet()) {
+            String stage = entry.getKey();
+            LatencyHistogram h = entry.getValue();
+            for (double q : new double[]{0.5, 0.9, 0.99}) {
+                out.append(String.format(Locale.ROOT,
+                        "alpr_stage_duration_seconds{stage=\"%s\",quantile=\"%s\"} %.6f%n",
+                        stage, q, h.getPercentileMillis(q * 100) / 1000.0));
+            }
+            out.append(String.format(Locale.ROOT, "alpr_stage_duration_seconds_sum{stage=\"%s\"} %.6f%n",
+                    stage, h.getTotalNanos() / 1_000_000_000.0));
+            out.append(String.format(Locale.ROOT, "alpr_stage_duration_seconds_count{stage=\"%s\"} %d%n",
+                    stage, h.getCount()));
+        }
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(counters).entrySet()) {
+            String name = "alpr_" + entry.getKey().replace('.', '_') + "_total";
+            out.append("# TYPE ").append(name).append(" counter\n");
+            out.append(name).append(' ').append(entry.getValue().get()).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes {@link #toPrometheus()} to a file, replacing it atomically so a
+     * node-exporter textfile collector never reads a half-written file.
+     */
+    public void writePrometheus(String path) {
+        Path target = Paths.get(path).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(toPrometheus());
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write metrics to {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Logs the summary (and writes the Prometheus file, if given) every
+     * {@code intervalSeconds} on a background thread.
+     *
+     * @param prometheusFile File to rewrite on every report, or null
+     */
+    public synchronized void startPeriodicSummary(long intervalSeconds, String prometheusFile) {
+        stopPeriodicSummary();
+        if (reporter == null) {
+            reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "alpr-metrics");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        reportTask = reporter.scheduleAtFixedRate(() -> {
+            log.info("Metrics:\n{}", formatSummary());
+            if (prometheusFile != null) writePrometheus(prometheusFile);
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopPeriodicSummary() {
+        if (reportTask != null) {
+            reportTask.cancel(false);
+            reportTask = null;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.alpr;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PlateConsensus - Combines several OCR reads of one plate into a single read
+ *
+ * <p>The consensus is a sequence of character columns. Every new read is aligned
+ * to the columns with an edit-distance alignment whose costs come from the votes
+ * collected so far: matching a character is cheap where earlier reads agreed on
+ * it, skipping a column is cheap where earlier reads had nothing there, and an
+ * extra character opens a new column. Each aligned character then votes for its
+ * column with its Tesseract confidence (times an optional per-read weight); a
+ * skipped column gets a "no character" vote. The consensus text takes the winner
+ * of every column.</p>
+ *
+ * <p>Reads with dropped, doubled or misread characters thus still line up with
+ * the right positions, and a confident misread can be outvoted by two
+ * less confident correct reads.</p>
+ *
+ * <p>{@link #isStable()} tells the caller to stop OCR'ing more frames: the
+ * consensus text has not changed for the last {@code stableReads} voting reads and
+ * every column's winner holds at least {@code minAgreement} of its votes. Empty
+ * reads (failed OCR) do not vote, so they can never confirm a consensus.</p>
+ *
+ * <p>Not thread-safe.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.1 - Only voting reads count towards stability
+ */
+public class PlateConsensus {
+
+    // Column key for "no character at this position"
+    private static final char GAP = 0;
+    // Floor for character weights, so zero-confidence symbols still count a little
+    private static final double MIN_WEIGHT = 0.01;
+
+    private final int stableReads;
+    private final double minAgreement;
+
+    // Per column: character (or GAP) -> accumulated weight
+    private final List<Map<Character, Double>> columns = new ArrayList<>();
+    private double totalWeight = 0;
+    private int reads = 0;
+    private String lastText = "";
+    private int unchangedReads = 0;
+
+    /**
+     * Consensus that is stable after 2 agreeing reads with 60% agreement per character.
+     */
+    public PlateConsensus() {
+        this(2, 0.6);
+    }
+
+    /**
+     * @param stableReads  Consecutive reads that must yield the same consensus
+     * @param minAgreement Minimum share of a column's votes its winner must hold (0-1)
+     */
+    public PlateConsensus(int stableReads, double minAgreement) {
+        this.stableReads = Math.max(1, stableReads);
+        this.minAgreement = minAgreement;
+    }
+
+    /**
+     * Adds a read with weight 1.
+     */
+    public void add(OcrRead read) {
+        add(read, 1.0);
+    }
+
+    /**
+     * Aligns a read to the current columns and adds its votes.
+     *
+     * @param read   OCR read; empty reads are counted but neither vote nor confirm stability
+     * @param weight Multiplier for all of the read's votes (e.g. crop quality)
+     */
+    public void add(OcrRead read, double weight) {
+        reads++;
+        if (read == null || read.isEmpty() || weight <= 0) return;
+        vote(read, weight);
+
+        String text = getText();
+        if (!text.isEmpty() && text.equals(lastText)) {
+            unchangedReads++;
+        } else {
+            unchangedReads = 1;
+            lastText = text;
+        }
+    }
+
+    private void vote(OcrRead read, double weight) {
+        String text = read.getText();
+        double readWeight = 0;
+        double[] charWeights = new double[text.length()];
+        for (int i = 0; i < text.length(); i++) {
+            charWeights[i] = weight * Math.max(MIN_WEIGHT, read.getConfidence(i) / 100.0);
+            readWeight += charWeights[i];
+        }
+        // A read's "no character here" votes weigh as much as its average character
+        double gapWeight = readWeight / text.length();
+
+        int n = text.length();
+        int m = columns.size();
+
+        // cost[i][j]: aligning the first i characters with the first j columns
+        double[][] cost = new double[n + 1][m + 1];
+        // 0 = match, 1 = new column (read char, no column), 2 = skip column
+        byte[][] move = new byte[n + 1][m + 1];
+        for (int i = 1; i <= n; i++) {
+            cost[i][0] = i;
+            move[i][0] = 1;
+        }
+        for (int j = 1; j <= m; j++) {
+            cost[0][j] = cost[0][j - 1] + (1 - share(columns.get(j - 1), GAP));
+            move[0][j] = 2;
+        }
+        for (int i = 1; i <= n; i++) {
+            char ch = text.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                Map<Character, Double> column = columns.get(j - 1);
+                double match = cost[i - 1][j - 1] + (1 - share(column, ch));
+                double insert = cost[i - 1][j] + 1;
+                double skip = cost[i][j - 1] + (1 - share(column, GAP));
+                if (match <= insert && match <= skip) {
+                    cost[i][j] = match;
+                    move[i][j] = 0;
+                } else if (insert <= skip) {
+                    cost[i][j] = insert;
+                    move[i][j] = 1;
+                } else {
+                    cost[i][j] = skip;
+                    move[i][j] = 2;
+                }
+            }
+        }
+
+        // Walk back and apply the votes; new columns are inserted right-to-left
+        int i = n;
+        int j = m;
+        while (i > 0 || j > 0) {
+            byte step = move[i][j];
+            if (step == 0) {
+                columns.get(j - 1).merge(text.charAt(i - 1), charWeights[i - 1], Double::sum);
+                i--;
+                j--;
+            } else if (step == 1) {
+                Map<Character, Double> column = new HashMap<>();
+                // Every earlier read had nothing at this new position
+                if (totalWeight > 0) column.put(GAP, totalWeight);
+                column.merge(text.charAt(i - 1), charWeights[i - 1], Double::sum);
+                columns.add(j, column);
+                i--;
+            } else {
+                columns.get(j - 1).merge(GAP, gapWeight, Double::sum);
+                j--;
+            }
+        }
+        totalWeight += gapWeight;
+    }
+
+    private static double share(Map<Character, Double> column, char ch) {
+        double total = 0;
+        for (double w : column.values()) total += w;
+        return total > 0 ? column.getOrDefault(ch, 0.0) / total : 0;
+    }
+
+    private static Map.Entry<Character, Double> winner(Map<Character, Double> column) {
+        Map.Entry<Character, Double> best = null;
+        for (Map.Entry<Character, Double> entry : column.entrySet()) {
+            if (best == null || entry.getValue() > best.getValue()) best = entry;
+        }
+        return best;
+    }
+
+    // ==================== RESULT ====================
+
+    /**
+     * @return Consensus text (winner of every column), or empty string before the first non-empty read
+     */
+    public String getText() {
+        StringBuilder text = new StringBuilder();
+        for (Map<Character, Double> column : columns) {
+            char ch = winner(column).getKey();
+            if (ch != GAP) text.append(ch);
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return Lowest winner share over the columns (1.0 = all reads agree on every position)
+     */
+    public double getAgreement() {
+        if (columns.isEmpty()) return 0;
+        double min = 1.0;
+        for (Map<Character, Double> column : columns) {
+            min = Math.min(min, share(column, winner(column).getKey()));
+        }
+        return min;
+    }
+
+    /**
+     * @return true once more reads are unlikely to change the consensus
+     */
+    public boolean isStable() {
+        return !lastText.isEmpty() && unchangedReads >= stableReads && getAgreement() >= minAgreement;
+    }
+
+    public int getReadCount() {
+        return reads;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PlateConsensus{'%s', reads=%d, agreement=%.2f, stable=%s}",
+                getText(), reads, getAgreement(), isStable());
+    }
+}
@@ -1,68 +1,57 @@
 package com.alpr;
 
-import org.opencv.core.Core;
 import org.opencv.core.Mat;
-import org.opencv.core.MatOfPoint;
-import org.opencv.core.MatOfPoint2f;
-import org.opencv.core.MatOfRect;
-import org.opencv.core.Point;
 import org.opencv.core.Rect;
 import org.opencv.core.Scalar;
-import org.opencv.core.Size;
 import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
-import org.opencv.objdetect.CascadeClassifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * PlateDetector - Dual Detection System using Haar Cascade and Geometric Analysis
  *
+ * <p>Stateful wrapper around {@link DetectionEngine} for one image at a time: it
+ * holds the loaded image, the current {@link DetectionParams} (changed through the
+ * setters) and keeps the intermediate images for the tuning GUI's previews via the
+ * {@code last*} getters. Not thread-safe; use one detector per thread, or call
+ * {@link DetectionEngine#detect(Mat, DetectionParams)} directly to share one engine.</p>
+ *
  * @author ALPR Academic Project
- * @version 2.1 - Improved accuracy with separate plate crops for each method
+ * @version 2.2 - Detection algorithms moved to the stateless DetectionEngine
  */
 public class PlateDetector {
 
-    // Haar Cascade
-    private CascadeClassifier haarClassifier;
-    private boolean haarAvailable = false;
-    private static final String[] HAAR_CASCADE_FILES = {
-        "haarcascade_russian_plate_number.xml",
-        "haarcascade_licence_plate_rus_16stages.xml"
-    };
-
-    // Default values for tunable parameters
-    private static final int DEFAULT_BLUR_KERNEL = 11;
-    private static final int DEFAULT_CANNY_THRESHOLD1 = 50;
-    private static final int DEFAULT_CANNY_THRESHOLD2 = 150;
-    private static final double DEFAULT_MIN_ASPECT_RATIO = 2.0;
-    private static final double DEFAULT_MAX_ASPECT_RATIO = 7.0;
-    private static final int DEFAULT_DILATE_KERNEL_SIZE = 3;
-    private static final int DEFAULT_DILATE_ITERATIONS = 2;
-
-    // Instance tunable parameters
-    private int blurKernel = DEFAULT_BLUR_KERNEL;
-    private int cannyThreshold1 = DEFAULT_CANNY_THRESHOLD1;
-    private int cannyThreshold2 = DEFAULT_CANNY_THRESHOLD2;
-    private double minAspectRatio = DEFAULT_MIN_ASPECT_RATIO;
-    private double maxAspectRatio = DEFAULT_MAX_ASPECT_RATIO;
-    private int dilateKernelSize = DEFAULT_DILATE_KERNEL_SIZE;
-    private int dilateIterations = DEFAULT_DILATE_ITERATIONS;
-
-    // Haar parameters
-    private double haarScaleFactor = 1.05;
-    private int haarMinNeighbors = 3;
-
-    private static final double MIN_PLATE_AREA_RATIO = 0.002;
-    private static final double MAX_PLATE_AREA_RATIO = 0.20;
+    private static final Logger log = LoggerFactory.getLogger(PlateDetector.class);
+
+    /**
+     * Haar scan strategies.
+     */
+    public enum HaarScanMode {
+        /** One dense pyramid scan over the whole frame (original behaviour). */
+        EXHAUSTIVE,
+        /** Fast scan with a large scale step, then dense scans only around the coarse hits. */
+        COARSE_TO_FINE
+    }
+
+    private final DetectionEngine engine;
+    private DetectionParams params = DetectionParams.defaults();
 
     private Mat originalImage;
     private Rect lastDetectedRect;
     private String currentImageName;
+    private boolean debugSampled = false;
+    private boolean preprocessed = false;
 
-    // Intermediate results for GUI preview
+    // Reused scratch buffers, CLAHE and kernels (owned for the detector's lifetime)
+    private final PreprocessWorkspace workspace = new PreprocessWorkspace();
+
+    // Intermediate results for GUI preview (views into the workspace, null until preprocessed)
     private Mat lastGrayImage;
     private Mat lastFilteredImage;
     private Mat lastEdgeImage;
@@ -72,103 +61,160 @@ public class PlateDetector {
     // Detection results
     private List<DetectionResult> lastResults = new ArrayList<>();
 
-    private static final String DEBUG_BASE_DIR = "debug_output";
-    private static final String[] DEBUG_DIRS = {
-        "step1_grayscale", "step2_filtered", "step3_canny",
-        "step3b_dilated", "step4_detected_plate", "step5_ocr_preprocessed",
-        "haar_plates", "geo_plates"
-    };
-
     public PlateDetector() {
-        createDebugDirectories();
-        initializeHaarClassifier();
-    }
-
-    private void createDebugDirectories() {
-        File baseDir = new File(DEBUG_BASE_DIR);
-        if (!baseDir.exists()) baseDir.mkdirs();
-        for (String dir : DEBUG_DIRS) {
-            File subDir = new File(DEBUG_BASE_DIR, dir);
-            if (!subDir.exists()) subDir.mkdirs();
-        }
+        this(DetectionEngine.getDefault());
     }
 
-    private void initializeHaarClassifier() {
-        for (String cascadeFile : HAAR_CASCADE_FILES) {
-            File file = new File(cascadeFile);
-            if (!file.exists()) {
-                file = new File("src/main/resources/" + cascadeFile);
-            }
-
-            if (file.exists()) {
-                haarClassifier = new CascadeClassifier(file.getAbsolutePath());
-                if (!haarClassifier.empty()) {
-                    haarAvailable = true;
-                    System.out.println("[INFO] Haar Cascade loaded: " + file.getAbsolutePath());
-                    return;
-                }
-            }
-        }
-        System.err.println("[WARN] No Haar Cascade file found. Haar detection disabled.");
+    /**
+     * @param engine Engine to run detection on (may be shared with other detectors)
+     */
+    public PlateDetector(DetectionEngine engine) {
+        this.engine = engine;
     }
 
-    private void saveDebugImage(String stepDir, Mat image, String imageName) {
-        if (image == null || image.empty()) return;
-        String filename = DEBUG_BASE_DIR + "/" + stepDir + "/" + imageName + ".jpg";
-        Imgcodecs.imwrite(filename, image);
+    /**
+     * @return Name the engine writes debug images under, or null when this image was not sampled
+     */
+    private String debugName() {
+        return debugSampled ? currentImageName : null;
     }
 
     // ==================== PARAMETER SETTERS ====================
 
+    /**
+     * Replaces all detection parameters at once.
+     */
+    public void setParams(DetectionParams params) {
+        this.params = (params == null) ? DetectionParams.defaults() : params;
+    }
+
     public void setBlurKernel(int size) {
-        this.blurKernel = (size % 2 == 0) ? size + 1 : size;
+        params = params.toBuilder().blurKernel(size).build();
     }
 
     public void setCannyThreshold1(int threshold) {
-        this.cannyThreshold1 = threshold;
+        params = params.toBuilder().cannyThreshold1(threshold).build();
     }
 
     public void setCannyThreshold2(int threshold) {
-        this.cannyThreshold2 = threshold;
+        params = params.toBuilder().cannyThreshold2(threshold).build();
     }
 
     public void setMinAspectRatio(double ratio) {
-        this.minAspectRatio = ratio;
+        params = params.toBuilder().minAspectRatio(ratio).build();
     }
 
     public void setMaxAspectRatio(double ratio) {
-        this.maxAspectRatio = ratio;
+        params = params.toBuilder().maxAspectRatio(ratio).build();
     }
 
     public void setHaarScaleFactor(double factor) {
-        this.haarScaleFactor = factor;
+        params = params.toBuilder().haarScaleFactor(factor).build();
     }
 
     public void setDilateKernelSize(int size) {
-        this.dilateKernelSize = (size < 1) ? 1 : size;
+        params = params.toBuilder().dilateKernelSize(size).build();
     }
 
     public void setDilateIterations(int iterations) {
-        this.dilateIterations = (iterations < 0) ? 0 : iterations;
+        params = params.toBuilder().dilateIterations(iterations).build();
     }
 
     public void setHaarMinNeighbors(int neighbors) {
-        this.haarMinNeighbors = neighbors;
+        params = params.toBuilder().haarMinNeighbors(neighbors).build();
+    }
+
+    public void setHaarScanMode(HaarScanMode mode) {
+        params = params.toBuilder().haarScanMode(mode).build();
+    }
+
+    /**
+     * @param factor Pyramid step of the coarse pass in {@link HaarScanMode#COARSE_TO_FINE} mode
+     */
+    public void setHaarCoarseScaleFactor(double factor) {
+        params = params.toBuilder().haarCoarseScaleFactor(factor).build();
+    }
+
+    /**
+     * Restricts detection to a static region of interest. Non-zero mask pixels are
+     * searched; the mask is given at camera resolution and rescaled as needed.
+     * Haar only scans the mask's bounding box and both methods drop detections
+     * centred outside the mask.
+     *
+     * <p>The previous mask is released, so params obtained earlier from
+     * {@link #getParams()} must not be used for detection afterwards.</p>
+     *
+     * @param mask Single-channel mask, or null to search the whole frame
+     */
+    public void setRoiMask(Mat mask) {
+        DetectionParams previous = params;
+        params = params.toBuilder().roiMask(mask).build();
+        previous.release();
+    }
+
+    /**
+     * Loads the ROI mask from an image file (white = search, black = ignore).
+     *
+     * @return true if the mask was loaded
+     */
+    public boolean loadRoiMask(String path) {
+        Mat mask = Imgcodecs.imread(path, Imgcodecs.IMREAD_GRAYSCALE);
+        if (mask.empty()) {
+            log.warn("Could not load ROI mask: {}", path);
+            return false;
+        }
+        setRoiMask(mask);
+        mask.release();
+        log.info("ROI mask loaded: {}", path);
+        return true;
+    }
+
+    /**
+     * Runs the Haar and geometric branches of {@link #detectAll()} in parallel.
+     * Both only read the preprocessed images and write to separate scratch buffers;
+     * results are merged in the sequential order (Haar first), so output is
+     * identical. Lowers single-image latency when cores are idle; in batch mode
+     * with one worker per core it only adds hand-off overhead.
+     */
+    public void setConcurrentDetection(boolean concurrent) {
+        params = params.toBuilder().concurrentDetection(concurrent).build();
+    }
+
+    /**
+     * Limits the resolution detection runs at. Images whose longer edge exceeds
+     * this are downscaled before preprocessing and Haar; detections are mapped back
+     * and plates are cropped from the full-resolution original, so OCR input quality
+     * is unchanged. Kernel sizes and Canny thresholds apply at detection resolution.
+     *
+     * @param maxEdge Longest edge in pixels (e.g. 1280), or 0 to always detect at full resolution
+     */
+    public void setDetectMaxEdge(int maxEdge) {
+        params = params.toBuilder().detectMaxEdge(maxEdge).build();
     }
 
     // ==================== PARAMETER GETTERS ====================
 
-    public int getBlurKernel() { return blurKernel; }
-    public int getCannyThreshold1() { return cannyThreshold1; }
-    public int getCannyThreshold2() { return cannyThreshold2; }
-    public double getMinAspectRatio() { return minAspectRatio; }
-    public double getMaxAspectRatio() { return maxAspectRatio; }
-    public boolean isHaarAvailable() { return haarAvailable; }
+    /**
+     * @return Current parameters as an immutable snapshot (safe to hand to other threads)
+     */
+    public DetectionParams getParams() { return params; }
+    public DetectionEngine getEngine() { return engine; }
+    public int getBlurKernel() { return params.getBlurKernel(); }
+    public int getCannyThreshold1() { return params.getCannyThreshold1(); }
+    public int getCannyThreshold2() { return params.getCannyThreshold2(); }
+    public double getMinAspectRatio() { return params.getMinAspectRatio(); }
+    public double getMaxAspectRatio() { return params.getMaxAspectRatio(); }
+    public boolean isHaarAvailable() { return engine.isHaarAvailable(); }
+    public int getDetectMaxEdge() { return params.getDetectMaxEdge(); }
+    public HaarScanMode getHaarScanMode() { return params.getHaarScanMode(); }
+    public double getHaarCoarseScaleFactor() { return params.getHaarCoarseScaleFactor(); }
+    public boolean hasRoiMask() { return params.getRoiMask() != null; }
+    public boolean isConcurrentDetection() { return params.isConcurrentDetection(); }
 
     // ==================== INTERMEDIATE IMAGE GETTERS ====================
 
-    public int getDilateKernelSize() { return dilateKernelSize; }
-    public int getDilateIterations() { return dilateIterations; }
+    public int getDilateKernelSize() { return params.getDilateKernelSize(); }
+    public int getDilateIterations() { return params.getDilateIterations(); }
     public Mat getLastGrayImage() { return lastGrayImage; }
     public Mat getLastFilteredImage() { return lastFilteredImage; }
     public Mat getLastEdgeImage() { return lastEdgeImage; }
@@ -176,9 +222,11 @@ public class PlateDetector {
     public Mat getLastContourImage() { return lastContourImage; }
     public Mat getOriginalImage() { return originalImage; }
     public String getCurrentImageName() { return currentImageName; }
+    public boolean isDebugSampled() { return debugSampled; }
+    public double getDetectionScale() { return workspace.detectionScale; }
     public Rect getLastDetectedRect() { return lastDetectedRect; }
-    public List<DetectionResult> getLastResults() { return lastResults; }
-    public static String getDebugBaseDir() { return DEBUG_BASE_DIR; }
+    public List<DetectionResult> getLastResults() { return Collections.unmodifiableList(lastResults); }
+    public static String getDebugBaseDir() { return DetectionEngine.DEBUG_BASE_DIR; }
 
     // ==================== IMAGE LOADING ====================
 
@@ -186,11 +234,64 @@ public class PlateDetector {
         if (imagePath == null || imagePath.trim().isEmpty()) {
             return false;
         }
+        reset();
         File imageFile = new File(imagePath);
         currentImageName = imageFile.getName().replaceAll("\\.[^.]+$", "");
-        originalImage = Imgcodecs.imread(imagePath);
-        lastResults.clear();
-        return originalImage != null && !originalImage.empty();
+        debugSampled = DebugImageWriter.get().sampleImage();
+        long start = System.nanoTime();
+        originalImage = DecodedImageCache.get().load(imagePath);
+        PipelineMetrics.get().recordSince(PipelineMetrics.IMAGE_LOAD, start);
+        return countLoaded();
+    }
+
+    /**
+     * Uses an already decoded BGR image (e.g. a video frame or an in-memory test image).
+     * The detector takes ownership and releases it on the next {@link #reset()};
+     * pass a clone if the caller still needs the Mat afterwards.
+     */
+    public boolean loadImage(Mat image, String imageName) {
+        reset();
+        currentImageName = imageName;
+        debugSampled = DebugImageWriter.get().sampleImage();
+        originalImage = image;
+        return countLoaded();
+    }
+
+    private boolean countLoaded() {
+        if (originalImage == null || originalImage.empty()) return false;
+        PipelineMetrics.get().increment(PipelineMetrics.IMAGES);
+        return true;
+    }
+
+    /**
+     * Clears all per-image state so the detector can be reused for the next image.
+     * The decoded image and the previous results' cropped plates are released
+     * immediately instead of waiting for GC finalizers, so callers must be done with
+     * earlier crops (or clone them) before the next image. The intermediate images
+     * live in the reusable workspace and are kept for the next image.
+     */
+    public void reset() {
+        for (DetectionResult result : lastResults) {
+            result.release();
+        }
+        releaseMat(originalImage);
+
+        originalImage = null;
+        lastGrayImage = null;
+        lastFilteredImage = null;
+        lastEdgeImage = null;
+        lastDilatedImage = null;
+        lastContourImage = null;
+        lastDetectedRect = null;
+        currentImageName = null;
+        debugSampled = false;
+        preprocessed = false;
+        workspace.detectionScale = 1.0;
+        lastResults = new ArrayList<>();
+    }
+
+    private static void releaseMat(Mat mat) {
+        if (mat != null) mat.release();
     }
 
     // ==================== PREPROCESSING ====================
@@ -200,58 +301,27 @@ public class PlateDetector {
             return null;
         }
 
-        // Step 1: Grayscale
-        lastGrayImage = new Mat();
-        Imgproc.cvtColor(originalImage, lastGrayImage, Imgproc.COLOR_BGR2GRAY);
-
-        // Step 2: CLAHE for contrast enhancement
-        Mat enhanced = new Mat();
-        Imgproc.createCLAHE(2.0, new Size(8, 8)).apply(lastGrayImage, enhanced);
-
-        // Step 3: Bilateral filter
-        lastFilteredImage = new Mat();
-        Imgproc.bilateralFilter(enhanced, lastFilteredImage, blurKernel, 17, 17);
-
-        // Step 4: Canny edge detection
-        lastEdgeImage = new Mat();
-        Imgproc.Canny(lastFilteredImage, lastEdgeImage, cannyThreshold1, cannyThreshold2);
-
-        // Step 5: Morphological Closing - connect horizontal elements
-        Mat closedImage = new Mat();
-        Mat closeKernel = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(21, 5));
-        Imgproc.morphologyEx(lastEdgeImage, closedImage, Imgproc.MORPH_CLOSE, closeKernel);
-
-        // Step 6: Dilate
-        lastDilatedImage = new Mat();
-        if (dilateIterations > 0) {
-            Mat dilateKernel = Imgproc.getStructuringElement(Imgproc.MORPH_RECT,
-                new Size(dilateKernelSize, dilateKernelSize));
-            Imgproc.dilate(closedImage, lastDilatedImage, dilateKernel, new Point(-1, -1), dilateIterations);
-        } else {
-            closedImage.copyTo(lastDilatedImage);
-        }
+        engine.preprocess(originalImage, params, workspace);
+        preprocessed = true;
 
+        lastGrayImage = workspace.gray;
+        lastFilteredImage = workspace.filtered;
+        lastEdgeImage = workspace.edges;
+        lastDilatedImage = workspace.dilated;
         return lastDilatedImage;
     }
 
     public Mat preprocessImageWithOriginal(String imagePath) {
         if (!loadImage(imagePath)) {
-            System.err.println("[ERROR] Could not load image: " + imagePath);
+            log.error("Could not load image: {}", imagePath);
             return null;
         }
-        System.out.println("[INFO] Image loaded: " + imagePath);
-        System.out.println("[INFO] Dimensions: " + originalImage.cols() + "x" + originalImage.rows());
+        log.debug("Image loaded: {} ({}x{})", imagePath, originalImage.cols(), originalImage.rows());
 
         Mat result = preprocess();
+        engine.saveStepImages(workspace, debugName());
 
-        if (currentImageName != null) {
-            saveDebugImage("step1_grayscale", lastGrayImage, currentImageName);
-            saveDebugImage("step2_filtered", lastFilteredImage, currentImageName);
-            saveDebugImage("step3_canny", lastEdgeImage, currentImageName);
-            saveDebugImage("step3b_dilated", lastDilatedImage, currentImageName);
-        }
-
-        System.out.println("[INFO] Preprocessing complete.");
+        log.debug("Preprocessing complete");
         return result;
     }
 
@@ -260,312 +330,45 @@ public class PlateDetector {
     /**
      * Runs both Haar Cascade and Geometric detection methods.
      * Each detection gets its own cropped plate image.
+     *
+     * @return Read-only view of the results; valid until the next detection or reset
      */
     public List<DetectionResult> detectAll() {
+        for (DetectionResult result : lastResults) {
+            result.release();
+        }
         lastResults.clear();
 
         if (originalImage == null || originalImage.empty()) {
-            return lastResults;
+            return getLastResults();
         }
 
-        if (lastGrayImage == null || lastGrayImage.empty()) {
+        if (!preprocessed) {
             preprocess();
         }
 
-        // Run Haar Cascade detection
-        List<DetectionResult> haarResults = detectWithHaar();
-        lastResults.addAll(haarResults);
-
-        // Run Geometric detection
-        List<DetectionResult> geoResults = detectWithGeometric();
-        lastResults.addAll(geoResults);
+        lastResults.addAll(engine.detectPreprocessed(originalImage, params, workspace, debugName()));
 
-        System.out.println("[INFO] Detection complete - Haar: " + haarResults.size() +
-                          ", Geometric: " + geoResults.size());
+        engine.renderDetections(originalImage, lastResults, workspace.contourImage);
+        lastContourImage = workspace.contourImage;
 
-        createContourVisualization();
-
-        return lastResults;
+        return getLastResults();
     }
 
     /**
      * Detects plates using Haar Cascade classifier.
      */
-    private List<DetectionResult> detectWithHaar() {
-        List<DetectionResult> results = new ArrayList<>();
-
-        if (!haarAvailable || lastGrayImage == null) {
-            return results;
-        }
-
-        // Apply histogram equalization for better detection
-        Mat equalizedGray = new Mat();
-        Imgproc.equalizeHist(lastGrayImage, equalizedGray);
-
-        MatOfRect detections = new MatOfRect();
-        haarClassifier.detectMultiScale(
-            equalizedGray,
-            detections,
-            haarScaleFactor,
-            haarMinNeighbors,
-            0,
-            new Size(80, 20),
-            new Size(500, 150)
-        );
-
-        int idx = 0;
-        for (Rect rect : detections.toArray()) {
-            // Validate aspect ratio
-            double ar = (double) rect.width / rect.height;
-            if (ar < 1.5 || ar > 8.0) continue;
-
-            DetectionResult result = new DetectionResult(rect, DetectionResult.MethodType.HAAR);
-
-            // Crop and store the plate with padding
-            Mat croppedPlate = cropPlateWithPadding(rect, 5);
-            if (croppedPlate != null) {
-                result.setCroppedPlate(croppedPlate);
-                saveDebugImage("haar_plates", croppedPlate, currentImageName + "_haar_" + idx);
-            }
-
-            results.add(result);
-            System.out.println("[HAAR] Detected #" + idx + ": " + rect.x + "," + rect.y +
-                              " size: " + rect.width + "x" + rect.height + " AR: " + String.format("%.2f", ar));
-            idx++;
-        }
-
-        return results;
+    List<DetectionResult> detectWithHaar() {
+        if (!preprocessed) return new ArrayList<>();
+        return engine.detectHaar(originalImage, params, workspace, debugName());
     }
 
     /**
      * Detects plates using Geometric/Contour analysis with perspective transform.
      */
-    private List<DetectionResult> detectWithGeometric() {
-        List<DetectionResult> results = new ArrayList<>();
-
-        if (lastDilatedImage == null || lastDilatedImage.empty()) {
-            return results;
-        }
-
-        double imageArea = lastDilatedImage.rows() * lastDilatedImage.cols();
-        double minArea = imageArea * MIN_PLATE_AREA_RATIO;
-        double maxArea = imageArea * MAX_PLATE_AREA_RATIO;
-
-        List<MatOfPoint> contours = new ArrayList<>();
-        Mat hierarchy = new Mat();
-        Imgproc.findContours(lastDilatedImage.clone(), contours, hierarchy,
-                Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
-
-        contours.sort((c1, c2) -> Double.compare(
-                Imgproc.contourArea(c2), Imgproc.contourArea(c1)));
-
-        int idx = 0;
-        for (int i = 0; i < Math.min(50, contours.size()); i++) {
-            MatOfPoint contour = contours.get(i);
-            double area = Imgproc.contourArea(contour);
-
-            if (area < minArea || area > maxArea) continue;
-
-            MatOfPoint2f contour2f = new MatOfPoint2f(contour.toArray());
-            double peri = Imgproc.arcLength(contour2f, true);
-            MatOfPoint2f approx = new MatOfPoint2f();
-            Imgproc.approxPolyDP(contour2f, approx, 0.018 * peri, true);
-
-            Point[] pts = approx.toArray();
-
-            // Accept 4-6 vertices (more flexible for noisy contours)
-            if (pts.length >= 4 && pts.length <= 6) {
-                Rect rect = Imgproc.boundingRect(contour);
-                double aspectRatio = (double) rect.width / rect.height;
-
-                if (aspectRatio >= minAspectRatio && aspectRatio <= maxAspectRatio) {
-                    DetectionResult result = new DetectionResult(rect, DetectionResult.MethodType.GEOMETRIC);
-
-                    // Use four-point transform if we have exactly 4 points
-                    Mat croppedPlate;
-                    if (pts.length == 4) {
-                        croppedPlate = fourPointTransform(originalImage, pts);
-                    } else {
-                        croppedPlate = cropPlateWithPadding(rect, 3);
-                    }
-
-                    if (croppedPlate != null && !croppedPlate.empty()) {
-                        result.setCroppedPlate(croppedPlate);
-                        saveDebugImage("geo_plates", croppedPlate, currentImageName + "_geo_" + idx);
-                    }
-
-                    results.add(result);
-                    System.out.println("[GEO] Detected #" + idx + ": " + rect.x + "," + rect.y +
-                                      " size: " + rect.width + "x" + rect.height +
-                                      " AR: " + String.format("%.2f", aspectRatio));
-                    idx++;
-
-                    // Limit to top 3 geometric detections
-                    if (idx >= 3) break;
-                }
-            }
-        }
-
-        return results;
-    }
-
-    /**
-     * Crops a plate region with padding.
-     */
-    private Mat cropPlateWithPadding(Rect rect, int padding) {
-        if (originalImage == null) return null;
-
-        int x = Math.max(0, rect.x - padding);
-        int y = Math.max(0, rect.y - padding);
-        int w = Math.min(originalImage.cols() - x, rect.width + 2 * padding);
-        int h = Math.min(originalImage.rows() - y, rect.height + 2 * padding);
-
-        if (w <= 0 || h <= 0) return null;
-
-        return new Mat(originalImage, new Rect(x, y, w, h));
-    }
-
-    /**
-     * Creates visualization with colored bounding boxes.
-     */
-    private void createContourVisualization() {
-        if (originalImage == null) return;
-
-        lastContourImage = originalImage.clone();
-
-        List<Rect> highConfidenceRects = findHighConfidenceDetections();
-
-        for (DetectionResult result : lastResults) {
-            Rect rect = result.getBounds();
-            Scalar color;
-            int thickness = 2;
-
-            boolean isHighConfidence = highConfidenceRects.stream()
-                    .anyMatch(hc -> DetectionResult.calculateIoU(rect, hc) > 0.5);
-
-            if (isHighConfidence) {
-                color = new Scalar(0, 0, 255); // Red
-                thickness = 3;
-            } else if (result.getMethod() == DetectionResult.MethodType.HAAR) {
-                color = new Scalar(0, 255, 0); // Green
-            } else {
-                color = new Scalar(255, 0, 0); // Blue
-            }
-
-            Imgproc.rectangle(lastContourImage, rect, color, thickness);
-
-            String label = result.getMethod() == DetectionResult.MethodType.HAAR ? "H" : "G";
-            if (isHighConfidence) label = "H+G";
-            if (result.getOcrResult() != null && !result.getOcrResult().isEmpty()) {
-                label += ": " + result.getOcrResult();
-            }
-            Imgproc.putText(lastContourImage, label,
-                    new Point(rect.x, rect.y - 5),
-                    Imgproc.FONT_HERSHEY_SIMPLEX, 0.5, color, 2);
-        }
-    }
-
-    private List<Rect> findHighConfidenceDetections() {
-        List<Rect> highConfidence = new ArrayList<>();
-
-        List<DetectionResult> haarResults = new ArrayList<>();
-        List<DetectionResult> geoResults = new ArrayList<>();
-
-        for (DetectionResult result : lastResults) {
-            if (result.getMethod() == DetectionResult.MethodType.HAAR) {
-                haarResults.add(result);
-            } else {
-                geoResults.add(result);
-            }
-        }
-
-        for (DetectionResult haar : haarResults) {
-            for (DetectionResult geo : geoResults) {
-                if (haar.overlaps(geo, 0.3)) {
-                    highConfidence.add(haar.getBounds());
-                }
-            }
-        }
-
-        return highConfidence;
-    }
-
-    // ==================== FOUR POINT TRANSFORM ====================
-
-    private Point[] orderPoints(Point[] pts) {
-        if (pts == null || pts.length != 4) {
-            return null;
-        }
-
-        Point[] ordered = new Point[4];
-        double[] sums = new double[4];
-        double[] diffs = new double[4];
-
-        for (int i = 0; i < 4; i++) {
-            sums[i] = pts[i].x + pts[i].y;
-            diffs[i] = pts[i].y - pts[i].x;
-        }
-
-        ordered[0] = pts[indexOfMin(sums)];
-        ordered[2] = pts[indexOfMax(sums)];
-        ordered[1] = pts[indexOfMin(diffs)];
-        ordered[3] = pts[indexOfMax(diffs)];
-
-        return ordered;
-    }
-
-    private int indexOfMin(double[] arr) {
-        int idx = 0;
-        for (int i = 1; i < arr.length; i++) {
-            if (arr[i] < arr[idx]) idx = i;
-        }
-        return idx;
-    }
-
-    private int indexOfMax(double[] arr) {
-        int idx = 0;
-        for (int i = 1; i < arr.length; i++) {
-            if (arr[i] > arr[idx]) idx = i;
-        }
-        return idx;
-    }
-
-    private Mat fourPointTransform(Mat image, Point[] pts) {
-        Point[] ordered = orderPoints(pts);
-        if (ordered == null) return null;
-
-        Point tl = ordered[0], tr = ordered[1], br = ordered[2], bl = ordered[3];
-
-        double widthTop = distance(tl, tr);
-        double widthBottom = distance(bl, br);
-        int maxWidth = (int) Math.max(widthTop, widthBottom);
-
-        double heightLeft = distance(tl, bl);
-        double heightRight = distance(tr, br);
-        int maxHeight = (int) Math.max(heightLeft, heightRight);
-
-        maxWidth = Math.max(maxWidth, 100);
-        maxHeight = Math.max(maxHeight, 30);
-
-        MatOfPoint2f srcPoints = new MatOfPoint2f(tl, tr, br, bl);
-        MatOfPoint2f dstPoints = new MatOfPoint2f(
-            new Point(0, 0),
-            new Point(maxWidth - 1, 0),
-            new Point(maxWidth - 1, maxHeight - 1),
-            new Point(0, maxHeight - 1)
-        );
-
-        Mat transformMatrix = Imgproc.getPerspectiveTransform(srcPoints, dstPoints);
-        Mat warped = new Mat();
-        Imgproc.warpPerspective(image, warped, transformMatrix, new Size(maxWidth, maxHeight));
-
-        return warped;
-    }
-
-    private double distance(Point p1, Point p2) {
-        double dx = p2.x - p1.x;
-        double dy = p2.y - p1.y;
-        return Math.sqrt(dx * dx + dy * dy);
+    List<DetectionResult> detectWithGeometric() {
+        if (!preprocessed) return new ArrayList<>();
+        return engine.detectGeometric(originalImage, params, workspace, debugName());
     }
 
     // ==================== LEGACY METHODS ====================
@@ -604,6 +407,13 @@ public class PlateDetector {
     }
 
     public int[] getDetectionStats() {
+        return countDetections(lastResults);
+    }
+
+    /**
+     * @return {Haar count, geometric count, Haar/geometric pairs overlapping by 30%}
+     */
+    static int[] countDetections(List<DetectionResult> results) {
         int haarCount = 0;
         int geoCount = 0;
         int overlapCount = 0;
@@ -611,7 +421,7 @@ public class PlateDetector {
         List<DetectionResult> haarResults = new ArrayList<>();
         List<DetectionResult> geoResults = new ArrayList<>();
 
-        for (DetectionResult result : lastResults) {
+        for (DetectionResult result : results) {
             if (result.getMethod() == DetectionResult.MethodType.HAAR) {
                 haarCount++;
                 haarResults.add(result);
@@ -632,4 +442,3 @@ public class PlateDetector {
         return new int[]{haarCount, geoCount, overlapCount};
     }
 }
-
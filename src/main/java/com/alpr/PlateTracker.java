@@ -0,0 +1,277 @@
+package com.alpr;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDouble;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PlateTracker - Associates plate detections across video frames
+ *
+ * <p>Consecutive frames of one car produce almost the same detection many times.
+ * The tracker links each frame's detections to existing tracks by bounding box
+ * overlap ({@link DetectionResult#calculateIoU}) and decides which crops are worth
+ * OCR: the first crop of a new track, and later crops only when their quality
+ * (size x sharpness) beats the best one read so far by a clear margin. All reads
+ * of a track are merged by a {@link PlateConsensus}; once it is stable the track
+ * is not OCR'd again. The consolidated plate is reported when the track ends.</p>
+ *
+ * <p>Per frame: {@link #update(int, List, List)} returns the detections to OCR, then
+ * {@link #recordRead(DetectionResult, OcrRead)} is called with each OCR result.
+ * Ended tracks are returned by {@link #update} on the frame they expire and by
+ * {@link #finish()} at the end of the stream. Not thread-safe.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public class PlateTracker {
+
+    /**
+     * One plate followed across frames.
+     */
+    public static final class Track {
+        private final int id;
+        private final int firstFrame;
+        private Rect bounds;
+        private int lastFrame;
+        private int hits = 1;
+        private double bestQuality = 0;
+        private int ocrRuns = 0;
+        private final PlateConsensus consensus = new PlateConsensus();
+
+        private Track(int id, int frame, Rect bounds) {
+            this.id = id;
+            this.firstFrame = frame;
+            this.lastFrame = frame;
+            this.bounds = bounds;
+        }
+
+        public int getId() { return id; }
+        public int getFirstFrame() { return firstFrame; }
+        public int getLastFrame() { return lastFrame; }
+        public int getHits() { return hits; }
+        public int getOcrRuns() { return ocrRuns; }
+        public Rect getBounds() { return bounds; }
+        public PlateConsensus getConsensus() { return consensus; }
+
+        /**
+         * @return Consolidated plate text, or empty string if nothing was read
+         */
+        public String getConsolidatedText() {
+            return consensus.getText();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Track{id=%d, frames=%d-%d, hits=%d, ocr=%d, plate='%s'}",
+                    id, firstFrame, lastFrame, hits, ocrRuns, getConsolidatedText());
+        }
+    }
+
+    private double matchIoU = 0.3;
+    private int maxMissedFrames = 5;
+    private double qualityGain = 1.25;
+    private int maxOcrPerTrack = 5;
+
+    private final List<Track> activeTracks = new ArrayList<>();
+    // Detections handed out for OCR in the current frame, with their track and crop quality
+    private final Map<DetectionResult, Track> pendingTracks = new HashMap<>();
+    private final Map<DetectionResult, Double> pendingQuality = new HashMap<>();
+    private int nextId = 1;
+    private int totalTracks = 0;
+    private int totalOcrRuns = 0;
+    private int totalDetections = 0;
+
+    // ==================== CONFIGURATION ====================
+
+    /** Minimum IoU between a detection and a track's last box to continue the track (default 0.3). */
+    public void setMatchIoU(double iou) {
+        this.matchIoU = iou;
+    }
+
+    /** Frames a track may go undetected before it ends (default 5). */
+    public void setMaxMissedFrames(int frames) {
+        this.maxMissedFrames = Math.max(0, frames);
+    }
+
+    /** Factor a crop's quality must exceed the track's best read by to be OCR'd again (default 1.25). */
+    public void setQualityGain(double gain) {
+        this.qualityGain = Math.max(1.0, gain);
+    }
+
+    /** Upper bound on OCR runs per track (default 5). */
+    public void setMaxOcrPerTrack(int runs) {
+        this.maxOcrPerTrack = Math.max(1, runs);
+    }
+
+    // ==================== TRACKING ====================
+
+    /**
+     * Associates one frame's detections with the active tracks.
+     *
+     * @param frame      Frame index (increasing)
+     * @param detections Detections of the frame, with cropped plates
+     * @param ended      Receives tracks that expired on this frame
+     * @return Detections whose crops should be OCR'd
+     */
+    public List<DetectionResult> update(int frame, List<DetectionResult> detections, List<Track> ended) {
+        pendingTracks.clear();
+        pendingQuality.clear();
+        totalDetections += detections.size();
+
+        // Haar and geometric often report the same plate; keep one detection per plate
+        List<DetectionResult> plates = mergeOverlapping(detections);
+
+        // Greedy association: best overlapping pairs first
+        List<Track> unmatchedTracks = new ArrayList<>(activeTracks);
+        List<DetectionResult> unmatched = new ArrayList<>(plates);
+        List<DetectionResult> toOcr = new ArrayList<>();
+        while (true) {
+            double bestIoU = matchIoU;
+            Track bestTrack = null;
+            DetectionResult bestDet = null;
+            for (Track track : unmatchedTracks) {
+                for (DetectionResult det : unmatched) {
+                    double iou = DetectionResult.calculateIoU(track.bounds, det.getBounds());
+                    if (iou > bestIoU) {
+                        bestIoU = iou;
+                        bestTrack = track;
+                        bestDet = det;
+                    }
+                }
+            }
+            if (bestTrack == null) break;
+
+            unmatchedTracks.remove(bestTrack);
+            unmatched.remove(bestDet);
+            bestTrack.bounds = bestDet.getBounds();
+            bestTrack.lastFrame = frame;
+            bestTrack.hits++;
+
+            double quality = cropQuality(bestDet.getCroppedPlate());
+            if (bestTrack.ocrRuns < maxOcrPerTrack && !bestTrack.consensus.isStable()
+                    && quality > bestTrack.bestQuality * qualityGain) {
+                schedule(bestDet, bestTrack, quality, toOcr);
+            }
+        }
+
+        // Anything left starts a new track and is always read once
+        for (DetectionResult det : unmatched) {
+            Track track = new Track(nextId++, frame, det.getBounds());
+            activeTracks.add(track);
+            totalTracks++;
+            double quality = cropQuality(det.getCroppedPlate());
+            if (quality > 0) {
+                schedule(det, track, quality, toOcr);
+            }
+        }
+
+        // Expire tracks that have not been seen for too long
+        for (int i = activeTracks.size() - 1; i >= 0; i--) {
+            Track track = activeTracks.get(i);
+            if (frame - track.lastFrame > maxMissedFrames) {
+                activeTracks.remove(i);
+                ended.add(track);
+            }
+        }
+        return toOcr;
+    }
+
+    private void schedule(DetectionResult det, Track track, double quality, List<DetectionResult> toOcr) {
+        pendingTracks.put(det, track);
+        pendingQuality.put(det, quality);
+        toOcr.add(det);
+    }
+
+    /**
+     * Adds the OCR result of a detection returned by the last {@link #update} to its
+     * track's consensus. Reads are weighted by crop quality; well-formed plates count double.
+     */
+    public void recordRead(DetectionResult detection, OcrRead read) {
+        Track track = pendingTracks.remove(detection);
+        Double quality = pendingQuality.remove(detection);
+        if (track == null || quality == null) return;
+
+        track.ocrRuns++;
+        totalOcrRuns++;
+        track.bestQuality = Math.max(track.bestQuality, quality);
+        if (read == null) read = OcrRead.empty();
+
+        double weight = quality * (CandidateOcr.isPlateFormat(read.getText()) ? 2.0 : 1.0);
+        track.consensus.add(read, weight);
+    }
+
+    /**
+     * Ends all remaining tracks (end of stream).
+     *
+     * @return The tracks that were still active
+     */
+    public List<Track> finish() {
+        List<Track> ended = new ArrayList<>(activeTracks);
+        activeTracks.clear();
+        return ended;
+    }
+
+    public int getActiveTrackCount() { return activeTracks.size(); }
+    public int getTotalTracks() { return totalTracks; }
+    public int getTotalOcrRuns() { return totalOcrRuns; }
+    public int getTotalDetections() { return totalDetections; }
+
+    // ==================== HELPERS ====================
+
+    /**
+     * Collapses detections of the same plate (IoU above the match threshold),
+     * keeping the one with the best crop.
+     */
+    private List<DetectionResult> mergeOverlapping(List<DetectionResult> detections) {
+        List<DetectionResult> merged = new ArrayList<>();
+        for (DetectionResult det : detections) {
+            if (det.getCroppedPlate() == null || det.getCroppedPlate().empty()) continue;
+
+            int duplicate = -1;
+            for (int i = 0; i < merged.size(); i++) {
+                if (det.overlaps(merged.get(i), matchIoU)) {
+                    duplicate = i;
+                    break;
+                }
+            }
+            if (duplicate < 0) {
+                merged.add(det);
+            } else if (cropQuality(det.getCroppedPlate()) > cropQuality(merged.get(duplicate).getCroppedPlate())) {
+                merged.set(duplicate, det);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Crop quality for OCR: larger and sharper is better. Sharpness is the standard
+     * deviation of the Laplacian, which drops quickly with motion blur and defocus.
+     *
+     * @return Quality score (0 for an empty crop)
+     */
+    static double cropQuality(Mat crop) {
+        if (crop == null || crop.empty()) return 0;
+
+        try (MatArena arena = new MatArena()) {
+            Mat gray = crop;
+            if (crop.channels() > 1) {
+                gray = arena.newMat();
+                Imgproc.cvtColor(crop, gray, Imgproc.COLOR_BGR2GRAY);
+            }
+            Mat laplacian = arena.newMat();
+            Imgproc.Laplacian(gray, laplacian, CvType.CV_64F);
+            MatOfDouble mean = arena.track(new MatOfDouble());
+            MatOfDouble stddev = arena.track(new MatOfDouble());
+            Core.meanStdDev(laplacian, mean, stddev);
+            return crop.width() * stddev.get(0, 0)[0];
+        }
+    }
+}
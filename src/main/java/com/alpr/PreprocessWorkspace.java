@@ -0,0 +1,123 @@
+package com.alpr;
+
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfRect;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.CLAHE;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.List;
+
+/**
+ * PreprocessWorkspace - Reusable scratch buffers for one detection thread
+ *
+ * <p>Every OpenCV function that writes into a destination Mat only reallocates it
+ * when the required size or type changes. Keeping one set of destination buffers
+ * per detector therefore makes the preprocessing and Haar hot path allocation-free
+ * once the first frame of a given resolution has been processed, which is the
+ * common case for fixed-resolution camera feeds.</p>
+ *
+ * <p>The CLAHE instance and the structuring elements are cached as well. The
+ * dilation kernel is rebuilt only when the requested kernel size changes.</p>
+ *
+ * <p>For incremental preprocessing the workspace also remembers which image and
+ * parameters produced the stage buffers ({@code stage*} fields), so
+ * {@link DetectionEngine} can skip stages whose inputs did not change.</p>
+ *
+ * <p>Not thread-safe: a workspace belongs to exactly one {@link PlateDetector}, or to
+ * one thread of a {@link DetectionEngine}.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+final class PreprocessWorkspace {
+
+    private static final Size CLOSE_KERNEL_SIZE = new Size(21, 5);
+
+    // Preprocessing stages (exposed to the GUI through the detector's last* getters)
+    final Mat detectionImage = new Mat();
+    final Mat gray = new Mat();
+    final Mat enhanced = new Mat();
+    final Mat filtered = new Mat();
+    final Mat edges = new Mat();
+    final Mat closed = new Mat();
+    final Mat dilated = new Mat();
+
+    // Detection scratch
+    final Mat equalized = new Mat();
+    final MatOfRect haarDetections = new MatOfRect();
+    final Mat contourInput = new Mat();
+    final Mat contourImage = new Mat();
+
+    // Detection-resolution / original-resolution of the image in the buffers
+    double detectionScale = 1.0;
+
+    // Image key and parameters the stage buffers were computed from; stageImageKey == null means stale
+    Object stageImageKey;
+    int stageMaxEdge;
+    int stageBlurKernel;
+    int stageCannyThreshold1;
+    int stageCannyThreshold2;
+    int stageDilateKernelSize;
+    int stageDilateIterations;
+
+    // Bumped whenever the grayscale stage is recomputed; the Haar hits below belong to one gray version
+    long grayVersion;
+    List<Object> haarScanKey;
+    List<Rect> haarHits;
+
+    // ROI mask rescaled to the detection resolution, its bounding box and the mask it came from
+    final Mat roiMask = new Mat();
+    Rect roiBounds;
+    Mat roiMaskSource;
+
+    final CLAHE clahe = Imgproc.createCLAHE(2.0, new Size(8, 8));
+    final Mat closeKernel = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, CLOSE_KERNEL_SIZE);
+
+    private Mat dilateKernel;
+    private int dilateKernelSize = -1;
+
+    /**
+     * @return Square dilation kernel of the given size, cached until the size changes
+     */
+    Mat dilateKernel(int size) {
+        if (dilateKernel == null || size != dilateKernelSize) {
+            if (dilateKernel != null) dilateKernel.release();
+            dilateKernel = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(size, size));
+            dilateKernelSize = size;
+        }
+        return dilateKernel;
+    }
+
+    /**
+     * @return Approximate native bytes currently held by the image buffers
+     */
+    long footprintBytes() {
+        long total = 0;
+        for (Mat mat : new Mat[]{detectionImage, gray, enhanced, filtered, edges, closed, dilated,
+                                 equalized, contourInput, contourImage}) {
+            total += mat.total() * mat.elemSize();
+        }
+        return total;
+    }
+
+    /**
+     * Frees all buffers. The workspace stays usable and reallocates on next use.
+     */
+    void release() {
+        for (Mat mat : new Mat[]{detectionImage, gray, enhanced, filtered, edges, closed, dilated,
+                                 equalized, haarDetections, contourInput, contourImage, roiMask}) {
+            mat.release();
+        }
+        roiMaskSource = null;
+        stageImageKey = null;
+        haarScanKey = null;
+        haarHits = null;
+        if (dilateKernel != null) {
+            dilateKernel.release();
+            dilateKernel = null;
+            dilateKernelSize = -1;
+        }
+    }
+}
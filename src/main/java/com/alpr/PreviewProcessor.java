@@ -0,0 +1,251 @@
+package com.alpr;
+
+import org.opencv.core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * PreviewProcessor - Coalescing background detection for the tuning GUI
+ *
+ * <p>Parameter changes are handed over with {@link #submit(String, DetectionParams)}
+ * from the Event Dispatch Thread and processed on a single worker thread, so
+ * dragging a slider over a 4K image never blocks painting or input.</p>
+ *
+ * <ul>
+ *   <li>Coalescing: only the latest submitted request is kept. Requests that
+ *       arrive while a run is in progress replace each other, and the worker picks
+ *       up the newest one when it is free.</li>
+ *   <li>Cancellation: every submit makes the running request stale. A stale run
+ *       stops at the next stage boundary (after decoding, preprocessing or
+ *       detection) and its buffers are freed.</li>
+ *   <li>Publishing: a finished {@link Frame} is passed to the listener on the EDT,
+ *       and only if no newer request was submitted in the meantime.</li>
+ *   <li>Incremental work: the image is decoded once per selection (path and file
+ *       modification time), and the decoded Mat doubles as the engine's image key,
+ *       so a parameter change only recomputes the preprocessing stages downstream
+ *       of it.</li>
+ * </ul>
+ *
+ * <p>The listener owns each frame it receives and must {@link Frame#release()} it
+ * once it is replaced.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public class PreviewProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(PreviewProcessor.class);
+
+    /**
+     * Result of one run: the decoded image and its detections with intermediates.
+     */
+    public static final class Frame {
+        private final long generation;
+        private final String imagePath;
+        private final String debugName;
+        private final DetectionParams params;
+        private final Mat original;
+        private final DetectionOutput output;
+        private final long elapsedNanos;
+
+        Frame(long generation, String imagePath, String debugName, DetectionParams params,
+              Mat original, DetectionOutput output, long elapsedNanos) {
+            this.generation = generation;
+            this.imagePath = imagePath;
+            this.debugName = debugName;
+            this.params = params;
+            this.original = original;
+            this.output = output;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getGeneration() { return generation; }
+        public String getImagePath() { return imagePath; }
+        public DetectionParams getParams() { return params; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        /**
+         * @return Name for debug images of this run, or null when it was not sampled
+         */
+        public String getDebugName() { return debugName; }
+
+        /**
+         * @return false if the image could not be decoded; there is no output then
+         */
+        public boolean isLoaded() { return output != null; }
+
+        public Mat getOriginal() { return original; }
+        public DetectionOutput getOutput() { return output; }
+
+        public void release() {
+            if (output != null) output.release();
+            // Only drops this frame's header; the decoded pixels are shared and reference counted
+            if (original != null) original.release();
+        }
+    }
+
+    private static final class Request {
+        final long generation;
+        final String imagePath;
+        final DetectionParams params;
+
+        Request(long generation, String imagePath, DetectionParams params) {
+            this.generation = generation;
+            this.imagePath = imagePath;
+            this.params = params;
+        }
+    }
+
+    private final DetectionEngine engine;
+    private final Consumer<Frame> listener;
+    private final ExecutorService worker;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<Request> pending = new AtomicReference<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicLong discarded = new AtomicLong();
+
+    // Decoded image of the current selection; only touched by the worker thread
+    private Mat decoded;
+    private String decodedPath;
+    private long decodedModified;
+
+    /**
+     * @param engine   Engine to run detection on
+     * @param listener Receives the newest finished frame, on the EDT
+     */
+    public PreviewProcessor(DetectionEngine engine, Consumer<Frame> listener) {
+        this.engine = engine;
+        this.listener = listener;
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "alpr-preview");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Requests processing of an image with the given parameters, superseding any
+     * earlier request. Returns immediately.
+     *
+     * @return Generation number of this request
+     */
+    public long submit(String imagePath, DetectionParams params) {
+        long gen = generation.incrementAndGet();
+        pending.set(new Request(gen, imagePath, params.toBuilder().captureIntermediates(true).build()));
+        if (draining.compareAndSet(false, true)) {
+            worker.execute(this::drain);
+        }
+        return gen;
+    }
+
+    /**
+     * @return Number of runs that were cancelled or finished after being superseded
+     */
+    public long getDiscardedCount() {
+        return discarded.get();
+    }
+
+    public void shutdown() {
+        generation.incrementAndGet();
+        worker.shutdownNow();
+    }
+
+    /**
+     * Processes the newest pending request until none is left.
+     */
+    private void drain() {
+        while (true) {
+            Request request = pending.getAndSet(null);
+            if (request == null) {
+                draining.set(false);
+                // A request submitted just before the flag was cleared would otherwise wait forever
+                if (pending.get() == null || !draining.compareAndSet(false, true)) return;
+                continue;
+            }
+            try {
+                process(request);
+            } catch (RuntimeException e) {
+                log.error("Preview processing failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void process(Request request) {
+        BooleanSupplier stale = () -> request.generation != generation.get();
+        long start = System.nanoTime();
+
+        Mat image = decode(request.imagePath);
+        if (image == null) {
+            publish(new Frame(request.generation, request.imagePath, null, request.params, null, null,
+                    System.nanoTime() - start));
+            return;
+        }
+        if (stale.getAsBoolean()) {
+            discarded.incrementAndGet();
+            return;
+        }
+
+        String debugName = DebugImageWriter.get().sampleImage()
+                ? new File(request.imagePath).getName().replaceAll("\\.[^.]+$", "") : null;
+        DetectionOutput output = engine.detect(image, image, request.params, debugName, stale);
+        if (output == null) {
+            discarded.incrementAndGet();
+            return;
+        }
+
+        // A new header on the shared pixels, so the frame can be released independently of the selection
+        Mat original = image.submat(0, image.rows(), 0, image.cols());
+        publish(new Frame(request.generation, request.imagePath, debugName, request.params, original, output,
+                System.nanoTime() - start));
+    }
+
+    /**
+     * @return Decoded image of the path, reused while the file is unchanged, or null if it cannot be read
+     */
+    private Mat decode(String imagePath) {
+        long modified = new File(imagePath).lastModified();
+        if (decoded != null && imagePath.equals(decodedPath) && modified == decodedModified) {
+            return decoded;
+        }
+        if (decoded != null) {
+            decoded.release();
+            decoded = null;
+        }
+
+        long loadStart = System.nanoTime();
+        Mat image = DecodedImageCache.get().load(imagePath);
+        PipelineMetrics.get().recordSince(PipelineMetrics.IMAGE_LOAD, loadStart);
+        if (image.empty()) {
+            image.release();
+            return null;
+        }
+        PipelineMetrics.get().increment(PipelineMetrics.IMAGES);
+        decoded = image;
+        decodedPath = imagePath;
+        decodedModified = modified;
+        return decoded;
+    }
+
+    private void publish(Frame frame) {
+        SwingUtilities.invokeLater(() -> {
+            // A newer request is already queued or running; it will publish instead
+            if (frame.generation != generation.get()) {
+                frame.release();
+                discarded.incrementAndGet();
+                return;
+            }
+            listener.accept(frame);
+        });
+    }
+}
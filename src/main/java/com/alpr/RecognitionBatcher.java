@@ -0,0 +1,295 @@
+package com.alpr;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RecognitionBatcher - Micro-batching front end for concurrent recognition requests
+ *
+ * <p>Requests go into a bounded queue. Each worker thread takes the first waiting
+ * request, then collects more for up to {@code maxWaitMillis} or until
+ * {@code maxBatch} requests are gathered, and processes the batch in two phases:
+ * detection for every image (one shared, thread-safe {@link DetectionEngine} with
+ * warm per-thread buffers), then OCR for every crop of the batch. Under load this
+ * keeps each stage's native state and caches hot and amortizes the queue hand-off;
+ * when idle a request waits at most {@code maxWaitMillis} for company.</p>
+ *
+ * <p>When the queue is full, {@link #submit(Mat)} rejects immediately instead of
+ * letting latency grow without bound.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public class RecognitionBatcher implements AutoCloseable {
+
+    /**
+     * One recognized plate candidate.
+     */
+    public static final class Plate {
+        private final DetectionResult.MethodType method;
+        private final Rect bounds;
+        private final String text;
+        private final double confidence;
+
+        Plate(DetectionResult.MethodType method, Rect bounds, String text, double confidence) {
+            this.method = method;
+            this.bounds = bounds;
+            this.text = text;
+            this.confidence = confidence;
+        }
+
+        public DetectionResult.MethodType getMethod() { return method; }
+        public Rect getBounds() { return bounds; }
+        public String getText() { return text; }
+        public double getConfidence() { return confidence; }
+    }
+
+    /**
+     * Result of one request.
+     */
+    public static final class Result {
+        private final int width;
+        private final int height;
+        private final List<Plate> plates;
+        private final String bestText;
+        private final long queueNanos;
+        private final long processNanos;
+        private final int batchSize;
+
+        Result(int width, int height, List<Plate> plates, String bestText,
+               long queueNanos, long processNanos, int batchSize) {
+            this.width = width;
+            this.height = height;
+            this.plates = Collections.unmodifiableList(plates);
+            this.bestText = bestText;
+            this.queueNanos = queueNanos;
+            this.processNanos = processNanos;
+            this.batchSize = batchSize;
+        }
+
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+        public List<Plate> getPlates() { return plates; }
+        public String getBestText() { return bestText; }
+
+        public String toJson() {
+            StringBuilder json = new StringBuilder();
+            json.append("{\"plate\":\"").append(bestText).append('"')
+                .append(",\"width\":").append(width)
+                .append(",\"height\":").append(height)
+                .append(",\"detections\":[");
+            for (int i = 0; i < plates.size(); i++) {
+                Plate plate = plates.get(i);
+                Rect r = plate.bounds;
+                if (i > 0) json.append(',');
+                json.append(String.format(Locale.ROOT,
+                        "{\"method\":\"%s\",\"x\":%d,\"y\":%d,\"width\":%d,\"height\":%d," +
+                        "\"text\":\"%s\",\"confidence\":%.1f}",
+                        plate.method.name(), r.x, r.y, r.width, r.height, plate.text, plate.confidence));
+            }
+            json.append(String.format(Locale.ROOT, "],\"queueMs\":%.2f,\"processMs\":%.2f,\"batchSize\":%d}",
+                    queueNanos / 1_000_000.0, processNanos / 1_000_000.0, batchSize));
+            return json.toString();
+        }
+    }
+
+    private static final class Pending {
+        final Mat image;
+        final long enqueuedAt = System.nanoTime();
+        final CompletableFuture<Result> future = new CompletableFuture<>();
+        DetectionOutput detections;
+
+        Pending(Mat image) {
+            this.image = image;
+        }
+    }
+
+    private final DetectionEngine engine;
+    private final DetectionParams params;
+    private final OcrService ocrService;
+    private final int maxBatch;
+    private final long maxWaitNanos;
+    private final BlockingQueue<Pending> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram processing = new LatencyHistogram();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedRequests = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * @param engine        Shared detection engine
+     * @param params        Detection parameters for every request
+     * @param ocrService    OCR service, or null for detection only
+     * @param workers       Worker threads (typically the CPU count)
+     * @param maxBatch      Most requests processed together
+     * @param maxWaitMillis Longest a worker waits to fill a batch
+     * @param queueCapacity Waiting requests before new ones are rejected
+     */
+    public RecognitionBatcher(DetectionEngine engine, DetectionParams params, OcrService ocrService,
+                              int workers, int maxBatch, long maxWaitMillis, int queueCapacity) {
+        this.engine = engine;
+        this.params = params;
+        this.ocrService = ocrService;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMillis));
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+
+        for (int i = 0; i < Math.max(1, workers); i++) {
+            Thread worker = new Thread(this::workerLoop, "alpr-batch-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            this.workers.add(worker);
+        }
+    }
+
+    /**
+     * Queues a decoded BGR image. The batcher takes ownership and releases it.
+     *
+     * @return Future completed with the result
+     * @throws RejectedExecutionException if the queue is full or the batcher is closed
+     */
+    public CompletableFuture<Result> submit(Mat image) {
+        Pending pending = new Pending(image);
+        if (!running || !queue.offer(pending)) {
+            image.release();
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("Recognition queue full (" + queue.size() + " waiting)");
+        }
+        return pending.future;
+    }
+
+    private void workerLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatch) {
+                    Pending next = queue.poll();
+                    if (next == null) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) break;
+                        next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) break;
+                    }
+                    batch.add(next);
+                }
+
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                for (Pending pending : batch) {
+                    pending.image.release();
+                    if (pending.detections != null) pending.detections.release();
+                    if (!pending.future.isDone()) {
+                        pending.future.completeExceptionally(new IllegalStateException("Batcher stopped"));
+                    }
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void processBatch(List<Pending> batch) {
+        long start = System.nanoTime();
+        batches.incrementAndGet();
+        batchedRequests.addAndGet(batch.size());
+        for (Pending pending : batch) {
+            queueWait.record(start - pending.enqueuedAt);
+        }
+
+        // Phase 1: detection for the whole batch
+        for (Pending pending : batch) {
+            try {
+                pending.detections = engine.detect(pending.image, params);
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+                pending.future.completeExceptionally(e);
+            }
+        }
+
+        // Phase 2: OCR for every crop of the batch
+        for (Pending pending : batch) {
+            if (pending.detections == null) continue;
+            try {
+                List<Plate> plates = new ArrayList<>();
+                String bestText = "";
+                double bestScore = -1;
+                for (DetectionResult det : pending.detections.getResults()) {
+                    OcrRead read = (ocrService != null && det.getCroppedPlate() != null)
+                            ? ocrService.recognizePlateDetailed(det.getCroppedPlate(), null)
+                            : OcrRead.empty();
+                    plates.add(new Plate(det.getMethod(), det.getBounds(), read.getText(), read.getMeanConfidence()));
+
+                    // Well-formed plates first, then Tesseract confidence
+                    double score = read.isEmpty() ? -1
+                            : read.getMeanConfidence() + (CandidateOcr.isPlateFormat(read.getText()) ? 100 : 0);
+                    if (score > bestScore) {
+                        bestScore = score;
+                        bestText = read.getText();
+                    }
+                }
+
+                long now = System.nanoTime();
+                processing.record(now - start);
+                pending.future.complete(new Result(pending.image.cols(), pending.image.rows(), plates, bestText,
+                        start - pending.enqueuedAt, now - start, batch.size()));
+            } catch (RuntimeException | LinkageError e) {
+                // LinkageError: Tesseract native library missing; fail the request, keep the worker
+                failed.incrementAndGet();
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    // ==================== METRICS ====================
+
+    public int getQueueDepth() { return queue.size(); }
+    public int getQueueCapacity() { return queue.size() + queue.remainingCapacity(); }
+    public long getBatchCount() { return batches.get(); }
+    public long getRejectedCount() { return rejected.get(); }
+    public long getFailedCount() { return failed.get(); }
+    public LatencyHistogram getQueueWait() { return queueWait; }
+    public LatencyHistogram getProcessing() { return processing; }
+
+    public double getMeanBatchSize() {
+        long count = batches.get();
+        return count > 0 ? (double) batchedRequests.get() / count : 0;
+    }
+
+    /**
+     * Stops the workers. Requests still queued are failed.
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.image.release();
+            pending.future.completeExceptionally(new IllegalStateException("Batcher stopped"));
+        }
+    }
+}
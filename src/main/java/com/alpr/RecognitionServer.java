@@ -0,0 +1,287 @@
+package com.alpr;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import nu.pattern.OpenCV;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RecognitionServer - Long-running HTTP recognition service
+ *
+ * <p>Loads OpenCV, the Haar cascade and the Tesseract engines once and keeps them
+ * warm, so each request only pays for decoding, detection and OCR. Concurrent
+ * requests are micro-batched by a {@link RecognitionBatcher}.</p>
+ *
+ * <p>Endpoints:</p>
+ * <ul>
+ *   <li>{@code POST /recognize} - body: encoded image (JPEG/PNG/BMP); returns JSON
+ *       with the best plate text and all detections</li>
+ *   <li>{@code GET /metrics} - request counts, queue depth, batch sizes and
+ *       p50/p90/p99 latencies as JSON</li>
+ *   <li>{@code GET /metrics/prometheus} - per-stage timings and counters from
+ *       {@link PipelineMetrics} in the Prometheus text format</li>
+ *   <li>{@code GET /health} - returns {@code OK}</li>
+ * </ul>
+ *
+ * <p>Usage: {@code RecognitionServer [--port 8080] [--workers N] [--batch-size 8]
+ * [--batch-wait-ms 5] [--queue-capacity 256] [--http-threads 64] [--no-ocr]
+ * [--ocr-cache N] [--ocr-cache-distance 12] [--ocr-cache-ttl 300]}.
+ * Detection parameters are read from {@code alpr_config.properties} like in
+ * {@link Main}. See {@link LoadGenerator} for a local load test.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public class RecognitionServer {
+
+    private static final Logger log = LoggerFactory.getLogger(RecognitionServer.class);
+
+    private static final int MAX_BODY_BYTES = 20 * 1024 * 1024;
+    private static final long REQUEST_TIMEOUT_SECONDS = 30;
+
+    static {
+        try {
+            OpenCV.loadLocally();
+        } catch (Exception e) {
+            log.error("Failed to load OpenCV: {}", e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private final RecognitionBatcher batcher;
+    private final OcrResultCache ocrCache;
+    private final HttpServer server;
+    private final ExecutorService httpExecutor;
+
+    // End-to-end latency of successful requests, including decoding
+    private final LatencyHistogram requestLatency = new LatencyHistogram();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * @param ocrCache OCR result cache used by the batcher's OCR service, or null; only reported in metrics
+     */
+    public RecognitionServer(int port, RecognitionBatcher batcher, OcrResultCache ocrCache,
+                             int httpThreads) throws IOException {
+        this.batcher = batcher;
+        this.ocrCache = ocrCache;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+
+        AtomicInteger ids = new AtomicInteger();
+        this.httpExecutor = Executors.newFixedThreadPool(Math.max(1, httpThreads), r -> {
+            Thread t = new Thread(r, "alpr-http-" + ids.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(httpExecutor);
+        server.createContext("/recognize", this::handleRecognize);
+        server.createContext("/metrics", this::handleMetrics);
+        server.createContext("/metrics/prometheus", exchange -> send(exchange, 200,
+                "text/plain; version=0.0.4", PipelineMetrics.get().toPrometheus()));
+        server.createContext("/health", exchange -> send(exchange, 200, "text/plain", "OK"));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(1);
+        batcher.close();
+        httpExecutor.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // ==================== HANDLERS ====================
+
+    private void handleRecognize(HttpExchange exchange) throws IOException {
+        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            sendError(exchange, 405, "Use POST with the image as request body");
+            return;
+        }
+        long start = System.nanoTime();
+        requests.incrementAndGet();
+        inFlight.incrementAndGet();
+        try {
+            byte[] body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                sendError(exchange, 413, "Image larger than " + MAX_BODY_BYTES + " bytes");
+                return;
+            }
+
+            long decodeStart = System.nanoTime();
+            MatOfByte encoded = new MatOfByte(body);
+            Mat image = Imgcodecs.imdecode(encoded, Imgcodecs.IMREAD_COLOR);
+            encoded.release();
+            PipelineMetrics.get().recordSince(PipelineMetrics.IMAGE_LOAD, decodeStart);
+            if (image.empty()) {
+                image.release();
+                sendError(exchange, 400, "Could not decode image");
+                return;
+            }
+
+            RecognitionBatcher.Result result = batcher.submit(image).get(REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            requestLatency.record(System.nanoTime() - start);
+            send(exchange, 200, "application/json", result.toJson());
+
+        } catch (RejectedExecutionException e) {
+            sendError(exchange, 503, e.getMessage());
+        } catch (TimeoutException e) {
+            sendError(exchange, 504, "Recognition timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendError(exchange, 503, "Interrupted");
+        } catch (ExecutionException e) {
+            sendError(exchange, 500, String.valueOf(e.getCause()));
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        send(exchange, 200, "application/json", metricsJson());
+    }
+
+    String metricsJson() {
+        return String.format(Locale.ROOT,
+                "{\"requests\":%d,\"errors\":%d,\"rejected\":%d,\"failed\":%d,\"inFlight\":%d," +
+                "\"queueDepth\":%d,\"queueCapacity\":%d,\"batches\":%d,\"meanBatchSize\":%.2f," +
+                "\"latencyMs\":%s,\"queueWaitMs\":%s,\"processingMs\":%s,\"ocrCache\":%s}",
+                requests.get(), errors.get(), batcher.getRejectedCount(), batcher.getFailedCount(), inFlight.get(),
+                batcher.getQueueDepth(), batcher.getQueueCapacity(), batcher.getBatchCount(),
+                batcher.getMeanBatchSize(), requestLatency.toJson(), batcher.getQueueWait().toJson(),
+                batcher.getProcessing().toJson(), ocrCacheJson());
+    }
+
+    private String ocrCacheJson() {
+        if (ocrCache == null) return "null";
+        return String.format(Locale.ROOT, "{\"size\":%d,\"hits\":%d,\"misses\":%d,\"hitRate\":%.3f," +
+                "\"evicted\":%d,\"expired\":%d}", ocrCache.size(), ocrCache.getHitCount(),
+                ocrCache.getMissCount(), ocrCache.getHitRate(), ocrCache.getEvictionCount(),
+                ocrCache.getExpirationCount());
+    }
+
+    /**
+     * @return Request body, or null if it exceeds {@link #MAX_BODY_BYTES}
+     */
+    private static byte[] readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64 * 1024];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            if (out.size() + n > MAX_BODY_BYTES) return null;
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        errors.incrementAndGet();
+        String safe = message == null ? "" : message.replace("\\", "\\\\").replace("\"", "'");
+        send(exchange, status, "application/json", "{\"error\":\"" + safe + "\"}");
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // ==================== ENTRY POINT ====================
+
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        int workers = Runtime.getRuntime().availableProcessors();
+        int batchSize = 8;
+        long batchWaitMs = 5;
+        int queueCapacity = 256;
+        int httpThreads = 64;
+        boolean ocr = true;
+        int ocrCacheSize = 0;
+        int ocrCacheDistance = 12;
+        long ocrCacheTtlSeconds = 300;
+
+        for (int i = 0; i < args.length; i++) {
+            if ("--port".equals(args[i]) && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if ("--workers".equals(args[i]) && i + 1 < args.length) {
+                workers = Math.max(1, Integer.parseInt(args[++i]));
+            } else if ("--batch-size".equals(args[i]) && i + 1 < args.length) {
+                batchSize = Math.max(1, Integer.parseInt(args[++i]));
+            } else if ("--batch-wait-ms".equals(args[i]) && i + 1 < args.length) {
+                batchWaitMs = Math.max(0, Long.parseLong(args[++i]));
+            } else if ("--queue-capacity".equals(args[i]) && i + 1 < args.length) {
+                queueCapacity = Math.max(1, Integer.parseInt(args[++i]));
+            } else if ("--http-threads".equals(args[i]) && i + 1 < args.length) {
+                httpThreads = Math.max(1, Integer.parseInt(args[++i]));
+            } else if ("--no-ocr".equals(args[i])) {
+                ocr = false;
+            } else if ("--ocr-cache".equals(args[i]) && i + 1 < args.length) {
+                ocrCacheSize = Math.max(0, Integer.parseInt(args[++i]));
+            } else if ("--ocr-cache-distance".equals(args[i]) && i + 1 < args.length) {
+                ocrCacheDistance = Math.max(0, Integer.parseInt(args[++i]));
+            } else if ("--ocr-cache-ttl".equals(args[i]) && i + 1 < args.length) {
+                ocrCacheTtlSeconds = Math.max(0, Long.parseLong(args[++i]));
+            }
+        }
+
+        // A service has no use for per-step debug images
+        DebugImageWriter.get().setEnabled(false);
+        DetectionParams params = Main.loadConfiguredParams();
+
+        OcrEnginePool enginePool = null;
+        OcrService ocrService = null;
+        if (ocr) {
+            enginePool = new OcrEnginePool(OcrEnginePool.Config.defaults(null), workers);
+            ocrService = new OcrService(enginePool);
+            if (ocrCacheSize > 0) {
+                ocrService.setResultCache(new OcrResultCache(ocrCacheSize, ocrCacheDistance,
+                        TimeUnit.SECONDS.toMillis(ocrCacheTtlSeconds)));
+            }
+        }
+
+        RecognitionBatcher batcher = new RecognitionBatcher(DetectionEngine.getDefault(), params, ocrService,
+                workers, batchSize, batchWaitMs, queueCapacity);
+        RecognitionServer server = new RecognitionServer(port, batcher,
+                ocrService != null ? ocrService.getResultCache() : null, httpThreads);
+
+        OcrEnginePool pool = enginePool;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            log.info("Shutting down. Metrics: {}", server.metricsJson());
+            server.stop();
+            if (pool != null) pool.close();
+        }, "alpr-shutdown"));
+
+        server.start();
+        log.info("Listening on http://localhost:{} (workers: {}, batch: {} / {} ms, queue: {}, OCR: {})",
+                server.getPort(), workers, batchSize, batchWaitMs, queueCapacity, ocr ? "on" : "off");
+        log.info("POST /recognize, GET /metrics, GET /metrics/prometheus, GET /health");
+    }
+}
@@ -0,0 +1,450 @@
+package com.alpr;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ResultSink - Streams per-image results to disk as they are produced
+ *
+ * <p>Each {@link DebugResult} is appended to a buffered writer the moment it is
+ * recorded, and the buffer is flushed every {@code flushIntervalMillis} by a
+ * background thread and on {@link #close()}. Nothing is kept in memory while
+ * the run is going, and a crash loses at most the last flush interval.</p>
+ *
+ * <p>Rows arrive in the order workers finish. {@link #close()} rewrites the file
+ * with its rows sorted by file name, so a finished run matches the sequential
+ * one; a file left behind by a crash is complete but unsorted until it is resumed
+ * and closed.</p>
+ *
+ * <p>Formats, chosen by file extension:</p>
+ * <ul>
+ *   <li>{@code .csv} - the layout of the former end-of-run export: BOM, optional
+ *       preamble (parameter block), then {@code FileName;Expected;...} rows</li>
+ *   <li>{@code .jsonl} - one JSON object per line; preamble lines come first as
+ *       {@code {"preamble":"..."}} objects</li>
+ * </ul>
+ *
+ * <p>With {@code resume}, an existing file is kept: its rows are handed back so the
+ * caller can skip those images and restore its statistics, a partly written last
+ * line (from a crash) is cut off, and new rows are appended. A file whose preamble
+ * differs from the current one (other detection parameters) is refused, so one
+ * file never mixes rows from different parameter sets.</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.1 - Rows sorted on close, resume checks the preamble
+ */
+public class ResultSink implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultSink.class);
+
+    public enum Format {
+        CSV, JSONL;
+
+        static Format forPath(String path) {
+            String lower = path.toLowerCase();
+            return (lower.endsWith(".jsonl") || lower.endsWith(".json")) ? JSONL : CSV;
+        }
+    }
+
+    static final String CSV_HEADER =
+        "FileName;Expected;OCRResult;HaarCount;GeoCount;Detected;ExactMatch;PartialMatch;MatchedChars;TotalChars;BestMethod";
+    private static final int CSV_COLUMNS = 11;
+    private static final String JSON_PREAMBLE_FIELD = "preamble";
+    private static final Pattern JSON_FIELD =
+        Pattern.compile("\"(\\w+)\":(?:\"((?:[^\"\\\\]|\\\\.)*)\"|([^,}]+))");
+
+    private final String path;
+    private final Format format;
+    private final BufferedWriter writer;
+    private final ScheduledExecutorService flusher;
+    private final Set<String> completedFiles = new HashSet<>();
+    private final List<String> preamble;
+    private long written = 0;
+
+    /**
+     * Opens (or, with {@code resume}, reopens) a result file.
+     *
+     * @param path                Output file; the extension selects CSV or JSONL
+     * @param resume              Keep existing rows and append, instead of overwriting
+     * @param preamble            Lines written before the rows of a new file (e.g. the
+     *                            parameter block), or null; blank lines only apply to CSV
+     * @param existing            Receives every row already in the file when resuming, or null
+     * @param flushIntervalMillis How often buffered rows are flushed to disk
+     * @throws IOException if the file cannot be opened, or a resumed file has a different preamble
+     */
+    public ResultSink(String path, boolean resume, List<String> preamble,
+                      Consumer<DebugResult> existing, long flushIntervalMillis) throws IOException {
+        this.path = path;
+        this.format = Format.forPath(path);
+        this.preamble = preamble != null ? new ArrayList<>(preamble) : new ArrayList<>();
+
+        File file = new File(path);
+        boolean append = resume && file.exists() && file.length() > 0;
+        if (append) {
+            List<String> found = readPreamble(file);
+            if (preamble != null && !found.equals(withoutBlankLines(this.preamble))) {
+                throw new IOException("written with different parameters " + found
+                        + "; use another results file or the same parameters");
+            }
+            truncatePartialLine(file);
+            readExisting(file, existing);
+        }
+
+        this.writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE,
+                append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        if (!append && format == Format.CSV) {
+            // BOM for UTF-8 Excel compatibility
+            writer.write('\ufeff');
+            for (String line : this.preamble) {
+                writer.write(line);
+                writer.newLine();
+            }
+            writer.write(CSV_HEADER);
+            writer.newLine();
+            writer.flush();
+        } else if (!append) {
+            for (String line : withoutBlankLines(this.preamble)) {
+                writer.write("{\"" + JSON_PREAMBLE_FIELD + "\":\"" + escape(line) + "\"}");
+                writer.newLine();
+            }
+            writer.flush();
+        }
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "alpr-result-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(100, flushIntervalMillis);
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+
+        if (append) {
+            log.info("Resuming {}: {} image(s) already processed", path, completedFiles.size());
+        }
+    }
+
+    /**
+     * @return File names already present in the file when it was opened with resume
+     */
+    public Set<String> getCompletedFiles() {
+        return completedFiles;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public synchronized long getWrittenCount() {
+        return written;
+    }
+
+    /**
+     * Appends one result. Thread-safe.
+     */
+    public synchronized void write(DebugResult result) {
+        try {
+            writer.write(format == Format.CSV ? toCsv(result) : toJson(result));
+            writer.newLine();
+            written++;
+        } catch (IOException e) {
+            log.error("Failed to write result for {}: {}", result.fileName, e.getMessage());
+        }
+    }
+
+    private synchronized void flushQuietly() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            log.error("Failed to flush {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Flushes and closes the file, then rewrites it with the rows sorted by file name.
+     */
+    @Override
+    public void close() {
+        flusher.shutdownNow();
+        synchronized (this) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.error("Failed to close {}: {}", path, e.getMessage());
+                return;
+            }
+            try {
+                sortRows();
+            } catch (IOException e) {
+                log.error("Failed to sort {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Sorts the rows by file name, keeping BOM, preamble and header in front. The sorted
+     * file replaces the original atomically; an already sorted file is left untouched.
+     */
+    private void sortRows() throws IOException {
+        Path file = new File(path).toPath().toAbsolutePath();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        int firstRow = firstRowIndex(lines);
+        List<String> rows = lines.subList(firstRow, lines.size());
+        List<String> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparing(this::rowFileName, Comparator.nullsLast(Comparator.naturalOrder())));
+        if (sorted.equals(rows)) return;
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        List<String> out = new ArrayList<>(lines.subList(0, firstRow));
+        out.addAll(sorted);
+        Files.write(temp, out, StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return Index of the first row: after the CSV header, or after the JSONL preamble objects
+     */
+    private int firstRowIndex(List<String> lines) {
+        if (format == Format.CSV) {
+            for (int i = 0; i < lines.size(); i++) {
+                if (lines.get(i).replace("\ufeff", "").equals(CSV_HEADER)) return i + 1;
+            }
+            return lines.size();
+        }
+        int i = 0;
+        while (i < lines.size() && parsePreambleLine(lines.get(i)) != null) i++;
+        return i;
+    }
+
+    private String rowFileName(String line) {
+        DebugResult result = format == Format.CSV ? parseCsv(line) : parseJson(line);
+        return result == null ? null : result.fileName;
+    }
+
+    // ==================== FORMATS ====================
+
+    static String toCsv(DebugResult result) {
+        int matchedChars = countMatchedChars(result);
+        boolean isExact = result.ocrResult.equals(result.expectedPlate);
+        return String.join(";",
+            result.fileName,
+            result.expectedPlate,
+            result.ocrResult,
+            String.valueOf(result.haarCount),
+            String.valueOf(result.geoCount),
+            result.detected ? "YES" : "NO",
+            isExact ? "YES" : "NO",
+            !isExact && matchedChars > 0 ? "YES" : "NO",
+            String.valueOf(matchedChars),
+            String.valueOf(result.expectedPlate.length()),
+            result.bestMethod
+        );
+    }
+
+    static String toJson(DebugResult result) {
+        int matchedChars = countMatchedChars(result);
+        boolean isExact = result.ocrResult.equals(result.expectedPlate);
+        return "{\"file\":\"" + escape(result.fileName) + "\"" +
+               ",\"expected\":\"" + escape(result.expectedPlate) + "\"" +
+               ",\"ocr\":\"" + escape(result.ocrResult) + "\"" +
+               ",\"haar\":" + result.haarCount +
+               ",\"geo\":" + result.geoCount +
+               ",\"detected\":" + result.detected +
+               ",\"exact\":" + isExact +
+               ",\"partial\":" + (!isExact && matchedChars > 0) +
+               ",\"matchedChars\":" + matchedChars +
+               ",\"totalChars\":" + result.expectedPlate.length() +
+               ",\"bestMethod\":\"" + escape(result.bestMethod) + "\"}";
+    }
+
+    private static int countMatchedChars(DebugResult result) {
+        if (result.expectedPlate.isEmpty() || result.ocrResult.isEmpty()) return 0;
+        return BatchStatistics.countMatchingChars(result.expectedPlate, result.ocrResult);
+    }
+
+    /**
+     * Escapes a value for a JSON string: backslash, quote and the common control characters.
+     */
+    static String escape(String value) {
+        if (value == null) return "";
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\': out.append("\\\\"); break;
+                case '"': out.append("\\\""); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default: out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Reverses {@link #escape}. Unknown escapes keep the escaped character.
+     */
+    static String unescape(String value) {
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 == value.length()) {
+                out.append(c);
+                continue;
+            }
+            char next = value.charAt(++i);
+            switch (next) {
+                case 'n': out.append('\n'); break;
+                case 'r': out.append('\r'); break;
+                case 't': out.append('\t'); break;
+                default: out.append(next);
+            }
+        }
+        return out.toString();
+    }
+
+    // ==================== RESUME ====================
+
+    private static List<String> withoutBlankLines(List<String> lines) {
+        List<String> kept = new ArrayList<>();
+        for (String line : lines) {
+            if (!line.isBlank()) kept.add(line);
+        }
+        return kept;
+    }
+
+    /**
+     * @return Non-blank preamble lines of an existing file
+     */
+    private List<String> readPreamble(File file) throws IOException {
+        List<String> found = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (format == Format.CSV) {
+                    line = line.replace("\ufeff", "");
+                    if (line.equals(CSV_HEADER)) break;
+                    if (!line.isBlank()) found.add(line);
+                } else {
+                    String value = parsePreambleLine(line);
+                    if (value == null) break;
+                    found.add(value);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return Value of a JSONL {@code {"preamble":"..."}} line, or null for any other line
+     */
+    private static String parsePreambleLine(String line) {
+        if (!line.startsWith("{\"" + JSON_PREAMBLE_FIELD + "\":")) return null;
+        Matcher m = JSON_FIELD.matcher(line);
+        return m.find() && JSON_PREAMBLE_FIELD.equals(m.group(1)) && m.group(2) != null
+                ? unescape(m.group(2)) : null;
+    }
+
+    /**
+     * Cuts off a last line without line terminator, left behind by a crash mid-write.
+     */
+    private static void truncatePartialLine(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long end = raf.length();
+            long pos = end;
+            while (pos > 0) {
+                raf.seek(pos - 1);
+                if (raf.read() == '\n') break;
+                pos--;
+            }
+            if (pos < end) {
+                raf.setLength(pos);
+                log.warn("Dropped incomplete last line of {}", file.getName());
+            }
+        }
+    }
+
+    private void readExisting(File file, Consumer<DebugResult> existing) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            boolean inRows = format == Format.JSONL;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!inRows) {
+                    // Skip BOM and preamble up to the CSV header
+                    inRows = line.replace("\ufeff", "").equals(CSV_HEADER);
+                    continue;
+                }
+                DebugResult result = format == Format.CSV ? parseCsv(line) : parseJson(line);
+                if (result == null) continue;
+                completedFiles.add(result.fileName);
+                if (existing != null) existing.accept(result);
+            }
+        }
+    }
+
+    private static DebugResult parseCsv(String line) {
+        String[] cols = line.split(";", -1);
+        if (cols.length != CSV_COLUMNS || cols[0].isEmpty()) return null;
+        try {
+            DebugResult result = new DebugResult();
+            result.fileName = cols[0];
+            result.expectedPlate = cols[1];
+            result.ocrResult = cols[2];
+            result.haarCount = Integer.parseInt(cols[3]);
+            result.geoCount = Integer.parseInt(cols[4]);
+            result.detected = "YES".equals(cols[5]);
+            result.bestMethod = cols[10];
+            return result;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static DebugResult parseJson(String line) {
+        if (!line.startsWith("{") || !line.endsWith("}")) return null;
+        DebugResult result = new DebugResult();
+        Matcher m = JSON_FIELD.matcher(line);
+        try {
+            while (m.find()) {
+                String value = m.group(2) != null ? unescape(m.group(2)) : m.group(3).trim();
+                switch (m.group(1)) {
+                    case "file": result.fileName = value; break;
+                    case "expected": result.expectedPlate = value; break;
+                    case "ocr": result.ocrResult = value; break;
+                    case "haar": result.haarCount = Integer.parseInt(value); break;
+                    case "geo": result.geoCount = Integer.parseInt(value); break;
+                    case "detected": result.detected = Boolean.parseBoolean(value); break;
+                    case "bestMethod": result.bestMethod = value; break;
+                    default: break;
+                }
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return result.fileName.isEmpty() ? null : result;
+    }
+}
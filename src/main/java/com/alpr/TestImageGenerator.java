@@ -6,6 +6,8 @@ import org.opencv.core.Point;
 import org.opencv.core.Scalar;
 import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * TestImageGenerator - Utility class for generating test images
@@ -25,6 +27,8 @@ import org.opencv.imgproc.Imgproc;
  */
 public class TestImageGenerator {
 
+    private static final Logger log = LoggerFactory.getLogger(TestImageGenerator.class);
+
     /**
      * Generates a simple test image with a simulated license plate.
      *
@@ -42,51 +46,69 @@ public class TestImageGenerator {
         try {
             // Create a 640x480 image with 3 color channels (BGR)
             // Why: This is a common resolution that works well for testing
-            Mat image = new Mat(480, 640, CvType.CV_8UC3);
-
-            // Fill with a dark blue/gray color (simulating a car body)
-            // Why: Dark background provides excellent contrast for the white license plate
-            image.setTo(new Scalar(60, 60, 80));
-
-            // Draw a white filled rectangle simulating a license plate
-            // Why: License plates are typically white/light colored rectangles
-            // Position: center of the image for easy detection
-            // Size: 240x80 pixels gives aspect ratio of 3.0 (within our 2.5-5.5 range)
-            Point plateTopLeft = new Point(200, 200);
-            Point plateBottomRight = new Point(440, 280);
-
-            // Draw white filled plate background
-            Imgproc.rectangle(image, plateTopLeft, plateBottomRight,
-                    new Scalar(255, 255, 255), -1); // -1 = filled rectangle
-
-            // Draw a thick black border around the plate
-            // Why: License plates have a visible border/frame that helps with edge detection
-            Imgproc.rectangle(image, plateTopLeft, plateBottomRight,
-                    new Scalar(0, 0, 0), 3);
-
-            // Add simulated plate text
-            // Why: Provides content for OCR testing
-            Point textOrigin = new Point(210, 255);
-            Imgproc.putText(image, "34 ABC 123", textOrigin,
-                    Imgproc.FONT_HERSHEY_SIMPLEX, 1.0,
-                    new Scalar(0, 0, 0), 2);
+            Mat image = createTestImage(640, 480);
 
             // Save the generated image
             boolean success = Imgcodecs.imwrite(outputPath, image);
 
             if (success) {
-                System.out.println("[INFO] Test image generated: " + outputPath);
-                System.out.println("[INFO] Image size: " + image.cols() + "x" + image.rows());
-                System.out.println("[INFO] Plate region: 240x80 pixels (aspect ratio: 3.0)");
+                log.info("Test image generated: {} ({}x{}, plate region 240x80, aspect ratio 3.0)",
+                        outputPath, image.cols(), image.rows());
             } else {
-                System.err.println("[ERROR] Failed to save test image: " + outputPath);
+                log.error("Failed to save test image: {}", outputPath);
             }
 
             return success;
 
         } catch (Exception e) {
-            System.err.println("[ERROR] Failed to generate test image: " + e.getMessage());
+            log.error("Failed to generate test image: {}", e.getMessage());
             return false;
         }
     }
+
+    /**
+     * Creates the same synthetic scene in memory at an arbitrary resolution.
+     *
+     * <p>Plate position, size, border and text are scaled with the image width,
+     * so 640x480 reproduces {@link #generateTestImage(String)} exactly. Used by the
+     * benchmarks to get VGA, 1080p and 4K inputs without files on disk.</p>
+     *
+     * @param width  Image width in pixels
+     * @param height Image height in pixels
+     * @return BGR image with a simulated plate
+     */
+    public static Mat createTestImage(int width, int height) {
+        double scale = width / 640.0;
+        Mat image = new Mat(height, width, CvType.CV_8UC3);
+
+        // Fill with a dark blue/gray color (simulating a car body)
+        // Why: Dark background provides excellent contrast for the white license plate
+        image.setTo(new Scalar(60, 60, 80));
+
+        // Draw a white filled rectangle simulating a license plate
+        // Why: License plates are typically white/light colored rectangles
+        // Position: center of the image for easy detection
+        // Size: 240x80 pixels at 640x480 gives aspect ratio of 3.0 (within our 2.5-5.5 range)
+        double offsetY = (height - 480 * scale) / 2;
+        Point plateTopLeft = new Point(200 * scale, 200 * scale + offsetY);
+        Point plateBottomRight = new Point(440 * scale, 280 * scale + offsetY);
+
+        // Draw white filled plate background
+        Imgproc.rectangle(image, plateTopLeft, plateBottomRight,
+                new Scalar(255, 255, 255), -1); // -1 = filled rectangle
+
+        // Draw a thick black border around the plate
+        // Why: License plates have a visible border/frame that helps with edge detection
+        Imgproc.rectangle(image, plateTopLeft, plateBottomRight,
+                new Scalar(0, 0, 0), Math.max(1, (int) Math.round(3 * scale)));
+
+        // Add simulated plate text
+        // Why: Provides content for OCR testing
+        Point textOrigin = new Point(210 * scale, 255 * scale + offsetY);
+        Imgproc.putText(image, "34 ABC 123", textOrigin,
+                Imgproc.FONT_HERSHEY_SIMPLEX, 1.0 * scale,
+                new Scalar(0, 0, 0), Math.max(1, (int) Math.round(2 * scale)));
+
+        return image;
+    }
 }
@@ -2,11 +2,10 @@ package com.alpr;
 
 import nu.pattern.OpenCV;
 import org.opencv.core.Mat;
-import org.opencv.core.MatOfByte;
 import org.opencv.core.Rect;
-import org.opencv.imgcodecs.Imgcodecs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
 import javax.swing.event.ChangeListener;
@@ -15,17 +14,25 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 /**
  * TuningGUI - Dual-Detection Audit Tool for ALPR
  *
+ * <p>Detection runs on a background {@link PreviewProcessor}: slider changes are
+ * coalesced to the latest values, superseded runs are cancelled, and the Event
+ * Dispatch Thread only paints finished results.</p>
+ *
  * @author ALPR Academic Project
- * @version 2.3 - Added persistent configuration with auto-save
+ * @version 2.5 - Background, coalescing detection for parameter changes
  */
 public class TuningGUI extends JFrame {
 
+    private static final Logger log = LoggerFactory.getLogger(TuningGUI.class);
+
     private static final String CONFIG_FILE = "alpr_config.properties";
     private static final int SAVE_DELAY_MS = 1000; // 1 saniye bekle (debounce)
 
@@ -52,8 +59,16 @@ public class TuningGUI extends JFrame {
     private JTextArea geoOcrResults;
     private JLabel bestResultLabel;
 
-    private PlateDetector detector;
+    private DetectionEngine engine;
+    // Runs detection off the EDT; currentFrame is the newest published result
+    private PreviewProcessor previewProcessor;
+    private PreviewProcessor.Frame currentFrame;
+    // Reuses one preview image across refreshes
+    private final MatImageConverter previewConverter = new MatImageConverter();
     private OcrService ocrService;
+    private CandidateOcr candidateOcr;
+    // OCR text of the current frame's detections (identity keys); empty until OCR runs
+    private Map<DetectionResult, String> ocrReads = Collections.emptyMap();
     private String currentImagePath;
     private boolean autoProcess = true;
 
@@ -75,14 +90,16 @@ public class TuningGUI extends JFrame {
         try {
             OpenCV.loadLocally();
         } catch (Exception e) {
-            System.err.println("Failed to load OpenCV: " + e.getMessage());
+            log.error("Failed to load OpenCV: {}", e.getMessage());
         }
     }
 
     public TuningGUI() {
         super("ALPR Dual-Detection Audit Tool");
-        detector = new PlateDetector();
+        engine = DetectionEngine.getDefault();
+        previewProcessor = new PreviewProcessor(engine, this::showFrame);
         ocrService = new OcrService();
+        candidateOcr = new CandidateOcr(ocrService);
         config = loadConfig();
         initializeUI();
         applyConfig();
@@ -98,9 +115,9 @@ public class TuningGUI extends JFrame {
         if (configFile.exists()) {
             try (FileInputStream fis = new FileInputStream(configFile)) {
                 props.load(fis);
-                System.out.println("[CONFIG] Loaded configuration from: " + CONFIG_FILE);
+                log.info("Loaded configuration from: {}", CONFIG_FILE);
             } catch (IOException e) {
-                System.err.println("[CONFIG] Failed to load config: " + e.getMessage());
+                log.error("Failed to load config: {}", e.getMessage());
             }
         } else {
             // Set defaults
@@ -115,7 +132,7 @@ public class TuningGUI extends JFrame {
             props.setProperty("show.geo", "true");
             props.setProperty("show.overlap", "true");
             props.setProperty("last.image.path", "");
-            System.out.println("[CONFIG] Using default configuration");
+            log.info("Using default configuration");
         }
 
         return props;
@@ -144,9 +161,9 @@ public class TuningGUI extends JFrame {
             }
 
             config.store(fos, "ALPR Configuration - Auto-saved");
-            System.out.println("[CONFIG] Configuration saved to: " + CONFIG_FILE);
+            log.info("Configuration saved to: {}", CONFIG_FILE);
         } catch (IOException e) {
-            System.err.println("[CONFIG] Failed to save config: " + e.getMessage());
+            log.error("Failed to save config: {}", e.getMessage());
         }
     }
 
@@ -187,14 +204,14 @@ public class TuningGUI extends JFrame {
                 SwingUtilities.invokeLater(this::processImage);
             }
         } catch (NumberFormatException e) {
-            System.err.println("[CONFIG] Invalid config value: " + e.getMessage());
+            log.error("Invalid config value: {}", e.getMessage());
         }
     }
 
     // ==================== RESOURCES ====================
 
     private void checkResources() {
-        if (!detector.isHaarAvailable()) {
+        if (!engine.isHaarAvailable()) {
             JOptionPane.showMessageDialog(this,
                 "Haar Cascade file not found!\n" +
                 "Haar detection will be disabled.\n" +
@@ -210,6 +227,7 @@ public class TuningGUI extends JFrame {
             @Override
             public void windowClosing(java.awt.event.WindowEvent e) {
                 saveConfig();
+                previewProcessor.shutdown();
                 System.exit(0);
             }
         });
@@ -470,6 +488,7 @@ public class TuningGUI extends JFrame {
         JMenuItem exitItem = new JMenuItem("Exit");
         exitItem.addActionListener(e -> {
             saveConfig();
+            previewProcessor.shutdown();
             System.exit(0);
         });
         fileMenu.add(exitItem);
@@ -485,11 +504,8 @@ public class TuningGUI extends JFrame {
     private ChangeListener createProcessListener() {
         return e -> {
             if (autoProcess && currentImagePath != null) {
-                if (e.getSource() instanceof JSlider) {
-                    JSlider slider = (JSlider) e.getSource();
-                    if (slider.getValueIsAdjusting()) return;
-                }
-                SwingUtilities.invokeLater(this::processImage);
+                // Also while dragging: the processor coalesces ticks and drops stale runs
+                processImage();
             }
             // Schedule auto-save after parameter change
             scheduleAutoSave();
@@ -516,6 +532,10 @@ public class TuningGUI extends JFrame {
         bestResultLabel.setText("---");
     }
 
+    /**
+     * Hands the current parameters to the background processor. Safe to call on
+     * every slider tick: requests are coalesced and only the newest is shown.
+     */
     private void processImage() {
         if (currentImagePath == null) return;
 
@@ -525,35 +545,55 @@ public class TuningGUI extends JFrame {
         int dilateKernel = dilateKernelSlider.getValue();
         if (dilateKernel % 2 == 0) dilateKernel++;
 
-        detector.setBlurKernel(blurValue);
-        detector.setCannyThreshold1(canny1Slider.getValue());
-        detector.setCannyThreshold2(canny2Slider.getValue());
-        detector.setDilateKernelSize(dilateKernel);
-        detector.setDilateIterations(dilateIterSlider.getValue());
-        detector.setMinAspectRatio((Double) minARSpinner.getValue());
-        detector.setMaxAspectRatio((Double) maxARSpinner.getValue());
+        DetectionParams params = DetectionParams.builder()
+            .blurKernel(blurValue)
+            .cannyThreshold1(canny1Slider.getValue())
+            .cannyThreshold2(canny2Slider.getValue())
+            .dilateKernelSize(dilateKernel)
+            .dilateIterations(dilateIterSlider.getValue())
+            .minAspectRatio((Double) minARSpinner.getValue())
+            .maxAspectRatio((Double) maxARSpinner.getValue())
+            .build();
+
+        previewProcessor.submit(currentImagePath, params);
+        statusLabel.setText("Processing...");
+    }
+
+    /**
+     * Shows a finished detection run. Called on the EDT with the newest result only.
+     */
+    private void showFrame(PreviewProcessor.Frame frame) {
+        if (currentFrame != null) {
+            currentFrame.release();
+        }
+        currentFrame = frame;
+        ocrReads = Collections.emptyMap();
 
-        if (!detector.loadImage(currentImagePath)) {
+        if (!frame.isLoaded()) {
             statusLabel.setText("Error: Could not load image");
             return;
         }
 
-        detector.preprocess();
-        List<DetectionResult> results = detector.detectAll();
-
-        int[] stats = detector.getDetectionStats();
+        List<DetectionResult> results = frame.getOutput().getResults();
+        int[] stats = PlateDetector.countDetections(results);
         statsLabel.setText(String.format("Haar: %d | Geo: %d | Overlap: %d", stats[0], stats[1], stats[2]));
 
+        DetectionParams params = frame.getParams();
         String status = results.isEmpty() ? "No plates found" : results.size() + " detection(s)";
-        statusLabel.setText(status + " | Blur=" + blurValue +
-            ", Canny=" + canny1Slider.getValue() + "-" + canny2Slider.getValue() +
-            ", Dilate=" + dilateKernel + "x" + dilateIterSlider.getValue());
+        statusLabel.setText(status + " | Blur=" + params.getBlurKernel() +
+            ", Canny=" + params.getCannyThreshold1() + "-" + params.getCannyThreshold2() +
+            ", Dilate=" + params.getDilateKernelSize() + "x" + params.getDilateIterations() +
+            String.format(" | %.0f ms", frame.getElapsedNanos() / 1_000_000.0));
 
         updatePreview();
     }
 
     private void runOcrOnAllDetections() {
-        List<DetectionResult> results = detector.getLastResults();
+        if (currentFrame == null || !currentFrame.isLoaded()) {
+            statusLabel.setText("No detections to run OCR on");
+            return;
+        }
+        List<DetectionResult> results = currentFrame.getOutput().getResults();
         if (results.isEmpty()) {
             statusLabel.setText("No detections to run OCR on");
             return;
@@ -566,18 +606,22 @@ public class TuningGUI extends JFrame {
 
         int haarIdx = 0, geoIdx = 0;
 
+        // OCR all crops in parallel; a well-formed plate makes the rest redundant
+        String debugName = currentFrame.getDebugName();
+        ocrReads = candidateOcr.recognizeAll(results, debugName, CandidateOcr::isPlateFormat);
+
         for (DetectionResult result : results) {
             Mat plate = result.getCroppedPlate();
             if (plate == null || plate.empty()) continue;
 
-            String ocrText = ocrService.recognizePlate(plate,
-                    detector.getCurrentImageName() + "_" + result.getMethod().name().toLowerCase());
-            result.setOcrResult(ocrText);
+            String ocrText = ocrReads.get(result);
+            String shown = ocrText == null ? "(skipped)" : ocrText.isEmpty() ? "(empty)" : ocrText;
+            if (ocrText == null) ocrText = "";
 
             if (result.getMethod() == DetectionResult.MethodType.HAAR) {
-                haarSb.append("H").append(haarIdx++).append(": ").append(ocrText.isEmpty() ? "(empty)" : ocrText).append("\n");
+                haarSb.append("H").append(haarIdx++).append(": ").append(shown).append("\n");
             } else {
-                geoSb.append("G").append(geoIdx++).append(": ").append(ocrText.isEmpty() ? "(empty)" : ocrText).append("\n");
+                geoSb.append("G").append(geoIdx++).append(": ").append(shown).append("\n");
             }
 
             // Determine best result based on length and format
@@ -593,7 +637,6 @@ public class TuningGUI extends JFrame {
         bestResultLabel.setText(bestResult.isEmpty() ? "---" : bestResult);
 
         // Update visualization with OCR results
-        detector.getLastResults(); // Trigger re-visualization
         updatePreview();
 
         statusLabel.setText("OCR complete. Haar: " + haarIdx + ", Geo: " + geoIdx);
@@ -621,16 +664,17 @@ public class TuningGUI extends JFrame {
     }
 
     private void updatePreview() {
-        if (currentImagePath == null) return;
+        if (currentFrame == null || !currentFrame.isLoaded()) return;
 
         String mode = (String) previewModeCombo.getSelectedItem();
+        DetectionOutput.Intermediates stages = currentFrame.getOutput().getIntermediates();
 
         if ("Original + Overlays".equals(mode)) {
-            Mat original = detector.getOriginalImage();
+            Mat original = currentFrame.getOriginal();
             if (original != null && !original.empty()) {
-                BufferedImage image = matToBufferedImage(original);
+                BufferedImage image = previewConverter.convert(original);
                 imagePanel.setImage(image);
-                imagePanel.setDetectionResults(detector.getLastResults(),
+                imagePanel.setDetectionResults(currentFrame.getOutput().getResults(), ocrReads,
                         showHaarCheck.isSelected(),
                         showGeoCheck.isSelected(),
                         showOverlapCheck.isSelected());
@@ -638,15 +682,15 @@ public class TuningGUI extends JFrame {
         } else {
             Mat displayImage = null;
             switch (mode) {
-                case "Grayscale": displayImage = detector.getLastGrayImage(); break;
-                case "Filtered": displayImage = detector.getLastFilteredImage(); break;
-                case "Canny Edges": displayImage = detector.getLastEdgeImage(); break;
-                case "Dilated": displayImage = detector.getLastDilatedImage(); break;
-                case "Detection Result": displayImage = detector.getLastContourImage(); break;
+                case "Grayscale": displayImage = stages.getGray(); break;
+                case "Filtered": displayImage = stages.getFiltered(); break;
+                case "Canny Edges": displayImage = stages.getEdges(); break;
+                case "Dilated": displayImage = stages.getDilated(); break;
+                case "Detection Result": displayImage = stages.getAnnotated(); break;
             }
 
             if (displayImage != null && !displayImage.empty()) {
-                BufferedImage image = matToBufferedImage(displayImage);
+                BufferedImage image = previewConverter.convert(displayImage);
                 imagePanel.setImage(image);
                 imagePanel.clearOverlays();
             }
@@ -655,16 +699,6 @@ public class TuningGUI extends JFrame {
         imagePanel.repaint();
     }
 
-    private BufferedImage matToBufferedImage(Mat mat) {
-        try {
-            MatOfByte buffer = new MatOfByte();
-            Imgcodecs.imencode(".png", mat, buffer);
-            return ImageIO.read(new ByteArrayInputStream(buffer.toArray()));
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
     private void resetDefaults() {
         blurSlider.setValue(11);
         canny1Slider.setValue(50);
@@ -686,21 +720,28 @@ public class TuningGUI extends JFrame {
     private static class ImagePanel extends JPanel {
         private BufferedImage image;
         private List<DetectionResult> results = new ArrayList<>();
+        private Map<DetectionResult, String> ocrReads = Collections.emptyMap();
         private boolean showHaar = true;
         private boolean showGeo = true;
         private boolean showOverlap = true;
 
         public void setImage(BufferedImage image) {
+            boolean resized = image == null || this.image == null
+                || image.getWidth() != this.image.getWidth() || image.getHeight() != this.image.getHeight();
             this.image = image;
-            if (image != null) {
-                setPreferredSize(new Dimension(image.getWidth(), image.getHeight()));
+            // The converter refills the same image, so only a new size needs a layout pass
+            if (resized) {
+                if (image != null) {
+                    setPreferredSize(new Dimension(image.getWidth(), image.getHeight()));
+                }
+                revalidate();
             }
-            revalidate();
         }
 
-        public void setDetectionResults(List<DetectionResult> results,
+        public void setDetectionResults(List<DetectionResult> results, Map<DetectionResult, String> ocrReads,
                                         boolean showHaar, boolean showGeo, boolean showOverlap) {
             this.results = results != null ? results : new ArrayList<>();
+            this.ocrReads = ocrReads != null ? ocrReads : Collections.emptyMap();
             this.showHaar = showHaar;
             this.showGeo = showGeo;
             this.showOverlap = showOverlap;
@@ -708,6 +749,7 @@ public class TuningGUI extends JFrame {
 
         public void clearOverlays() {
             this.results = new ArrayList<>();
+            this.ocrReads = Collections.emptyMap();
         }
 
         @Override
@@ -771,8 +813,9 @@ public class TuningGUI extends JFrame {
 
                 if (color != null) {
                     String label = result.getMethod() == DetectionResult.MethodType.HAAR ? "H" : "G";
-                    if (result.getOcrResult() != null && !result.getOcrResult().isEmpty()) {
-                        label += ": " + result.getOcrResult();
+                    String ocrText = ocrReads.get(result);
+                    if (ocrText != null && !ocrText.isEmpty()) {
+                        label += ": " + ocrText;
                     }
                     drawDetectionRect(g2d, rect, color, scale, offsetX, offsetY, label);
                 }
@@ -784,8 +827,8 @@ public class TuningGUI extends JFrame {
                     // Find OCR result for this overlap
                     String ocrText = "";
                     for (DetectionResult r : results) {
-                        if (DetectionResult.calculateIoU(rect, r.getBounds()) > 0.3 && r.getOcrResult() != null) {
-                            ocrText = r.getOcrResult();
+                        if (DetectionResult.calculateIoU(rect, r.getBounds()) > 0.3 && ocrReads.get(r) != null) {
+                            ocrText = ocrReads.get(r);
                             break;
                         }
                     }
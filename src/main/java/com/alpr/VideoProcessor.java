@@ -0,0 +1,155 @@
+package com.alpr;
+
+import org.opencv.core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * VideoProcessor - Plate recognition on a video or frame sequence
+ *
+ * <p>Runs detection on every frame, but OCR only where the {@link PlateTracker}
+ * asks for it: once per new plate and again only when a clearly better crop of the
+ * same plate shows up, until the track's {@link PlateConsensus} is stable. Each
+ * track is reported once, with the consensus of all its OCR runs, when it leaves
+ * the scene (or at the end of the input).</p>
+ *
+ * @author ALPR Academic Project
+ * @version 1.0
+ */
+public class VideoProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(VideoProcessor.class);
+
+    private final PipelineContext context;
+    private final PlateTracker tracker;
+    private final List<PlateTracker.Track> finishedTracks = new ArrayList<>();
+
+    private int frames = 0;
+    private long elapsedNanos = 0;
+
+    /**
+     * @param context Detector/OCR pair (configured by the caller)
+     * @param tracker Tracker with the desired association settings
+     */
+    public VideoProcessor(PipelineContext context, PlateTracker tracker) {
+        this.context = context;
+        this.tracker = tracker;
+    }
+
+    /**
+     * Processes all frames of the source.
+     *
+     * @return Consolidated tracks in the order they ended
+     */
+    public List<PlateTracker.Track> run(FrameSource source) {
+        log.info("Video source: {}{}", source.getDescription(),
+                source.getFps() > 0 ? String.format(" (%.1f fps)", source.getFps()) : "");
+        long start = System.nanoTime();
+
+        Mat frame;
+        while ((frame = source.next()) != null) {
+            processFrame(source.getFrameIndex(), frame);
+        }
+        for (PlateTracker.Track track : tracker.finish()) {
+            report(track);
+        }
+        context.beginImage(); // release the last frame
+
+        elapsedNanos = System.nanoTime() - start;
+        return finishedTracks;
+    }
+
+    private void processFrame(int frameIndex, Mat frame) {
+        context.beginImage();
+        PlateDetector detector = context.getDetector();
+
+        // The detector owns the frame from here on and releases it on the next beginImage()
+        String frameName = String.format("frame_%06d", frameIndex);
+        if (!detector.loadImage(frame, frameName)) return;
+        frames++;
+
+        detector.preprocess();
+        List<DetectionResult> detections = detector.detectAll();
+
+        List<PlateTracker.Track> ended = new ArrayList<>();
+        List<DetectionResult> toOcr = tracker.update(frameIndex, detections, ended);
+
+        // Usually one crop per frame; symbol confidences feed the track's consensus
+        String debugName = detector.isDebugSampled() ? frameName : null;
+        for (DetectionResult det : toOcr) {
+            OcrRead read = context.getOcrService().recognizePlateDetailed(det.getCroppedPlate(),
+                    debugName == null ? null : debugName + "_" + det.getMethod().name().toLowerCase());
+            tracker.recordRead(det, read);
+        }
+
+        for (PlateTracker.Track track : ended) {
+            report(track);
+        }
+    }
+
+    private void report(PlateTracker.Track track) {
+        finishedTracks.add(track);
+        String plate = track.getConsolidatedText();
+        log.info("Track #{} frames {}-{} ({} hits, {} OCR) -> {}", track.getId(), track.getFirstFrame(),
+                track.getLastFrame(), track.getHits(), track.getOcrRuns(), plate.isEmpty() ? "(unread)" : plate);
+    }
+
+    // ==================== REPORTING ====================
+
+    public void printSummary() {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        int perFrameOcr = tracker.getTotalDetections();
+        int ocrRuns = tracker.getTotalOcrRuns();
+        double saved = perFrameOcr > 0 ? 100.0 * (perFrameOcr - ocrRuns) / perFrameOcr : 0;
+
+        System.out.println();
+        System.out.println("==============================================");
+        System.out.println("  VIDEO SUMMARY");
+        System.out.println("==============================================");
+        System.out.println("  Frames:              " + frames +
+                          (seconds > 0 ? String.format(" (%.1f fps)", frames / seconds) : ""));
+        System.out.println("  Detections:          " + tracker.getTotalDetections());
+        System.out.println("  Tracks:              " + tracker.getTotalTracks());
+        System.out.println("  OCR runs:            " + ocrRuns + " (per-frame OCR: " + perFrameOcr + ")");
+        System.out.println("  OCR calls saved:     " + String.format("%.1f%%", saved));
+        System.out.println();
+        for (PlateTracker.Track track : finishedTracks) {
+            String plate = track.getConsolidatedText();
+            System.out.printf("  #%-4d frames %6d-%-6d %-12s%n", track.getId(), track.getFirstFrame(),
+                              track.getLastFrame(), plate.isEmpty() ? "(unread)" : plate);
+        }
+    }
+
+    /**
+     * Writes one row per track. Uses semicolon as delimiter for Excel compatibility.
+     */
+    public void exportTracksToCSV() {
+        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+        String csvFileName = "alpr_tracks_" + timestamp + ".csv";
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(csvFileName))) {
+            writer.print('\ufeff'); // UTF-8 BOM for Excel
+            writer.println("TrackId;FirstFrame;LastFrame;Hits;OcrRuns;Plate");
+            for (PlateTracker.Track track : finishedTracks) {
+                writer.println(String.join(";",
+                    String.valueOf(track.getId()),
+                    String.valueOf(track.getFirstFrame()),
+                    String.valueOf(track.getLastFrame()),
+                    String.valueOf(track.getHits()),
+                    String.valueOf(track.getOcrRuns()),
+                    track.getConsolidatedText()
+                ));
+            }
+            log.info("Tracks exported to: {}", csvFileName);
+        } catch (Exception e) {
+            log.error("Failed to export CSV: {}", e.getMessage());
+        }
+    }
+}
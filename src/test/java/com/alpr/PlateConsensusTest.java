@@ -0,0 +1,99 @@
+package com.alpr;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlateConsensusTest {
+
+    private static OcrRead read(String text, float confidence) {
+        return OcrRead.of(text, confidence);
+    }
+
+    @Test
+    void droppedCharacterLinesUpWithItsColumn() {
+        PlateConsensus consensus = new PlateConsensus();
+        consensus.add(read("34ABC123", 80));
+        consensus.add(read("34ABC123", 80));
+        consensus.add(read("34AC123", 80));
+
+        assertEquals("34ABC123", consensus.getText());
+    }
+
+    @Test
+    void doubledCharacterDoesNotAddAPosition() {
+        PlateConsensus consensus = new PlateConsensus();
+        consensus.add(read("34ABC123", 80));
+        consensus.add(read("34ABC123", 80));
+        consensus.add(read("34ABBC123", 80));
+
+        assertEquals("34ABC123", consensus.getText());
+    }
+
+    @Test
+    void confidentMisreadIsOutvotedByTwoCorrectReads() {
+        PlateConsensus consensus = new PlateConsensus();
+        consensus.add(read("34A8C123", 95));
+        assertEquals("34A8C123", consensus.getText());
+
+        consensus.add(read("34ABC123", 60));
+        consensus.add(read("34ABC123", 60));
+
+        assertEquals("34ABC123", consensus.getText());
+    }
+
+    @Test
+    void readWeightScalesVotes() {
+        PlateConsensus consensus = new PlateConsensus();
+        consensus.add(read("34ABC123", 60), 3.0);
+        consensus.add(read("34A8C123", 95));
+
+        assertEquals("34ABC123", consensus.getText());
+    }
+
+    @Test
+    void emptyReadDoesNotConfirmStability() {
+        PlateConsensus consensus = new PlateConsensus();
+        consensus.add(read("34ABC123", 80));
+        consensus.add(OcrRead.empty());
+
+        assertFalse(consensus.isStable());
+        assertEquals(2, consensus.getReadCount());
+
+        consensus.add(read("34ABC123", 80));
+        assertTrue(consensus.isStable());
+    }
+
+    @Test
+    void zeroWeightReadDoesNotConfirmStability() {
+        PlateConsensus consensus = new PlateConsensus();
+        consensus.add(read("34ABC123", 80));
+        consensus.add(read("34ABC123", 80), 0);
+
+        assertFalse(consensus.isStable());
+    }
+
+    @Test
+    void disagreementPreventsStability() {
+        PlateConsensus consensus = new PlateConsensus();
+        consensus.add(read("34ABC123", 80));
+        consensus.add(read("34ABC123", 80));
+        assertTrue(consensus.isStable());
+
+        // Splits the B column 50/50, below the 60% agreement
+        consensus.add(read("34A8C123", 80));
+        consensus.add(read("34A8C123", 80));
+        assertFalse(consensus.isStable());
+    }
+
+    @Test
+    void noReadsMeansEmptyAndUnstable() {
+        PlateConsensus consensus = new PlateConsensus();
+        consensus.add(OcrRead.empty());
+
+        assertEquals("", consensus.getText());
+        assertFalse(consensus.isStable());
+    }
+}
@@ -0,0 +1,195 @@
+package com.alpr;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultSinkTest {
+
+    private static final List<String> PARAMS = Arrays.asList(
+            "BlurKernel;CannyT1;CannyT2;DilateKernel;DilateIter;MinAR;MaxAR",
+            "11;50;150;3;2;2.0;7.0",
+            "");
+
+    @TempDir
+    Path dir;
+
+    private static DebugResult result(String fileName, String ocr) {
+        DebugResult result = new DebugResult();
+        result.fileName = fileName;
+        result.expectedPlate = fileName.replaceAll("\\.[^.]+$", "");
+        result.ocrResult = ocr;
+        result.detected = !ocr.isEmpty();
+        result.haarCount = 2;
+        result.geoCount = 1;
+        result.bestMethod = ocr.isEmpty() ? "" : "HAAR";
+        return result;
+    }
+
+    private static void writeAll(Path file, List<String> preamble, DebugResult... results) throws IOException {
+        try (ResultSink sink = new ResultSink(file.toString(), false, preamble, null, 60_000)) {
+            for (DebugResult result : results) {
+                sink.write(result);
+            }
+        }
+    }
+
+    private static List<DebugResult> resume(Path file, List<String> preamble) throws IOException {
+        List<DebugResult> existing = new ArrayList<>();
+        new ResultSink(file.toString(), true, preamble, existing::add, 60_000).close();
+        return existing;
+    }
+
+    // ==================== ESCAPING ====================
+
+    @Test
+    void escapeRoundTrips() {
+        for (String value : Arrays.asList("", "34ABC123", "a\"b", "back\\slash", "\\\"", "end\\",
+                "line\nbreak\r\ttab", "çğış")) {
+            assertEquals(value, ResultSink.unescape(ResultSink.escape(value)), value);
+        }
+    }
+
+    @Test
+    void escapeProducesJsonEscapes() {
+        assertEquals("a\\\"b\\\\c\\n", ResultSink.escape("a\"b\\c\n"));
+        assertEquals("", ResultSink.escape(null));
+    }
+
+    // ==================== ORDER ====================
+
+    @Test
+    void closeSortsCsvRowsByFileName() throws IOException {
+        Path file = dir.resolve("results.csv");
+        writeAll(file, PARAMS, result("35XY999.jpg", "35XY999"), result("01A1234.jpg", ""),
+                result("06YEV02.jpg", "06YEV02"));
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals("\ufeff" + PARAMS.get(0), lines.get(0));
+        assertEquals(PARAMS.get(1), lines.get(1));
+        assertEquals("", lines.get(2));
+        assertEquals(ResultSink.CSV_HEADER, lines.get(3));
+        assertTrue(lines.get(4).startsWith("01A1234.jpg;"));
+        assertTrue(lines.get(5).startsWith("06YEV02.jpg;"));
+        assertTrue(lines.get(6).startsWith("35XY999.jpg;"));
+        assertEquals(7, lines.size());
+    }
+
+    @Test
+    void closeSortsJsonlRowsAfterThePreamble() throws IOException {
+        Path file = dir.resolve("results.jsonl");
+        writeAll(file, PARAMS, result("b.jpg", "B"), result("a.jpg", "A"));
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals("{\"preamble\":\"" + PARAMS.get(0) + "\"}", lines.get(0));
+        assertEquals("{\"preamble\":\"" + PARAMS.get(1) + "\"}", lines.get(1));
+        assertTrue(lines.get(2).startsWith("{\"file\":\"a.jpg\""));
+        assertTrue(lines.get(3).startsWith("{\"file\":\"b.jpg\""));
+        assertEquals(4, lines.size());
+    }
+
+    // ==================== RESUME ====================
+
+    @Test
+    void resumeRestoresCsvRows() throws IOException {
+        Path file = dir.resolve("results.csv");
+        writeAll(file, PARAMS, result("06YEV02.jpg", "06YEV02"), result("01A1234.jpg", ""));
+
+        List<DebugResult> existing = resume(file, PARAMS);
+
+        assertEquals(2, existing.size());
+        DebugResult first = existing.get(0);
+        assertEquals("01A1234.jpg", first.fileName);
+        assertEquals("01A1234", first.expectedPlate);
+        assertEquals("", first.ocrResult);
+        assertFalse(first.detected);
+        DebugResult second = existing.get(1);
+        assertEquals("06YEV02", second.ocrResult);
+        assertEquals(2, second.haarCount);
+        assertEquals(1, second.geoCount);
+        assertTrue(second.detected);
+        assertEquals("HAAR", second.bestMethod);
+    }
+
+    @Test
+    void resumeRestoresJsonlRowsWithEscapedValues() throws IOException {
+        Path file = dir.resolve("results.jsonl");
+        writeAll(file, PARAMS, result("odd \"name\" \\ x.jpg", "34ABC123"));
+
+        List<DebugResult> existing = resume(file, PARAMS);
+
+        assertEquals(1, existing.size());
+        assertEquals("odd \"name\" \\ x.jpg", existing.get(0).fileName);
+        assertEquals("34ABC123", existing.get(0).ocrResult);
+        assertTrue(existing.get(0).detected);
+    }
+
+    @Test
+    void resumeReportsCompletedFilesAndAppends() throws IOException {
+        Path file = dir.resolve("results.csv");
+        writeAll(file, PARAMS, result("a.jpg", "A"));
+
+        try (ResultSink sink = new ResultSink(file.toString(), true, PARAMS, null, 60_000)) {
+            assertEquals(Set.of("a.jpg"), sink.getCompletedFiles());
+            sink.write(result("b.jpg", "B"));
+        }
+
+        assertEquals(2, resume(file, PARAMS).size());
+        // Parameter block and header are not repeated
+        long headers = Files.readAllLines(file, StandardCharsets.UTF_8).stream()
+                .filter(ResultSink.CSV_HEADER::equals).count();
+        assertEquals(1, headers);
+    }
+
+    @Test
+    void resumeDropsPartialLastLine() throws IOException {
+        Path file = dir.resolve("results.csv");
+        writeAll(file, PARAMS, result("a.jpg", "A"));
+        Files.write(file, "b.jpg;B;B;1".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        List<DebugResult> existing = resume(file, PARAMS);
+
+        assertEquals(1, existing.size());
+        assertEquals("a.jpg", existing.get(0).fileName);
+        assertTrue(Files.readAllLines(file, StandardCharsets.UTF_8).stream().noneMatch(l -> l.startsWith("b.jpg")));
+    }
+
+    @Test
+    void resumeRefusesDifferentParameters() throws IOException {
+        Path csv = dir.resolve("results.csv");
+        Path jsonl = dir.resolve("results.jsonl");
+        writeAll(csv, PARAMS, result("a.jpg", "A"));
+        writeAll(jsonl, PARAMS, result("a.jpg", "A"));
+        List<String> other = Arrays.asList(PARAMS.get(0), "15;50;150;3;2;2.0;7.0", "");
+
+        assertThrows(IOException.class, () -> resume(csv, other));
+        assertThrows(IOException.class, () -> resume(jsonl, other));
+        // The refused file is left as it was
+        assertEquals(1, resume(csv, PARAMS).size());
+    }
+
+    @Test
+    void withoutResumeTheFileIsReplaced() throws IOException {
+        Path file = dir.resolve("results.csv");
+        writeAll(file, PARAMS, result("a.jpg", "A"));
+        writeAll(file, PARAMS, result("b.jpg", "B"));
+
+        List<DebugResult> existing = resume(file, PARAMS);
+        assertEquals(1, existing.size());
+        assertEquals("b.jpg", existing.get(0).fileName);
+    }
+}